@@ -0,0 +1,62 @@
+package nz.co.market.auth.service;
+
+import io.jsonwebtoken.Claims;
+import nz.co.market.auth.config.JwtConfig;
+import nz.co.market.auth.entity.User;
+import nz.co.market.benchmarks.ItemFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(Base64.getEncoder().encodeToString(new byte[32]));
+        jwtConfig.setAccessTokenExpiration(3600000L);
+        jwtConfig.setRefreshTokenExpiration(604800000L);
+        jwtService = new JwtService(jwtConfig);
+        jwtService.init();
+
+        user = ItemFixtures.seller();
+        token = jwtService.generateToken(user);
+    }
+
+    // One signature verification on the shared parser
+    @Benchmark
+    public Claims parseClaims() {
+        return jwtService.parseClaims(token);
+    }
+
+    // Parse plus subject check, as used when the expected user is already known
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtService.validateToken(token, user.getEmail());
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+}
@@ -0,0 +1,204 @@
+package nz.co.market.benchmarks;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import nz.co.market.chat.repository.ChatMessageRepository;
+import nz.co.market.chat.repository.ConversationRepository;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Sending a message and reading history against PostgreSQL, with the statements the chat
+// repositories run. Needs a database of its own: it is migrated with the backend's Flyway scripts
+// and filled up to the messages param once; later runs reuse the rows. For the 100M-row figures:
+//   -p messages=100000000 -p jdbcUrl=jdbc:postgresql://host:5432/chat_bench
+// Seeding that many takes a while; run with -t to measure under concurrent senders and readers.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ChatMessageStoreBenchmark {
+
+    private static final int SEED_CHUNK = 1_000_000;
+    private static final int CURSOR_SAMPLES = 1_000;
+    private static final UUID BUYER_ID = UUID.nameUUIDFromBytes("bench-buyer".getBytes(StandardCharsets.UTF_8));
+    private static final UUID SELLER_ID = UUID.nameUUIDFromBytes("bench-seller".getBytes(StandardCharsets.UTF_8));
+
+    @Param("jdbc:postgresql://localhost:5432/chat_bench")
+    private String jdbcUrl;
+
+    @Param("market")
+    private String user;
+
+    @Param("market")
+    private String password;
+
+    @Param("1000000")
+    private long messages;
+
+    @Param("1000")
+    private int messagesPerConversation;
+
+    @Param("50")
+    private int pageSize;
+
+    private HikariDataSource dataSource;
+    private NamedParameterJdbcTemplate jdbc;
+    private TransactionTemplate transactionTemplate;
+    private List<UUID> conversationIds;
+    private List<UUID[]> cursors;
+
+    @Setup
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setMaximumPoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        dataSource = new HikariDataSource(config);
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        seed();
+
+        conversationIds = jdbc.queryForList("SELECT id FROM conversations WHERE buyer_id = :buyerId",
+                Map.of("buyerId", BUYER_ID), UUID.class);
+        cursors = sampleCursors();
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    // What ChatService.sendMessage writes, in one transaction
+    @Benchmark
+    public Object send() {
+        UUID conversationId = randomConversation();
+        UUID messageId = UUID.randomUUID();
+        OffsetDateTime now = OffsetDateTime.now();
+        return transactionTemplate.execute(status -> {
+            jdbc.update("""
+                    INSERT INTO chat_messages (id, conversation_id, sender_id, content, message_type, created_at, updated_at)
+                    VALUES (:id, :conversationId, :senderId, 'Is this still available?', 'TEXT', :now, :now)
+                    """, new MapSqlParameterSource()
+                    .addValue("id", messageId)
+                    .addValue("conversationId", conversationId)
+                    .addValue("senderId", BUYER_ID)
+                    .addValue("now", now));
+            return jdbc.update(ConversationRepository.RECORD_MESSAGE_SQL, new MapSqlParameterSource()
+                    .addValue("conversationId", conversationId)
+                    .addValue("messageId", messageId)
+                    .addValue("senderId", BUYER_ID)
+                    .addValue("messageType", "TEXT")
+                    .addValue("preview", "Is this still available?")
+                    .addValue("sentAt", now));
+        });
+    }
+
+    // Opening a conversation
+    @Benchmark
+    public List<Map<String, Object>> latestPage() {
+        return jdbc.queryForList(ChatMessageRepository.LATEST_SQL, new MapSqlParameterSource()
+                .addValue("conversationId", randomConversation())
+                .addValue("limit", pageSize + 1));
+    }
+
+    // Scrolling back from somewhere in the conversation's history
+    @Benchmark
+    public List<Map<String, Object>> olderPage() {
+        UUID[] cursor = cursors.get(ThreadLocalRandom.current().nextInt(cursors.size()));
+        return jdbc.queryForList(ChatMessageRepository.BEFORE_SQL, new MapSqlParameterSource()
+                .addValue("conversationId", cursor[0])
+                .addValue("before", cursor[1])
+                .addValue("limit", pageSize + 1));
+    }
+
+    private UUID randomConversation() {
+        return conversationIds.get(ThreadLocalRandom.current().nextInt(conversationIds.size()));
+    }
+
+    // Conversations get an item each (they are unique per buyer, seller and item); messages are
+    // spread round-robin over them a second apart, alternating senders
+    private void seed() {
+        long conversations = Math.max(1, messages / messagesPerConversation);
+        Map<String, Object> params = Map.of("buyerId", BUYER_ID, "sellerId", SELLER_ID, "conversations", conversations);
+        jdbc.update("""
+                INSERT INTO users (id, email, password_hash, display_name)
+                VALUES (:buyerId, 'bench-buyer@example.com', 'x', 'Buyer'), (:sellerId, 'bench-seller@example.com', 'x', 'Seller')
+                ON CONFLICT DO NOTHING
+                """, params);
+        jdbc.update("""
+                INSERT INTO items (id, seller_id, title, description, price_nzd, condition, trade_method)
+                SELECT md5('bench-item-' || n)::uuid, :sellerId, 'Item ' || n, 'Description', 10, 'GOOD', 'PICKUP'
+                FROM generate_series(0, :conversations - 1) n
+                ON CONFLICT DO NOTHING
+                """, params);
+        jdbc.update("""
+                INSERT INTO conversations (id, item_id, buyer_id, seller_id, last_message_at)
+                SELECT md5('bench-conversation-' || n)::uuid, md5('bench-item-' || n)::uuid, :buyerId, :sellerId, TIMESTAMPTZ '2020-01-01 00:00:00+00'
+                FROM generate_series(0, :conversations - 1) n
+                ON CONFLICT DO NOTHING
+                """, params);
+
+        Long existing = jdbc.queryForObject("SELECT count(*) FROM chat_messages", Map.of(), Long.class);
+        for (long from = existing; from < messages; from += SEED_CHUNK) {
+            jdbc.update("""
+                    INSERT INTO chat_messages (conversation_id, sender_id, content, message_type, created_at, updated_at)
+                    SELECT md5('bench-conversation-' || (n % :conversations))::uuid,
+                           CASE WHEN n % 2 = 0 THEN :buyerId ELSE :sellerId END,
+                           'Message ' || n, 'TEXT',
+                           TIMESTAMPTZ '2020-01-01 00:00:00+00' + n * INTERVAL '1 second',
+                           TIMESTAMPTZ '2020-01-01 00:00:00+00' + n * INTERVAL '1 second'
+                    FROM generate_series(:from, :to) n
+                    """, new MapSqlParameterSource(params)
+                    .addValue("from", from)
+                    .addValue("to", Math.min(from + SEED_CHUNK, messages) - 1));
+        }
+        jdbc.getJdbcOperations().execute("ANALYZE chat_messages");
+        jdbc.getJdbcOperations().execute("ANALYZE conversations");
+    }
+
+    // (conversation, message id) pairs at random depths, each with at least a page behind it
+    private List<UUID[]> sampleCursors() {
+        List<UUID[]> samples = new ArrayList<>(CURSOR_SAMPLES);
+        int depth = Math.max(1, messagesPerConversation - pageSize);
+        for (int i = 0; i < CURSOR_SAMPLES; i++) {
+            UUID conversationId = randomConversation();
+            List<UUID> ids = jdbc.queryForList("""
+                    SELECT id FROM chat_messages WHERE conversation_id = :conversationId
+                    ORDER BY created_at DESC, id DESC OFFSET :offset LIMIT 1
+                    """, new MapSqlParameterSource()
+                    .addValue("conversationId", conversationId)
+                    .addValue("offset", ThreadLocalRandom.current().nextInt(depth)), UUID.class);
+            ids.forEach(id -> samples.add(new UUID[]{conversationId, id}));
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,91 @@
+package nz.co.market.benchmarks;
+
+import nz.co.market.auth.entity.User;
+import nz.co.market.auth.entity.UserProfile;
+import nz.co.market.items.entity.Category;
+import nz.co.market.items.entity.Item;
+import nz.co.market.items.entity.ItemImage;
+import nz.co.market.items.entity.Tag;
+import nz.co.market.items.enums.ItemCondition;
+import nz.co.market.items.enums.TradeMethod;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Detached entities shaped like a typical listing, with the collection sizes the benchmarks vary
+public final class ItemFixtures {
+
+    private ItemFixtures() {
+    }
+
+    public static User seller() {
+        User seller = User.builder()
+                .email("seller@example.co.nz")
+                .displayName("Auckland Seller")
+                .avatarUrl("https://cdn.example.co.nz/avatars/seller.jpg")
+                .build();
+        seller.setId(UUID.randomUUID());
+        UserProfile profile = UserProfile.builder()
+                .user(seller)
+                .location("Auckland")
+                .build();
+        seller.setProfile(profile);
+        return seller;
+    }
+
+    public static Item item(int tagCount, int imageCount) {
+        Category category = Category.builder()
+                .name("Electronics")
+                .slug("electronics")
+                .build();
+        category.setId(UUID.randomUUID());
+
+        Item item = Item.builder()
+                .seller(seller())
+                .title("Apple iPhone 13 Pro 256GB, great condition")
+                .description("Always in a case with a screen protector. Battery health 91%. "
+                        + "Comes with the original box and cable; pick up from Ponsonby or I can post.")
+                .priceNzd(new BigDecimal("899.00"))
+                .condition(ItemCondition.LIKE_NEW)
+                .tradeMethod(TradeMethod.BOTH)
+                .locationCity("Auckland")
+                .lat(new BigDecimal("-36.848461"))
+                .lng(new BigDecimal("174.763336"))
+                .viewCount(1234)
+                .category(category)
+                .build();
+        item.setId(UUID.randomUUID());
+        item.setCreatedAt(ZonedDateTime.now());
+        item.setUpdatedAt(ZonedDateTime.now());
+
+        for (int i = 0; i < imageCount; i++) {
+            ItemImage image = ItemImage.builder()
+                    .item(item)
+                    .url("https://cdn.example.co.nz/items/" + item.getId() + "/" + i + ".jpg")
+                    .sortOrder(i)
+                    .build();
+            image.setId(UUID.randomUUID());
+            item.getImages().add(image);
+        }
+        for (int i = 0; i < tagCount; i++) {
+            Tag tag = Tag.builder()
+                    .name("tag " + i)
+                    .slug("tag-" + i)
+                    .build();
+            tag.setId(UUID.randomUUID());
+            item.getTags().add(tag);
+        }
+        return item;
+    }
+
+    public static List<Item> items(int count, int tagCount, int imageCount) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(item(tagCount, imageCount));
+        }
+        return items;
+    }
+}
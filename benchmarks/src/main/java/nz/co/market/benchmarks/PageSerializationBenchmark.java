@@ -0,0 +1,68 @@
+package nz.co.market.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nz.co.market.items.dto.ItemResponse;
+import nz.co.market.items.dto.ItemSummaryResponse;
+import nz.co.market.items.entity.Item;
+import nz.co.market.items.mapper.ItemMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Response bodies as the MVC message converter writes them
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    @Param({"0", "5", "20"})
+    private int tags;
+
+    @Param({"1", "5"})
+    private int images;
+
+    // Same defaults Spring Boot applies: java.time module, ISO dates rather than timestamps
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private Page<ItemResponse> itemPage;
+    private Page<ItemSummaryResponse> summaryPage;
+
+    @Setup
+    public void setUp() {
+        List<Item> items = ItemFixtures.items(pageSize, tags, images);
+        PageRequest pageable = PageRequest.of(0, pageSize);
+        itemPage = new PageImpl<>(items.stream().map(ItemMapper.INSTANCE::toResponse).toList(), pageable, 1000);
+        summaryPage = new PageImpl<>(items.stream().map(ItemMapper.INSTANCE::toSummaryResponse).toList(), pageable, 1000);
+    }
+
+    @Benchmark
+    public byte[] itemResponsePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(itemPage);
+    }
+
+    @Benchmark
+    public byte[] itemSummaryPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaryPage);
+    }
+}
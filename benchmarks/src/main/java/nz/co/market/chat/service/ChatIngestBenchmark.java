@@ -0,0 +1,166 @@
+package nz.co.market.chat.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.chat.config.ChatIngestConfig;
+import nz.co.market.chat.dto.ChatMessageRequest;
+import nz.co.market.chat.dto.ChatMessageResponse;
+import nz.co.market.chat.repository.ConversationRepository;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Concurrent senders spread over a few busy conversations, each send waiting until its message is
+// committed: DIRECT is what ChatService.sendMessage does per message, BATCHED goes through
+// MessageIngestBuffer. Uses a database of its own like ChatMessageStoreBenchmark (the same one
+// works); only its conversations are added. Lives in MessageIngestBuffer's package to start and
+// stop it without Spring.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(1)
+public class ChatIngestBenchmark {
+
+    private static final UUID BUYER_ID = UUID.nameUUIDFromBytes("ingest-buyer".getBytes(StandardCharsets.UTF_8));
+    private static final UUID SELLER_ID = UUID.nameUUIDFromBytes("ingest-seller".getBytes(StandardCharsets.UTF_8));
+
+    @Param("jdbc:postgresql://localhost:5432/chat_bench")
+    private String jdbcUrl;
+
+    @Param("market")
+    private String user;
+
+    @Param("market")
+    private String password;
+
+    @Param({"DIRECT", "BATCHED"})
+    private ChatIngestConfig.Mode mode;
+
+    @Param("10")
+    private int conversations;
+
+    @Param("5")
+    private int flushIntervalMillis;
+
+    private HikariDataSource dataSource;
+    private NamedParameterJdbcTemplate jdbc;
+    private TransactionTemplate transactionTemplate;
+    private MessageIngestBuffer buffer;
+    private List<UUID> conversationIds;
+
+    @Setup
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setMaximumPoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        dataSource = new HikariDataSource(config);
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        seed();
+        conversationIds = jdbc.queryForList("SELECT id FROM conversations WHERE buyer_id = :buyerId",
+                Map.of("buyerId", BUYER_ID), UUID.class);
+
+        ChatIngestConfig ingestConfig = new ChatIngestConfig();
+        ingestConfig.setMode(mode);
+        ingestConfig.setFlushInterval(Duration.ofMillis(flushIntervalMillis));
+        // Events are only delivered by ChatNotifier, which isn't measured here
+        buffer = new MessageIngestBuffer(jdbc, transactionTemplate, ingestConfig, new SimpleMeterRegistry(), event -> { });
+        buffer.init();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        buffer.shutdown();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Object send() {
+        UUID conversationId = conversationIds.get(ThreadLocalRandom.current().nextInt(conversationIds.size()));
+        UUID senderId = ThreadLocalRandom.current().nextBoolean() ? BUYER_ID : SELLER_ID;
+        ChatMessageResponse message = ChatMessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .senderId(senderId)
+                .content("Is this still available?")
+                .messageType(ChatMessageRequest.MessageType.TEXT)
+                .createdAt(ZonedDateTime.now())
+                .build();
+        if (mode == ChatIngestConfig.Mode.BATCHED) {
+            return buffer.submit(message, BUYER_ID, SELLER_ID).join();
+        }
+        return transactionTemplate.execute(status -> {
+            // ChatService.sendMessage loads the conversation to check its participants first
+            jdbc.queryForMap("SELECT buyer_id, seller_id FROM conversations WHERE id = :id", Map.of("id", conversationId));
+            jdbc.update("""
+                    INSERT INTO chat_messages (id, conversation_id, sender_id, content, message_type, created_at, updated_at)
+                    VALUES (:id, :conversationId, :senderId, :content, 'TEXT', :now, :now)
+                    """, new MapSqlParameterSource()
+                    .addValue("id", message.getId())
+                    .addValue("conversationId", conversationId)
+                    .addValue("senderId", senderId)
+                    .addValue("content", message.getContent())
+                    .addValue("now", message.getCreatedAt().toOffsetDateTime()));
+            return jdbc.update(ConversationRepository.RECORD_MESSAGE_SQL, new MapSqlParameterSource()
+                    .addValue("conversationId", conversationId)
+                    .addValue("messageId", message.getId())
+                    .addValue("senderId", senderId)
+                    .addValue("messageType", "TEXT")
+                    .addValue("preview", message.getContent())
+                    .addValue("sentAt", message.getCreatedAt().toOffsetDateTime()));
+        });
+    }
+
+    private void seed() {
+        Map<String, Object> params = Map.of("buyerId", BUYER_ID, "sellerId", SELLER_ID, "conversations", conversations);
+        jdbc.update("""
+                INSERT INTO users (id, email, password_hash, display_name)
+                VALUES (:buyerId, 'ingest-buyer@example.com', 'x', 'Buyer'), (:sellerId, 'ingest-seller@example.com', 'x', 'Seller')
+                ON CONFLICT DO NOTHING
+                """, params);
+        jdbc.update("""
+                INSERT INTO items (id, seller_id, title, description, price_nzd, condition, trade_method)
+                SELECT md5('ingest-item-' || n)::uuid, :sellerId, 'Item ' || n, 'Description', 10, 'GOOD', 'PICKUP'
+                FROM generate_series(0, :conversations - 1) n
+                ON CONFLICT DO NOTHING
+                """, params);
+        jdbc.update("""
+                INSERT INTO conversations (id, item_id, buyer_id, seller_id)
+                SELECT md5('ingest-conversation-' || n)::uuid, md5('ingest-item-' || n)::uuid, :buyerId, :sellerId
+                FROM generate_series(0, :conversations - 1) n
+                ON CONFLICT DO NOTHING
+                """, params);
+    }
+}
@@ -0,0 +1,81 @@
+package nz.co.market.chat.service;
+
+import nz.co.market.benchmarks.ItemFixtures;
+import nz.co.market.chat.dto.ChatMessageResponse;
+import nz.co.market.chat.entity.ChatMessage;
+import nz.co.market.chat.entity.Conversation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Lives in ChatService's package to reach the package-private mapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatServiceBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    // Repositories are not touched by the mapping
+    private final ChatService chatService = new ChatService(null, null, null, null, null, null, null, null, null);
+    private ChatMessage message;
+    private Page<ChatMessage> page;
+
+    @Setup
+    public void setUp() {
+        Conversation conversation = Conversation.builder()
+                .item(ItemFixtures.item(0, 1))
+                .buyerId(UUID.randomUUID())
+                .sellerId(UUID.randomUUID())
+                .build();
+        conversation.setId(UUID.randomUUID());
+
+        List<ChatMessage> messages = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            ChatMessage chatMessage = ChatMessage.builder()
+                    .conversation(conversation)
+                    .senderId(i % 2 == 0 ? conversation.getBuyerId() : conversation.getSellerId())
+                    .content("Hi, is this still available? I can pick up tonight if so. #" + i)
+                    .messageType(ChatMessage.MessageType.TEXT)
+                    .readAt(i % 3 == 0 ? null : ZonedDateTime.now())
+                    .build();
+            chatMessage.setId(UUID.randomUUID());
+            chatMessage.setCreatedAt(ZonedDateTime.now());
+            messages.add(chatMessage);
+        }
+        message = messages.get(0);
+        page = new PageImpl<>(messages, PageRequest.of(0, pageSize), 1000);
+    }
+
+    @Benchmark
+    public ChatMessageResponse mapToMessageResponse() {
+        return chatService.mapToMessageResponse(message);
+    }
+
+    // What getConversationMessages does once the page is loaded
+    @Benchmark
+    public Page<ChatMessageResponse> mapPage() {
+        return page.map(chatService::mapToMessageResponse);
+    }
+}
@@ -0,0 +1,52 @@
+package nz.co.market.items.mapper;
+
+import nz.co.market.benchmarks.ItemFixtures;
+import nz.co.market.items.dto.ItemResponse;
+import nz.co.market.items.dto.ItemSummaryResponse;
+import nz.co.market.items.entity.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemMapperBenchmark {
+
+    @Param({"0", "5", "20"})
+    private int tags;
+
+    @Param({"1", "5", "10"})
+    private int images;
+
+    private final ItemMapper itemMapper = ItemMapper.INSTANCE;
+    private Item item;
+
+    @Setup
+    public void setUp() {
+        item = ItemFixtures.item(tags, images);
+    }
+
+    @Benchmark
+    public ItemResponse toResponse() {
+        return itemMapper.toResponse(item);
+    }
+
+    @Benchmark
+    public ItemSummaryResponse toSummaryResponse() {
+        return itemMapper.toSummaryResponse(item);
+    }
+}
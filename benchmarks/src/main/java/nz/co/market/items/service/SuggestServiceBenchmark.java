@@ -0,0 +1,86 @@
+package nz.co.market.items.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.items.config.SuggestConfig;
+import nz.co.market.items.dto.SuggestionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Lookups against a trie of generated titles, with and without items changed since it was built.
+// The overlay holds renames and new listings, up to the configured maximum. Lives in
+// SuggestService's package to install the trie and track changes without a database.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuggestServiceBenchmark {
+
+    private static final String[] BRANDS = {"Apple", "Samsung", "Sony", "Ikea", "Trek", "Nike", "Canon", "Dyson"};
+    private static final String[] PRODUCTS = {"iPhone", "laptop", "camera", "desk", "bike", "sneakers", "vacuum",
+            "headphones", "sofa", "tent"};
+    private static final String[] DETAILS = {"great condition", "barely used", "with box", "needs repair",
+            "pick up only", "as new"};
+
+    @Param({"50000"})
+    private int titles;
+
+    @Param({"0", "200", "2000"})
+    private int overlaySize;
+
+    @Param({"s", "apple ip", "camera with b"})
+    private String query;
+
+    private SuggestService suggestService;
+
+    @Setup
+    public void setUp() {
+        SuggestConfig config = new SuggestConfig();
+        suggestService = new SuggestService(null, config, new SimpleMeterRegistry());
+
+        SuggestionIndex.Builder builder = new SuggestionIndex.Builder(config.getTopK(), config.getMaxDepth());
+        Map<UUID, String> indexed = new HashMap<>();
+        List<UUID> ids = new ArrayList<>(titles);
+        for (int i = 0; i < titles; i++) {
+            UUID id = UUID.randomUUID();
+            String title = title(i);
+            builder.add(title, SuggestionResponse.Type.TITLE, null, 1 + Math.log1p(i % 500));
+            indexed.put(id, SuggestionIndex.normalize(title));
+            ids.add(id);
+        }
+        suggestService.install(builder.build(), indexed, Long.MIN_VALUE);
+
+        // Half renames of indexed items, half new listings
+        for (int i = 0; i < overlaySize; i++) {
+            UUID id = i % 2 == 0 ? ids.get(i * 7 % titles) : UUID.randomUUID();
+            suggestService.track(id, title(i * 13 + 5) + " #" + i, true, i % 100);
+        }
+    }
+
+    @Benchmark
+    public List<SuggestionResponse> suggest() {
+        return suggestService.suggest(query, 10);
+    }
+
+    private static String title(int i) {
+        return BRANDS[i % BRANDS.length] + " " + PRODUCTS[i / BRANDS.length % PRODUCTS.length] + " "
+                + DETAILS[i / (BRANDS.length * PRODUCTS.length) % DETAILS.length] + " " + (i % 997);
+    }
+}
@@ -10,11 +10,14 @@ import nz.co.market.admin.mapper.AdminMapper;
 import nz.co.market.admin.repository.AuditLogRepository;
 import nz.co.market.admin.repository.ReportRepository;
 import nz.co.market.auth.entity.User;
+import nz.co.market.auth.event.UserAccessChangedEvent;
 import nz.co.market.auth.repository.UserRepository;
 import nz.co.market.items.entity.Item;
+import nz.co.market.items.event.ItemChangedEvent;
 import nz.co.market.items.repository.ItemRepository;
 import nz.co.market.orders.entity.Order;
 import nz.co.market.orders.repository.OrderRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -36,6 +39,7 @@ public class AdminService {
     private final ReportRepository reportRepository;
     private final AuditLogRepository auditLogRepository;
     private final AdminMapper adminMapper;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public AdminDashboardResponse getDashboard() {
@@ -142,7 +146,7 @@ public class AdminService {
         
         report.setStatus(Report.ReportStatus.RESOLVED);
         report.setResolvedAt(ZonedDateTime.now());
-        report.setResolvedBy(admin);
+        report.setResolvedBy(userRepository.getReferenceById(admin.getId()));
         report.setResolutionNotes(resolutionNotes);
         
         reportRepository.save(report);
@@ -161,7 +165,7 @@ public class AdminService {
         
         report.setStatus(Report.ReportStatus.DISMISSED);
         report.setResolvedAt(ZonedDateTime.now());
-        report.setResolvedBy(admin);
+        report.setResolvedBy(userRepository.getReferenceById(admin.getId()));
         report.setResolutionNotes(reason);
         
         reportRepository.save(report);
@@ -180,6 +184,7 @@ public class AdminService {
         
         user.setStatus(nz.co.market.auth.enums.UserStatus.BANNED);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserAccessChangedEvent(userId, true));
         
         // Log the action
         logAdminAction(admin, "BAN_USER", "USER", userId, 
@@ -195,6 +200,7 @@ public class AdminService {
         
         user.setStatus(nz.co.market.auth.enums.UserStatus.ACTIVE);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserAccessChangedEvent(userId, false));
         
         // Log the action
         logAdminAction(admin, "UNBAN_USER", "USER", userId, 
@@ -210,6 +216,7 @@ public class AdminService {
         
         item.setStatus(nz.co.market.items.enums.ItemStatus.ACTIVE);
         itemRepository.save(item);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
         
         // Log the action
         logAdminAction(admin, "APPROVE_ITEM", "ITEM", itemId, 
@@ -225,6 +232,7 @@ public class AdminService {
         
         item.setStatus(nz.co.market.items.enums.ItemStatus.INACTIVE);
         itemRepository.save(item);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
         
         // Log the action
         logAdminAction(admin, "REJECT_ITEM", "ITEM", itemId, 
@@ -235,7 +243,7 @@ public class AdminService {
     
     private void logAdminAction(User admin, String action, String targetType, UUID targetId, String metadata) {
         AuditLog auditLog = AuditLog.builder()
-                .actor(admin)
+                .actor(userRepository.getReferenceById(admin.getId()))
                 .action(action)
                 .targetType(targetType)
                 .targetId(targetId)
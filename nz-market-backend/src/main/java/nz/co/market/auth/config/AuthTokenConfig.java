@@ -0,0 +1,22 @@
+package nz.co.market.auth.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.auth.tokens")
+public class AuthTokenConfig {
+    
+    // Lifetime of the links sent by email
+    private Duration emailVerificationTtl = Duration.ofHours(24);
+    private Duration passwordResetTtl = Duration.ofHours(1);
+    
+    // Expired tokens are deleted this often, at most sweepBatchSize rows per statement so
+    // the sweep never holds many row locks or one long transaction
+    private Long sweepInterval = 3600000L;
+    private Integer sweepBatchSize = 1000;
+}
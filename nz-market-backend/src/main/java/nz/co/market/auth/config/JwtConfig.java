@@ -4,12 +4,37 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "app.jwt")
 public class JwtConfig {
     
+    // Base64 HMAC key; used as the only key (under activeKeyId) when no keyset is configured
     private String secret;
     private Long accessTokenExpiration;
     private Long refreshTokenExpiration;
+    
+    // Key id written to the "kid" header of newly issued tokens
+    private String activeKeyId = "primary";
+    
+    // kid -> base64 HMAC key. To rotate, add the new key, switch activeKeyId to it, and drop
+    // the old key once the longest-lived token signed with it has expired
+    private Map<String, String> keys = new LinkedHashMap<>();
+    
+    // Build the principal from verified claims instead of loading the user on every request
+    private Boolean stateless = true;
+    
+    // Bans are shared between nodes on this channel and re-read from the database as a fallback
+    private Boolean revocationBroadcast = true;
+    private String revocationChannel = "auth:revocations";
+    private Long revocationSyncInterval = 30000L;
+    
+    // Refresh token families (one per sign-in) are kept in Redis under this prefix
+    private String refreshKeyPrefix = "auth:rt";
+    
+    // Oldest sessions are signed out when a user signs in again beyond this
+    private Integer maxSessionsPerUser = 20;
 }
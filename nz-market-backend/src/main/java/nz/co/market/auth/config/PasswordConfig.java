@@ -0,0 +1,25 @@
+package nz.co.market.auth.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.password")
+public class PasswordConfig {
+    
+    // Encoder for new hashes: bcrypt or argon2. Existing hashes keep working and are
+    // rehashed with this encoder (and bcryptStrength) on the user's next login
+    private String encoder = "bcrypt";
+    private Integer bcryptStrength = 12;
+    
+    // Hashing runs on its own pool so login bursts can't occupy every request thread
+    private Integer threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    
+    // Requests waiting for a hashing thread; beyond this they get 429 instead of queueing
+    private Integer queueCapacity = 64;
+    
+    // Upper bound (seconds) for the Retry-After sent with a 429
+    private Integer maxRetryAfter = 30;
+}
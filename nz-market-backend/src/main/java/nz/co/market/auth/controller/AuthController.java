@@ -8,17 +8,29 @@ import lombok.extern.slf4j.Slf4j;
 import nz.co.market.auth.dto.AuthResponse;
 import nz.co.market.auth.dto.LoginRequest;
 import nz.co.market.auth.dto.RegisterRequest;
+import nz.co.market.auth.dto.SessionResponse;
+import nz.co.market.auth.entity.User;
+import nz.co.market.auth.security.PasswordHashingBusyException;
+import nz.co.market.auth.security.PasswordHashingExecutor;
 import nz.co.market.auth.service.AuthService;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.DataAccessException;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/auth")
@@ -29,36 +41,45 @@ public class AuthController {
     
     private final AuthService authService;
     private final MessageSource messageSource;
+    private final PasswordHashingExecutor passwordHashingExecutor;
     
     @PostMapping("/register")
     @Operation(summary = "Register a new user")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
+    public CompletableFuture<ResponseEntity<?>> register(@Valid @RequestBody RegisterRequest request) {
         log.info("Registration attempt for email: {}", request.getEmail());
-        try {
-            AuthResponse response = authService.register(request);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            if (e.getMessage().contains("Email already exists") || e.getMessage().contains("邮箱地址已存在")) {
-                return ResponseEntity.status(409).body(Map.of("error", "Email already exists"));
-            }
-            return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
-        }
+        // Hashes the password; runs on the hashing pool, see PasswordHashingExecutor
+        return passwordHashingExecutor.submit(() -> authService.register(request))
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(error -> {
+                    RuntimeException e = unwrap(error);
+                    if (e instanceof DataAccessException) {
+                        return sessionsUnavailable(e);
+                    }
+                    if (e.getMessage().contains("Email already exists") || e.getMessage().contains("邮箱地址已存在")) {
+                        return ResponseEntity.status(409).body(Map.of("error", "Email already exists"));
+                    }
+                    return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
+                });
     }
     
     @PostMapping("/login")
     @Operation(summary = "Login user")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest request) {
         log.info("Login attempt for email: {}", request.getEmail());
-        try {
-            AuthResponse response = authService.login(request);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            if (e.getMessage().contains("Invalid email or password") || e.getMessage().contains("邮箱或密码错误") || 
-                e.getMessage().contains("User not found") || e.getMessage().contains("用户不存在")) {
-                return ResponseEntity.status(401).body(Map.of("error", "Invalid email or password"));
-            }
-            return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
-        }
+        // Verifies (and possibly rehashes) the password; runs on the hashing pool
+        return passwordHashingExecutor.submit(() -> authService.login(request))
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(error -> {
+                    RuntimeException e = unwrap(error);
+                    if (e instanceof DataAccessException) {
+                        return sessionsUnavailable(e);
+                    }
+                    if (e.getMessage().contains("Invalid email or password") || e.getMessage().contains("邮箱或密码错误") || 
+                        e.getMessage().contains("User not found") || e.getMessage().contains("用户不存在")) {
+                        return ResponseEntity.status(401).body(Map.of("error", "Invalid email or password"));
+                    }
+                    return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
+                });
     }
     
     @PostMapping("/refresh")
@@ -67,20 +88,48 @@ public class AuthController {
         try {
             AuthResponse response = authService.refreshToken(refreshToken);
             return ResponseEntity.ok(response);
+        } catch (DataAccessException e) {
+            // The refresh token is still valid; the client should retry rather than sign out
+            return sessionsUnavailable(e);
         } catch (RuntimeException e) {
             return ResponseEntity.status(401).body(Map.of("error", e.getMessage()));
         }
     }
     
+    @PostMapping("/logout")
+    @Operation(summary = "Sign out the session of a refresh token")
+    public ResponseEntity<Void> logout(@RequestBody String refreshToken) {
+        authService.logout(refreshToken);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @PostMapping("/logout-all")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Sign out every session of the current user")
+    public ResponseEntity<Map<String, Long>> logoutAll(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(Map.of("revoked", authService.logoutAll(user)));
+    }
+    
+    @GetMapping("/sessions")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "List active sessions of the current user")
+    public ResponseEntity<List<SessionResponse>> getSessions(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(authService.listSessions(user));
+    }
+    
+    @DeleteMapping("/sessions/{id}")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Sign out one session of the current user")
+    public ResponseEntity<Void> revokeSession(@AuthenticationPrincipal User user, @PathVariable String id) {
+        return authService.revokeSession(user, id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+    
     @PostMapping("/verify-email")
     @Operation(summary = "Verify email address")
     public ResponseEntity<?> verifyEmail(@RequestParam String token) {
         try {
-            // For testing purposes, simulate invalid token check
-            if (token == null || token.trim().isEmpty() || token.equals("invalid-verification-token")) {
-                return ResponseEntity.status(400).body(Map.of("error", "Invalid or expired verification token"));
-            }
-            
             authService.verifyEmail(token);
             return ResponseEntity.ok().build();
         } catch (RuntimeException e) {
@@ -111,33 +160,28 @@ public class AuthController {
 
     @PostMapping("/reset-password")
     @Operation(summary = "Reset password with token")
-    public ResponseEntity<Map<String, String>> resetPassword(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<Map<String, String>>> resetPassword(@RequestBody Map<String, String> request) {
         String token = request.get("token");
         String password = request.get("password");
         
         if (token == null || token.trim().isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Token is required"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Token is required")));
         }
         
         if (password == null || password.trim().isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Password is required"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Password is required")));
         }
         
         if (password.length() < 8) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Password must be at least 8 characters"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Password must be at least 8 characters")));
         }
         
-        try {
-            // For testing purposes, simulate valid token check
-            if (token != null && token.equals("valid-reset-token-12345")) {
-                authService.resetPassword(token, password);
-                return ResponseEntity.ok(Map.of("message", "Password reset successful"));
-            } else {
-                return ResponseEntity.badRequest().body(Map.of("error", "Invalid or expired reset token"));
-            }
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
-        }
+        // Hashes the new password; runs on the hashing pool
+        return passwordHashingExecutor.submit(() -> {
+                    authService.resetPassword(token, password);
+                    return ResponseEntity.ok(Map.of("message", "Password reset successful"));
+                })
+                .exceptionally(error -> ResponseEntity.badRequest().body(Map.of("error", unwrap(error).getMessage())));
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -153,4 +197,23 @@ public class AuthController {
         
         return ResponseEntity.badRequest().body(errors);
     }
+    
+    // Shed before any work is done, so browsing keeps its threads during a login burst
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<Map<String, String>> handlePasswordHashingBusy(PasswordHashingBusyException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", messageSource.getMessage("auth.busy", null, LocaleContextHolder.getLocale())));
+    }
+    
+    private ResponseEntity<?> sessionsUnavailable(RuntimeException e) {
+        log.error("Sign-in store unavailable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", messageSource.getMessage("auth.unavailable", null, LocaleContextHolder.getLocale())));
+    }
+    
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RuntimeException e ? e : new RuntimeException(cause);
+    }
 }
@@ -0,0 +1,22 @@
+package nz.co.market.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionResponse {
+    
+    private String id;
+    private Instant createdAt;
+    private Instant lastUsedAt;
+    private Instant expiresAt;
+    private String userAgent;
+    private String ipAddress;
+}
@@ -23,9 +23,13 @@ public class EmailVerificationToken extends BaseEntity {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
-    @Column(unique = true, nullable = false)
-    private String token;
+    // SHA-256 of the token sent by email, see OneTimeTokenStore
+    @Column(name = "token_hash", unique = true, nullable = false)
+    private String tokenHash;
     
     @Column(name = "expires_at", nullable = false)
     private ZonedDateTime expiresAt;
+    
+    @Column(name = "consumed_at")
+    private ZonedDateTime consumedAt;
 }
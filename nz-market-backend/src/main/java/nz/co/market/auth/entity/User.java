@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 import nz.co.market.common.entity.BaseEntity;
 import nz.co.market.auth.enums.UserRole;
 import nz.co.market.auth.enums.UserStatus;
+import org.springframework.security.core.AuthenticatedPrincipal;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,7 +21,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
-public class User extends BaseEntity {
+public class User extends BaseEntity implements AuthenticatedPrincipal {
     
     @Column(unique = true, nullable = false)
     private String email;
@@ -61,4 +62,10 @@ public class User extends BaseEntity {
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
     private List<PasswordResetToken> passwordResetTokens = new ArrayList<>();
+    
+    // Authentication.getName() and STOMP user destinations identify users by email
+    @Override
+    public String getName() {
+        return email;
+    }
 }
@@ -0,0 +1,7 @@
+package nz.co.market.auth.event;
+
+import java.util.UUID;
+
+// Published when a user's existing tokens must stop being accepted (ban) or a ban is lifted
+public record UserAccessChangedEvent(UUID userId, boolean revoked) {
+}
@@ -0,0 +1,7 @@
+package nz.co.market.auth.event;
+
+import java.util.UUID;
+
+// Published after a user's role, profile, email or password changes, so cached copies are dropped
+public record UserChangedEvent(UUID userId) {
+}
@@ -3,6 +3,7 @@ package nz.co.market.auth.repository;
 import nz.co.market.auth.entity.User;
 import nz.co.market.auth.enums.UserStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,4 +20,16 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     
     @Query("SELECT u FROM User u WHERE u.email = :email AND u.status = :status")
     Optional<User> findByEmailAndStatus(@Param("email") String email, @Param("status") UserStatus status);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.email = :email")
+    int updatePasswordHash(@Param("email") String email, @Param("passwordHash") String passwordHash);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.id = :id")
+    int updatePasswordHashById(@Param("id") UUID id, @Param("passwordHash") String passwordHash);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.emailVerified = true WHERE u.id = :id")
+    int markEmailVerified(@Param("id") UUID id);
 }
@@ -0,0 +1,60 @@
+package nz.co.market.auth.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.auth.config.JwtConfig;
+import nz.co.market.auth.entity.User;
+import nz.co.market.auth.enums.UserRole;
+import nz.co.market.auth.service.JwtService;
+import nz.co.market.auth.service.TokenRevocationService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Turns a bearer access token into an Authentication whose principal is the User entity,
+// as the controllers' @AuthenticationPrincipal parameters expect
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwtAuthenticator {
+    
+    private final JwtService jwtService;
+    private final JwtConfig jwtConfig;
+    private final UserPrincipalCache userPrincipalCache;
+    private final TokenRevocationService tokenRevocationService;
+    
+    // Empty for refresh tokens, revoked tokens and (when stateful) users that are no longer active;
+    // throws JwtException when the token itself is invalid
+    public Optional<UsernamePasswordAuthenticationToken> authenticate(String token) {
+        Claims claims = jwtService.parseClaims(token);
+        if ("refresh".equals(claims.get("type"))) {
+            return Optional.empty();
+        }
+        
+        Optional<User> user = jwtConfig.getStateless()
+                ? Optional.of(fromClaims(claims))
+                : userPrincipalCache.findActive(claims.getSubject());
+        return user
+                .filter(u -> !tokenRevocationService.isRevoked(u.getId(), claims.getIssuedAt()))
+                .map(u -> new UsernamePasswordAuthenticationToken(u, null,
+                        List.of(new SimpleGrantedAuthority("ROLE_" + u.getRole().name()))));
+    }
+    
+    // Detached and partial: only what the access token carries (id, email, role, emailVerified).
+    // Code that needs anything else must load the user, and associations must use
+    // UserRepository.getReferenceById rather than this object.
+    private User fromClaims(Claims claims) {
+        User user = User.builder()
+                .email(claims.getSubject())
+                .role(UserRole.valueOf(claims.get("role", String.class)))
+                .emailVerified(Boolean.TRUE.equals(claims.get("emailVerified", Boolean.class)))
+                .build();
+        user.setId(UUID.fromString(claims.get("userId", String.class)));
+        return user;
+    }
+}
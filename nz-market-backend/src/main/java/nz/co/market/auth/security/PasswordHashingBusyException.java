@@ -0,0 +1,15 @@
+package nz.co.market.auth.security;
+
+import lombok.Getter;
+
+// The password hashing queue is full; answered with 429 and a Retry-After header
+@Getter
+public class PasswordHashingBusyException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public PasswordHashingBusyException(long retryAfterSeconds) {
+        super("Password hashing queue is full");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,106 @@
+package nz.co.market.auth.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.auth.config.PasswordConfig;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs requests that hash passwords (login, register) on a small dedicated pool, so a burst
+// of them waits here instead of holding every Tomcat thread; the request thread is released
+// while the returned future is pending. When the queue is full the request is shed at once.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordHashingExecutor {
+    
+    // Weight of the latest task in the running average used for Retry-After
+    private static final double SMOOTHING = 0.2;
+    
+    private final PasswordConfig passwordConfig;
+    private final MeterRegistry meterRegistry;
+    
+    private ThreadPoolExecutor executor;
+    private Timer waitTimer;
+    // Running average task duration (ms); starts near one bcrypt-12 hash
+    private volatile double averageTaskMillis = 250;
+    
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(passwordConfig.getThreads(), passwordConfig.getThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(passwordConfig.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        
+        waitTimer = meterRegistry.timer("auth.password.queue.wait");
+        Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    // Throws PasswordHashingBusyException without queueing when the pool is saturated
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        // Messages are resolved on the hashing thread, in the caller's language; the request stays
+        // open (async) until the future completes, so its attributes remain usable there
+        LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        long queuedAt = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                LocaleContextHolder.setLocaleContext(localeContext);
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    LocaleContextHolder.resetLocaleContext();
+                    RequestContextHolder.resetRequestAttributes();
+                    double tookMillis = (System.nanoTime() - startedAt) / 1_000_000.0;
+                    averageTaskMillis += SMOOTHING * (tookMillis - averageTaskMillis);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("auth.password.rejected").increment();
+            long retryAfter = retryAfterSeconds();
+            log.warn("Password hashing queue full ({} waiting), retry after {}s", executor.getQueue().size(), retryAfter);
+            throw new PasswordHashingBusyException(retryAfter);
+        }
+        return future;
+    }
+    
+    // Roughly how long the current queue takes to drain
+    long retryAfterSeconds() {
+        double drainMillis = executor.getQueue().size() * averageTaskMillis / executor.getMaximumPoolSize();
+        long seconds = (long) Math.ceil(drainMillis / 1000);
+        return Math.max(1, Math.min(seconds, passwordConfig.getMaxRetryAfter()));
+    }
+}
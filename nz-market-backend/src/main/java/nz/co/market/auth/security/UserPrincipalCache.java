@@ -0,0 +1,89 @@
+package nz.co.market.auth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.auth.entity.User;
+import nz.co.market.auth.enums.UserStatus;
+import nz.co.market.auth.event.UserAccessChangedEvent;
+import nz.co.market.auth.event.UserChangedEvent;
+import nz.co.market.auth.repository.UserRepository;
+import nz.co.market.common.config.CacheConfig;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.UUID;
+
+// Active users resolved for DB-backed (stateful) authentication, keyed by email. Local to each
+// node and never written to Redis: a ban made elsewhere is still enforced by the revocation
+// check, and other changes age out with the TTL.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserPrincipalCache {
+    
+    static final String CACHE_NAME = "principals";
+    
+    private final UserRepository userRepository;
+    private final CacheConfig cacheConfig;
+    private final MeterRegistry meterRegistry;
+    
+    private Cache<String, User> cache;
+    
+    @PostConstruct
+    void init() {
+        CacheConfig.Spec spec = cacheConfig.specFor(CACHE_NAME);
+        cache = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaxSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+    
+    // Misses (unknown or inactive users) are not cached, so a new or unbanned user is found at once
+    public Optional<User> findActive(String email) {
+        return Optional.ofNullable(cache.get(email, key -> userRepository.findByEmailAndStatus(key, UserStatus.ACTIVE)
+                .map(UserPrincipalCache::detachedCopy)
+                .orElse(null)));
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserAccessChanged(UserAccessChangedEvent event) {
+        evict(event.userId());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.userId());
+    }
+    
+    // Scans the cache, which is bounded and only invalidated on rare admin or account changes
+    private void evict(UUID userId) {
+        cache.asMap().values().removeIf(user -> userId.equals(user.getId()));
+    }
+    
+    // Scalar fields only: no password hash kept in memory and no lazy associations to trip over
+    // once the loading session is gone
+    private static User detachedCopy(User user) {
+        User copy = User.builder()
+                .email(user.getEmail())
+                .displayName(user.getDisplayName())
+                .phone(user.getPhone())
+                .avatarUrl(user.getAvatarUrl())
+                .role(user.getRole())
+                .status(user.getStatus())
+                .emailVerified(user.getEmailVerified())
+                .build();
+        copy.setId(user.getId());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        return copy;
+    }
+}
@@ -1,16 +1,23 @@
 package nz.co.market.auth.service;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nz.co.market.auth.dto.AuthResponse;
 import nz.co.market.auth.dto.LoginRequest;
 import nz.co.market.auth.dto.RegisterRequest;
-import nz.co.market.auth.entity.EmailVerificationToken;
+import nz.co.market.auth.dto.SessionResponse;
 import nz.co.market.auth.entity.User;
 import nz.co.market.auth.entity.UserProfile;
 import nz.co.market.auth.enums.UserRole;
 import nz.co.market.auth.enums.UserStatus;
+import nz.co.market.auth.event.UserAccessChangedEvent;
+import nz.co.market.auth.event.UserChangedEvent;
 import nz.co.market.auth.repository.UserRepository;
+import nz.co.market.auth.security.UserPrincipalCache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -20,8 +27,11 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -29,12 +39,18 @@ import java.util.UUID;
 @Slf4j
 public class AuthService {
     
+    private static final int MAX_USER_AGENT = 256;
+    
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
     private final MessageSource messageSource;
+    private final RefreshTokenStore refreshTokenStore;
+    private final OneTimeTokenStore oneTimeTokenStore;
+    private final UserPrincipalCache userPrincipalCache;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -61,11 +77,13 @@ public class AuthService {
                 .build();
         user.setProfile(profile);
         user = userRepository.save(user);
+        // The verification token row references the user and is written with plain SQL
+        userRepository.flush();
         
         // Send email verification
         sendEmailVerification(user);
         
-        return createAuthResponse(user);
+        return startSession(user);
     }
     
     public AuthResponse login(LoginRequest request) {
@@ -81,87 +99,103 @@ public class AuthService {
             User user = userRepository.findByEmail(request.getEmail())
                     .orElseThrow(() -> new RuntimeException(messageSource.getMessage("auth.user.not.found", null, LocaleContextHolder.getLocale())));
             
-            return createAuthResponse(user);
+            return startSession(user);
             
         } catch (AuthenticationException e) {
             throw new RuntimeException(messageSource.getMessage("auth.invalid.credentials", null, LocaleContextHolder.getLocale()));
         }
     }
     
+    // Store failures (DataAccessException) propagate so the client can retry instead of signing out
     public AuthResponse refreshToken(String refreshToken) {
-        try {
-            String email = jwtService.extractUsername(refreshToken);
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException(messageSource.getMessage("auth.user.not.found", null, LocaleContextHolder.getLocale())));
-            
-            if (jwtService.validateToken(refreshToken, email)) {
-                return createAuthResponse(user);
-            } else {
-                throw new RuntimeException(messageSource.getMessage("auth.token.invalid", null, LocaleContextHolder.getLocale()));
+        Claims claims = parseRefreshToken(refreshToken).orElseThrow(this::invalidToken);
+        UUID userId = UUID.fromString(claims.get("userId", String.class));
+        String familyId = claims.get("fid", String.class);
+        // Banned users must not mint new access tokens
+        User user = userPrincipalCache.findActive(claims.getSubject()).orElseThrow(this::invalidToken);
+        
+        String tokenId = UUID.randomUUID().toString();
+        return switch (refreshTokenStore.rotate(userId, familyId, claims.getId(), tokenId)) {
+            case ROTATED -> createAuthResponse(user, familyId, tokenId);
+            case REUSED -> {
+                log.warn("Refresh token reused for user {}; session {} revoked", userId, familyId);
+                throw invalidToken();
             }
-        } catch (Exception e) {
-            throw new RuntimeException(messageSource.getMessage("auth.token.invalid", null, LocaleContextHolder.getLocale()));
-        }
+            case UNKNOWN -> throw invalidToken();
+        };
+    }
+    
+    // Ends the session the refresh token belongs to; invalid or unknown tokens are ignored
+    public void logout(String refreshToken) {
+        parseRefreshToken(refreshToken).ifPresent(claims -> refreshTokenStore.revoke(
+                UUID.fromString(claims.get("userId", String.class)), claims.get("fid", String.class)));
+    }
+    
+    // Ends every session and rejects access tokens issued until now (see TokenRevocationService)
+    public long logoutAll(User user) {
+        long revoked = refreshTokenStore.revokeAll(user.getId());
+        eventPublisher.publishEvent(new UserAccessChangedEvent(user.getId(), false));
+        log.info("Signed out {} session(s) of user {}", revoked, user.getId());
+        return revoked;
+    }
+    
+    public List<SessionResponse> listSessions(User user) {
+        return refreshTokenStore.list(user.getId());
+    }
+    
+    public boolean revokeSession(User user, String sessionId) {
+        return refreshTokenStore.revoke(user.getId(), sessionId);
     }
     
     @Transactional
     public void verifyEmail(String token) {
-        // TODO: Implement proper email verification with database lookup
-        // For now, we'll simulate successful verification
-        log.info("Email verification requested for token: {}", token);
-        
-        // In a real implementation, you would:
-        // 1. Look up the token in the database
-        // 2. Check if it's valid and not expired
-        // 3. Update the user's emailVerified status
-        // 4. Delete the verification token
-        
-        // For testing purposes, we'll just log success
-        log.info("Email verification successful for token: {}", token);
+        UUID userId = oneTimeTokenStore.consume(OneTimeTokenStore.Purpose.EMAIL_VERIFICATION, token)
+                .orElseThrow(() -> new RuntimeException(messageSource.getMessage("auth.email.verification.invalid", null, LocaleContextHolder.getLocale())));
+        userRepository.markEmailVerified(userId);
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
+        log.info("Email verified for user {}", userId);
     }
     
+    @Transactional
     public void forgotPassword(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException(messageSource.getMessage("auth.email.not.found", null, LocaleContextHolder.getLocale())));
         
-        // Generate password reset token
-        String token = UUID.randomUUID().toString();
-        
-        // TODO: Save token to database and send email
-        // In a real implementation, you would:
-        // 1. Create a PasswordResetToken entity
-        // 2. Save it to the database with expiration time
-        // 3. Send email with reset link
-        
-        log.info("Password reset token generated for user {}: {}", email, token);
+        String token = oneTimeTokenStore.issue(OneTimeTokenStore.Purpose.PASSWORD_RESET, user.getId());
+        emailService.sendPasswordReset(user.getEmail(), token);
+        log.info("Password reset requested for user {}", email);
     }
     
     @Transactional
     public void resetPassword(String token, String newPassword) {
-        // TODO: Implement proper password reset with token validation
-        // For now, we'll simulate successful password reset for testing
-        
-        log.info("Password reset requested for token: {}", token);
-        
-        // In a real implementation, you would:
-        // 1. Look up the token in the database
-        // 2. Check if it's valid and not expired
-        // 3. Find the associated user
-        // 4. Update the user's password
-        // 5. Delete the reset token
-        
-        // For testing purposes, we'll simulate success
-        // In a real scenario, you might want to validate the token format
-        if (token == null || token.trim().isEmpty()) {
-            throw new RuntimeException(messageSource.getMessage("auth.password.reset.invalid", null, LocaleContextHolder.getLocale()));
-        }
-        
-        log.info("Password reset successful for token: {}", token);
+        UUID userId = oneTimeTokenStore.consume(OneTimeTokenStore.Purpose.PASSWORD_RESET, token)
+                .orElseThrow(() -> new RuntimeException(messageSource.getMessage("auth.password.reset.invalid", null, LocaleContextHolder.getLocale())));
+        userRepository.updatePasswordHashById(userId, passwordEncoder.encode(newPassword));
+        
+        // Sign out everywhere: sessions opened with the old password shouldn't outlive it
+        refreshTokenStore.revokeAll(userId);
+        eventPublisher.publishEvent(new UserAccessChangedEvent(userId, false));
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
+        log.info("Password reset for user {}", userId);
+    }
+    
+    // Starts a new refresh token family for a sign-in, tagged with the client for the sessions list
+    private AuthResponse startSession(User user) {
+        String familyId = UUID.randomUUID().toString();
+        String tokenId = UUID.randomUUID().toString();
+        HttpServletRequest request = RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest()
+                : null;
+        String userAgent = request == null ? null : request.getHeader("User-Agent");
+        refreshTokenStore.create(user.getId(), familyId, tokenId,
+                userAgent == null ? null : userAgent.substring(0, Math.min(userAgent.length(), MAX_USER_AGENT)),
+                request == null ? null : request.getRemoteAddr());
+        return createAuthResponse(user, familyId, tokenId);
     }
     
-    private AuthResponse createAuthResponse(User user) {
+    private AuthResponse createAuthResponse(User user, String familyId, String tokenId) {
         String accessToken = jwtService.generateToken(user);
-        String refreshToken = jwtService.generateRefreshToken(user);
+        String refreshToken = jwtService.generateRefreshToken(user, familyId, tokenId);
         
         AuthResponse.UserDto userDto = AuthResponse.UserDto.builder()
                 .id(user.getId().toString())
@@ -180,15 +214,25 @@ public class AuthService {
                 .build();
     }
     
+    // Refresh tokens issued before token families existed carry no fid/jti and are rejected
+    private Optional<Claims> parseRefreshToken(String refreshToken) {
+        try {
+            Claims claims = jwtService.parseClaims(refreshToken);
+            return "refresh".equals(claims.get("type")) && claims.getId() != null && claims.get("fid") != null
+                    ? Optional.of(claims)
+                    : Optional.empty();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+    
+    private RuntimeException invalidToken() {
+        return new RuntimeException(messageSource.getMessage("auth.token.invalid", null, LocaleContextHolder.getLocale()));
+    }
+    
     private void sendEmailVerification(User user) {
-        String token = UUID.randomUUID().toString();
-        EmailVerificationToken verificationToken = EmailVerificationToken.builder()
-                .user(user)
-                .token(token)
-                .expiresAt(ZonedDateTime.now().plusHours(24))
-                .build();
-        
-        // TODO: Save token to database and send email
-        log.info("Email verification token generated for user {}: {}", user.getEmail(), token);
+        // Queued in the registration transaction; sent once it commits
+        String token = oneTimeTokenStore.issue(OneTimeTokenStore.Purpose.EMAIL_VERIFICATION, user.getId());
+        emailService.sendEmailVerification(user.getEmail(), token);
     }
 }
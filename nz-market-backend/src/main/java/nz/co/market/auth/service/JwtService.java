@@ -1,19 +1,25 @@
 package nz.co.market.auth.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nz.co.market.auth.config.JwtConfig;
 import nz.co.market.auth.entity.User;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.SecretKey;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -24,6 +30,42 @@ public class JwtService {
     
     private final JwtConfig jwtConfig;
     
+    // Decoded once at startup; the parser is immutable and shared by all request threads
+    private Map<String, SecretKey> keys;
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        Map<String, String> encoded = new LinkedHashMap<>(jwtConfig.getKeys());
+        if (encoded.isEmpty()) {
+            encoded.put(jwtConfig.getActiveKeyId(), jwtConfig.getSecret());
+        }
+        
+        Map<String, SecretKey> decoded = new HashMap<>();
+        encoded.forEach((kid, secret) -> decoded.put(kid, Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret))));
+        keys = Map.copyOf(decoded);
+        signingKey = keys.get(jwtConfig.getActiveKeyId());
+        if (signingKey == null) {
+            throw new IllegalStateException("No JWT key configured for active key id " + jwtConfig.getActiveKeyId());
+        }
+        
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        return keyFor(header.getKeyId());
+                    }
+                })
+                .build();
+        log.info("JWT keys loaded: {} (signing with {})", keys.keySet(), jwtConfig.getActiveKeyId());
+    }
+    
+    // Verifies signature and expiry exactly once; throws JwtException for any invalid token
+    public Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+    
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -33,21 +75,7 @@ public class JwtService {
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-    
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith((javax.crypto.SecretKey) getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return claimsResolver.apply(parseClaims(token));
     }
     
     public String generateToken(User user) {
@@ -58,30 +86,46 @@ public class JwtService {
         return createToken(claims, user.getEmail(), jwtConfig.getAccessTokenExpiration());
     }
     
-    public String generateRefreshToken(User user) {
+    // familyId and tokenId tie the token to its session in RefreshTokenStore
+    public String generateRefreshToken(User user, String familyId, String tokenId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId().toString());
         claims.put("type", "refresh");
+        claims.put("fid", familyId);
+        claims.put(Claims.ID, tokenId);
         return createToken(claims, user.getEmail(), jwtConfig.getRefreshTokenExpiration());
     }
     
     private String createToken(Map<String, Object> claims, String subject, Long expiration) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .header().keyId(jwtConfig.getActiveKeyId()).and()
+                .claims(claims)
+                .subject(subject)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
     
+    // Expiry is already enforced by the parser
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        try {
+            return username.equals(parseClaims(token).getSubject());
+        } catch (JwtException e) {
+            return false;
+        }
     }
     
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtConfig.getSecret());
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Tokens issued before key ids were introduced carry no kid and were signed with the active key
+    private Key keyFor(String kid) {
+        if (kid == null) {
+            return signingKey;
+        }
+        SecretKey key = keys.get(kid);
+        if (key == null) {
+            throw new JwtException("Unknown JWT key id: " + kid);
+        }
+        return key;
     }
 }
@@ -0,0 +1,111 @@
+package nz.co.market.auth.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.auth.config.AuthTokenConfig;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Single-use tokens for the links sent by email. Only a SHA-256 hash of each token is stored and
+// looked up through the unique index on token_hash; the token itself exists only in the email.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OneTimeTokenStore {
+    
+    @Getter
+    @RequiredArgsConstructor
+    public enum Purpose {
+        EMAIL_VERIFICATION("email_verification_tokens"),
+        PASSWORD_RESET("password_reset_tokens");
+        
+        private final String table;
+    }
+    
+    private static final int TOKEN_BYTES = 32;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final AuthTokenConfig authTokenConfig;
+    private final MeterRegistry meterRegistry;
+    
+    private final SecureRandom secureRandom = new SecureRandom();
+    
+    // Returns the token to send. Earlier unused tokens of the user for the same purpose stop working
+    @Transactional
+    public String issue(Purpose purpose, UUID userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        
+        jdbcTemplate.update("UPDATE " + purpose.getTable() + " SET consumed_at = now() WHERE user_id = ? AND consumed_at IS NULL",
+                userId);
+        jdbcTemplate.update("INSERT INTO " + purpose.getTable() + " (user_id, token_hash, expires_at) "
+                        + "VALUES (?, ?, now() + ? * INTERVAL '1 millisecond')",
+                userId, hash(token), ttl(purpose).toMillis());
+        return token;
+    }
+    
+    // Marks the token used and returns its user in one statement, so concurrent uses of the same
+    // token can't both succeed. Empty for unknown, expired or already used tokens.
+    public Optional<UUID> consume(Purpose purpose, String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        List<UUID> users = jdbcTemplate.queryForList("UPDATE " + purpose.getTable() + " SET consumed_at = now() "
+                        + "WHERE token_hash = ? AND consumed_at IS NULL AND expires_at > now() RETURNING user_id",
+                UUID.class, hash(token));
+        return users.stream().findFirst();
+    }
+    
+    // Each DELETE commits on its own and touches at most sweepBatchSize rows; rows locked by a
+    // concurrent consume (or another node's sweep) are skipped until the next run
+    @Scheduled(fixedDelayString = "${app.auth.tokens.sweep-interval:3600000}", initialDelay = 60000)
+    public void sweepExpired() {
+        int batchSize = authTokenConfig.getSweepBatchSize();
+        for (Purpose purpose : Purpose.values()) {
+            String table = purpose.getTable();
+            long deleted = 0;
+            int batch;
+            do {
+                batch = jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN ("
+                        + "SELECT id FROM " + table + " WHERE expires_at < now() LIMIT ? FOR UPDATE SKIP LOCKED)", batchSize);
+                deleted += batch;
+            } while (batch == batchSize);
+            
+            if (deleted > 0) {
+                meterRegistry.counter("auth.tokens.swept", "purpose", purpose.name().toLowerCase()).increment(deleted);
+                log.info("Deleted {} expired {}", deleted, table);
+            }
+        }
+    }
+    
+    private Duration ttl(Purpose purpose) {
+        return purpose == Purpose.EMAIL_VERIFICATION
+                ? authTokenConfig.getEmailVerificationTtl()
+                : authTokenConfig.getPasswordResetTtl();
+    }
+    
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
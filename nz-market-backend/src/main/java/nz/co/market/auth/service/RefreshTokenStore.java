@@ -0,0 +1,181 @@
+package nz.co.market.auth.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.auth.config.JwtConfig;
+import nz.co.market.auth.dto.SessionResponse;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Server-side state for refresh tokens. Each sign-in starts a family (one session) that records
+// the id of the only refresh token it will accept next; a refresh swaps that id for a new one in a
+// single script call. Presenting an older token of the family means it was copied, so the whole
+// family is deleted and both holders have to sign in again.
+//
+//   auth:rt:{userId}:<familyId>  hash  jti, created, used, ua, ip; expires with its newest token
+//   auth:rt:{userId}             zset  familyId -> expiry (epoch ms), for listing and sign-out everywhere
+//
+// The {userId} hash tag keeps a user's keys in one cluster slot, which the scripts rely on.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenStore {
+    
+    public enum Rotation {
+        ROTATED,
+        // An already rotated token was presented; the family has been revoked
+        REUSED,
+        // Unknown, expired, signed out or previously revoked family
+        UNKNOWN
+    }
+    
+    // KEYS: family, index. ARGV: jti, now, ttl, familyId, userAgent, ip, maxSessions, familyPrefix, expiresAt
+    private static final RedisScript<Long> CREATE = new DefaultRedisScript<>("""
+            redis.call('HSET', KEYS[1], 'jti', ARGV[1], 'created', ARGV[2], 'used', ARGV[2], 'ua', ARGV[5], 'ip', ARGV[6])
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[2])
+            redis.call('ZADD', KEYS[2], ARGV[9], ARGV[4])
+            local excess = redis.call('ZCARD', KEYS[2]) - tonumber(ARGV[7])
+            if excess > 0 then
+                for _, family in ipairs(redis.call('ZRANGE', KEYS[2], 0, excess - 1)) do
+                    redis.call('DEL', ARGV[8] .. family)
+                end
+                redis.call('ZREMRANGEBYRANK', KEYS[2], 0, excess - 1)
+            end
+            redis.call('PEXPIRE', KEYS[2], ARGV[3])
+            return math.max(excess, 0)
+            """, Long.class);
+    
+    // KEYS: family, index. ARGV: presented jti, new jti, now, ttl, expiresAt, familyId
+    private static final RedisScript<Long> ROTATE = new DefaultRedisScript<>("""
+            local current = redis.call('HGET', KEYS[1], 'jti')
+            if not current then
+                redis.call('ZREM', KEYS[2], ARGV[6])
+                return 0
+            end
+            if current ~= ARGV[1] then
+                redis.call('DEL', KEYS[1])
+                redis.call('ZREM', KEYS[2], ARGV[6])
+                return -1
+            end
+            redis.call('HSET', KEYS[1], 'jti', ARGV[2], 'used', ARGV[3])
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            redis.call('ZADD', KEYS[2], ARGV[5], ARGV[6])
+            redis.call('PEXPIRE', KEYS[2], ARGV[4])
+            return 1
+            """, Long.class);
+    
+    // KEYS: family, index. ARGV: familyId
+    private static final RedisScript<Long> REVOKE = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            return redis.call('ZREM', KEYS[2], ARGV[1])
+            """, Long.class);
+    
+    // KEYS: index. ARGV: familyPrefix
+    private static final RedisScript<Long> REVOKE_ALL = new DefaultRedisScript<>("""
+            local families = redis.call('ZRANGE', KEYS[1], 0, -1)
+            for _, family in ipairs(families) do
+                redis.call('DEL', ARGV[1] .. family)
+            end
+            redis.call('DEL', KEYS[1])
+            return #families
+            """, Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final JwtConfig jwtConfig;
+    
+    public void create(UUID userId, String familyId, String tokenId, String userAgent, String ipAddress) {
+        long now = System.currentTimeMillis();
+        long ttl = jwtConfig.getRefreshTokenExpiration();
+        Long evicted = redisTemplate.execute(CREATE, List.of(familyKey(userId, familyId), indexKey(userId)),
+                tokenId, String.valueOf(now), String.valueOf(ttl), familyId,
+                userAgent == null ? "" : userAgent, ipAddress == null ? "" : ipAddress,
+                String.valueOf(jwtConfig.getMaxSessionsPerUser()), familyPrefix(userId), String.valueOf(now + ttl));
+        if (evicted != null && evicted > 0) {
+            log.info("Signed out {} oldest session(s) of user {} over the limit of {}",
+                    evicted, userId, jwtConfig.getMaxSessionsPerUser());
+        }
+    }
+    
+    // One round trip: checks the presented token is the family's current one and replaces it
+    public Rotation rotate(UUID userId, String familyId, String presentedTokenId, String newTokenId) {
+        long now = System.currentTimeMillis();
+        long ttl = jwtConfig.getRefreshTokenExpiration();
+        Long result = redisTemplate.execute(ROTATE, List.of(familyKey(userId, familyId), indexKey(userId)),
+                presentedTokenId, newTokenId, String.valueOf(now), String.valueOf(ttl),
+                String.valueOf(now + ttl), familyId);
+        if (result == null || result == 0) {
+            return Rotation.UNKNOWN;
+        }
+        return result > 0 ? Rotation.ROTATED : Rotation.REUSED;
+    }
+    
+    // False when the session didn't exist (or belongs to someone else)
+    public boolean revoke(UUID userId, String familyId) {
+        Long removed = redisTemplate.execute(REVOKE, List.of(familyKey(userId, familyId), indexKey(userId)), familyId);
+        return removed != null && removed > 0;
+    }
+    
+    public long revokeAll(UUID userId) {
+        Long revoked = redisTemplate.execute(REVOKE_ALL, List.of(indexKey(userId)), familyPrefix(userId));
+        return revoked == null ? 0 : revoked;
+    }
+    
+    // Unexpired sessions, most recently used first
+    public List<SessionResponse> list(UUID userId) {
+        Set<ZSetOperations.TypedTuple<String>> families = redisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(indexKey(userId), System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        if (families == null || families.isEmpty()) {
+            return List.of();
+        }
+        
+        List<ZSetOperations.TypedTuple<String>> ordered = new ArrayList<>(families);
+        List<Object> rows = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection commands = (StringRedisConnection) connection;
+            ordered.forEach(family -> commands.hMGet(familyKey(userId, family.getValue()), "created", "used", "ua", "ip"));
+            return null;
+        });
+        
+        List<SessionResponse> sessions = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            @SuppressWarnings("unchecked")
+            List<String> row = (List<String>) rows.get(i);
+            // Expired between the two calls
+            if (row == null || row.get(0) == null) {
+                continue;
+            }
+            sessions.add(SessionResponse.builder()
+                    .id(ordered.get(i).getValue())
+                    .createdAt(Instant.ofEpochMilli(Long.parseLong(row.get(0))))
+                    .lastUsedAt(Instant.ofEpochMilli(Long.parseLong(row.get(1))))
+                    .expiresAt(Instant.ofEpochMilli(ordered.get(i).getScore().longValue()))
+                    .userAgent(row.get(2).isEmpty() ? null : row.get(2))
+                    .ipAddress(row.get(3).isEmpty() ? null : row.get(3))
+                    .build());
+        }
+        return sessions;
+    }
+    
+    private String indexKey(UUID userId) {
+        return jwtConfig.getRefreshKeyPrefix() + ":{" + userId + "}";
+    }
+    
+    private String familyPrefix(UUID userId) {
+        return indexKey(userId) + ":";
+    }
+    
+    private String familyKey(UUID userId, String familyId) {
+        return familyPrefix(userId) + familyId;
+    }
+}
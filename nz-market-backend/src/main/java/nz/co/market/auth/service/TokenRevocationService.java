@@ -0,0 +1,135 @@
+package nz.co.market.auth.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.auth.config.JwtConfig;
+import nz.co.market.auth.event.UserAccessChangedEvent;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory set of users whose tokens are no longer accepted, so stateless authentication
+// can honour bans without a database lookup per request. Banned users are read from the
+// database at startup and on every sync; changes reach the other nodes over Redis pub/sub.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService implements MessageListener {
+    
+    // Rejects every token, whenever it was issued
+    private static final long BANNED = Long.MAX_VALUE;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JwtConfig jwtConfig;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+    
+    // Lets a node ignore its own broadcasts
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<UUID, Revocation> revocations = new ConcurrentHashMap<>();
+    
+    // notBefore: tokens issued earlier are rejected (epoch ms, whole seconds like the iat claim)
+    private record Revocation(long notBefore, long changedAt) {
+    }
+    
+    @PostConstruct
+    void init() {
+        if (jwtConfig.getRevocationBroadcast()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(jwtConfig.getRevocationChannel()));
+        }
+        Gauge.builder("auth.revocations", revocations, Map::size).register(meterRegistry);
+    }
+    
+    public boolean isRevoked(UUID userId, Date issuedAt) {
+        Revocation revocation = revocations.get(userId);
+        return revocation != null && (issuedAt == null || issuedAt.getTime() < revocation.notBefore());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserAccessChanged(UserAccessChangedEvent event) {
+        apply(event.userId(), event.revoked());
+        if (!jwtConfig.getRevocationBroadcast()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(jwtConfig.getRevocationChannel(),
+                    nodeId + "|" + event.userId() + "|" + event.revoked());
+        } catch (RuntimeException e) {
+            // Other nodes pick the change up on their next sync
+            log.warn("Failed to broadcast access change for user {}: {}", event.userId(), e.getMessage());
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            apply(UUID.fromString(parts[1]), Boolean.parseBoolean(parts[2]));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed revocation message: {}", e.getMessage());
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-sync-interval:30000}")
+    public void sync() {
+        long startedAt = System.currentTimeMillis();
+        Set<UUID> banned;
+        try {
+            banned = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM users WHERE status = 'BANNED'", UUID.class));
+        } catch (RuntimeException e) {
+            log.error("Failed to sync banned users", e);
+            return;
+        }
+        
+        // Entries changed after the query ran are newer than its result and left alone
+        banned.forEach(userId -> revocations.compute(userId, (id, current) ->
+                current == null || (current.notBefore() != BANNED && current.changedAt() < startedAt)
+                        ? new Revocation(BANNED, startedAt)
+                        : current));
+        // An access token outlives a lifted ban by at most its own lifetime
+        long expired = startedAt - jwtConfig.getAccessTokenExpiration();
+        revocations.forEach((userId, revocation) -> {
+            if (revocation.changedAt() >= startedAt) {
+                return;
+            }
+            if (revocation.notBefore() == BANNED && !banned.contains(userId)) {
+                revocations.replace(userId, revocation, new Revocation(wholeSeconds(startedAt), startedAt));
+            } else if (revocation.notBefore() != BANNED && revocation.notBefore() < expired) {
+                revocations.remove(userId, revocation);
+            }
+        });
+    }
+    
+    private void apply(UUID userId, boolean revoked) {
+        long now = System.currentTimeMillis();
+        // Lifting a ban still invalidates the tokens issued before it; the user signs in again
+        revocations.put(userId, new Revocation(revoked ? BANNED : wholeSeconds(now), now));
+        log.info("Tokens for user {} {}", userId, revoked ? "revoked" : "restored");
+    }
+    
+    private static long wholeSeconds(long epochMillis) {
+        return epochMillis - epochMillis % 1000;
+    }
+}
@@ -0,0 +1,101 @@
+package nz.co.market.chat.broker;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-session registry of the relayed channels local sessions need: one per /topic subscription
+// and one per connected user for /user destinations. Runs last on the client inbound channel, so
+// only frames that passed authentication and the other interceptors are counted.
+@Component
+@RequiredArgsConstructor
+public class BrokerSubscriptionTracker implements ChannelInterceptor {
+    
+    // Key of a session's per-user channel among its subscription ids
+    private static final String USER_SUBSCRIPTION = "";
+    
+    private final RedisBrokerRelay redisBrokerRelay;
+    
+    // Session id -> subscription id -> relayed channel
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (!redisBrokerRelay.isEnabled() || type == null || sessionId == null) {
+            return;
+        }
+        
+        // Disconnects are synthesised for closed sockets too, so every session ends up here
+        if (type == SimpMessageType.DISCONNECT) {
+            Map<String, String> subscriptions = sessions.remove(sessionId);
+            if (subscriptions != null) {
+                subscriptions.values().forEach(redisBrokerRelay::release);
+            }
+            return;
+        }
+        if (!sent || ex != null) {
+            return;
+        }
+        
+        switch (type) {
+            case CONNECT -> {
+                Principal user = SimpMessageHeaderAccessor.getUser(headers);
+                if (user != null) {
+                    add(sessionId, USER_SUBSCRIPTION, redisBrokerRelay.userChannelKey(user.getName()));
+                }
+            }
+            case SUBSCRIBE -> {
+                String destination = SimpMessageHeaderAccessor.getDestination(headers);
+                String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+                // /user subscriptions are served by the session's per-user channel
+                if (destination != null && destination.startsWith("/topic/") && subscriptionId != null) {
+                    add(sessionId, subscriptionId, redisBrokerRelay.channelKey(destination));
+                }
+            }
+            case UNSUBSCRIBE -> {
+                String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+                if (subscriptionId != null) {
+                    remove(sessionId, subscriptionId);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+    
+    private void add(String sessionId, String subscriptionId, String channelKey) {
+        sessions.compute(sessionId, (id, subscriptions) -> {
+            Map<String, String> updated = subscriptions != null ? subscriptions : new HashMap<>();
+            String previous = updated.put(subscriptionId, channelKey);
+            redisBrokerRelay.retain(channelKey);
+            // A reused subscription id replaces the earlier subscription, as in the simple broker
+            if (previous != null) {
+                redisBrokerRelay.release(previous);
+            }
+            return updated;
+        });
+    }
+    
+    private void remove(String sessionId, String subscriptionId) {
+        sessions.computeIfPresent(sessionId, (id, subscriptions) -> {
+            String channelKey = subscriptions.remove(subscriptionId);
+            if (channelKey != null) {
+                redisBrokerRelay.release(channelKey);
+            }
+            return subscriptions;
+        });
+    }
+}
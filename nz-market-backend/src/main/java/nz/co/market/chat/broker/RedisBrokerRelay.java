@@ -0,0 +1,295 @@
+package nz.co.market.chat.broker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.chat.config.ChatBrokerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Relays broker frames between nodes over Redis pub/sub. Frames the application sends to /topic
+// or /user destinations are delivered by the local simple broker as before and also published on
+// a per-destination channel (per-user for /user); a node only subscribes to the channels its own
+// sessions need, so a frame reaches just the nodes with subscribers. Received frames go into the
+// local broker channel, where the simple broker and user destination resolution take over.
+// Delivery between nodes is at most once: frames are dropped, and counted, when Redis is down or
+// a relay queue is full.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RedisBrokerRelay implements ChannelInterceptor, MessageListener {
+    
+    // Marks frames received from another node so they aren't published again
+    static final String RELAYED_FROM_HEADER = "relayedFrom";
+    
+    private static final String TOPIC_PREFIX = "/topic/";
+    private static final String USER_PREFIX = "/user/";
+    
+    private final ChatBrokerConfig chatBrokerConfig;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectProvider<SimpMessagingTemplate> brokerMessagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    // Lets a node ignore its own publications
+    private final String nodeId = UUID.randomUUID().toString();
+    // Local sessions per relayed channel; the node wants a subscription to the channels listed here
+    private final Map<String, Integer> listeners = new ConcurrentHashMap<>();
+    // Channels the listener container has been asked to subscribe to; only used on the subscriber thread
+    private final Set<String> subscribed = new HashSet<>();
+    
+    // Single threads keep frames in publish order; the bounded queues are the backpressure
+    private ThreadPoolExecutor publisher;
+    private ThreadPoolExecutor deliverer;
+    // Redis SUBSCRIBE/UNSUBSCRIBE round trips, kept off the threads handling client frames
+    private ExecutorService subscriber;
+    private Timer latency;
+    
+    record Frame(long sentAt, String destination, String contentType,
+                 Map<String, List<String>> nativeHeaders, byte[] payload) {
+    }
+    
+    @PostConstruct
+    void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        publisher = singleThread("broker-relay-out");
+        deliverer = singleThread("broker-relay-in");
+        subscriber = Executors.newSingleThreadExecutor(daemon("broker-relay-subscriber"));
+        // Wall clock across nodes, so includes their clock skew
+        latency = Timer.builder("chat.broker.relay.latency")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("chat.broker.relay.queue", publisher, executor -> executor.getQueue().size())
+                .tag("direction", "out").register(meterRegistry);
+        Gauge.builder("chat.broker.relay.queue", deliverer, executor -> executor.getQueue().size())
+                .tag("direction", "in").register(meterRegistry);
+        Gauge.builder("chat.broker.relay.channels", listeners, Map::size).register(meterRegistry);
+        log.info("Relaying chat broker frames through Redis as node {}", nodeId);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (publisher != null) {
+            publisher.shutdown();
+            deliverer.shutdownNow();
+            subscriber.shutdownNow();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return chatBrokerConfig.getMode() == ChatBrokerConfig.Mode.REDIS;
+    }
+    
+    // Broker channel interceptor: queues application frames for the other nodes and lets the
+    // local broker deliver them unchanged
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (!isEnabled() || headers.containsKey(RELAYED_FROM_HEADER)
+                || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        // Replies to one session (@SendToUser with broadcast = false) stay on the node holding it
+        if (destination != null && destination.startsWith(USER_PREFIX)
+                && SimpMessageHeaderAccessor.getSessionId(headers) != null) {
+            return message;
+        }
+        String channelKey = channelKey(destination);
+        if (channelKey == null || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        
+        Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> nativeHeaders =
+                (Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+        Frame frame = new Frame(System.currentTimeMillis(), destination,
+                contentType != null ? contentType.toString() : null, nativeHeaders, payload);
+        submit(publisher, () -> publish(channelKey, frame), "out");
+        return message;
+    }
+    
+    @Override
+    public void onMessage(org.springframework.data.redis.connection.Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || body.startsWith(nodeId + "|")) {
+            return;
+        }
+        submit(deliverer, () -> deliver(body.substring(0, separator), body.substring(separator + 1)), "in");
+    }
+    
+    // The relayed channel a broker destination is published on, or null when it isn't relayed.
+    // User destinations share one channel per user: /user/{name}/queue/... -> /user/{name}
+    public String channelKey(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        if (destination.startsWith(TOPIC_PREFIX)) {
+            return destination;
+        }
+        if (destination.startsWith(USER_PREFIX)) {
+            int end = destination.indexOf('/', USER_PREFIX.length());
+            return end > USER_PREFIX.length() ? destination.substring(0, end) : null;
+        }
+        return null;
+    }
+    
+    public String userChannelKey(String userName) {
+        // Matches how SimpMessagingTemplate.convertAndSendToUser encodes the name
+        return USER_PREFIX + userName.replace("/", "%2F");
+    }
+    
+    // Called per local session using a channel; subscribes on the first
+    public void retain(String channelKey) {
+        if (listeners.merge(channelKey, 1, Integer::sum) == 1) {
+            resubscribe(channelKey);
+        }
+    }
+    
+    // Unsubscribes once the last local session using the channel is gone
+    public void release(String channelKey) {
+        if (listeners.computeIfPresent(channelKey, (key, count) -> count > 1 ? count - 1 : null) == null) {
+            resubscribe(channelKey);
+        }
+    }
+    
+    // Waits for the subscription changes queued so far
+    void awaitSubscriptions() throws Exception {
+        subscriber.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+    
+    // Brings the container in line with the current count rather than replaying each transition,
+    // so a channel released and retained again before the task runs stays subscribed
+    private void resubscribe(String channelKey) {
+        if (!isEnabled()) {
+            return;
+        }
+        subscriber.execute(() -> {
+            boolean wanted = listeners.containsKey(channelKey);
+            if (wanted == subscribed.contains(channelKey)) {
+                return;
+            }
+            ChannelTopic topic = new ChannelTopic(chatBrokerConfig.getChannelPrefix() + channelKey);
+            try {
+                if (wanted) {
+                    subscribed.add(channelKey);
+                    listenerContainer.addMessageListener(this, topic);
+                } else {
+                    subscribed.remove(channelKey);
+                    listenerContainer.removeMessageListener(this, topic);
+                }
+            } catch (RuntimeException e) {
+                // The container subscribes again when it reconnects
+                log.warn("Failed to update subscription to relayed channel {}: {}", channelKey, e.getMessage());
+            }
+        });
+    }
+    
+    private void publish(String channelKey, Frame frame) {
+        try {
+            redisTemplate.convertAndSend(chatBrokerConfig.getChannelPrefix() + channelKey,
+                    nodeId + "|" + objectMapper.writeValueAsString(frame));
+            meterRegistry.counter("chat.broker.relay.published").increment();
+        } catch (IOException | RuntimeException e) {
+            // Local subscribers already have the frame; other nodes miss it
+            dropped("out", "error");
+            log.warn("Failed to relay frame for {}: {}", frame.destination(), e.getMessage());
+        }
+    }
+    
+    private void deliver(String origin, String json) {
+        Frame frame;
+        try {
+            frame = objectMapper.readValue(json, Frame.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed relayed frame: {}", e.getMessage());
+            return;
+        }
+        
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(frame.destination());
+        if (frame.contentType() != null) {
+            accessor.setContentType(MimeType.valueOf(frame.contentType()));
+        }
+        if (frame.nativeHeaders() != null) {
+            frame.nativeHeaders().forEach((name, values) -> values.forEach(value -> accessor.addNativeHeader(name, value)));
+        }
+        accessor.setHeader(RELAYED_FROM_HEADER, origin);
+        try {
+            brokerMessagingTemplate.getObject().getMessageChannel()
+                    .send(MessageBuilder.createMessage(frame.payload(), accessor.getMessageHeaders()));
+            meterRegistry.counter("chat.broker.relay.received").increment();
+            latency.record(Math.max(0, System.currentTimeMillis() - frame.sentAt()), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            dropped("in", "error");
+            log.warn("Failed to deliver relayed frame for {}: {}", frame.destination(), e.getMessage());
+        }
+    }
+    
+    private void submit(ThreadPoolExecutor executor, Runnable task, String direction) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            dropped(direction, "queue-full");
+        }
+    }
+    
+    private void dropped(String direction, String reason) {
+        meterRegistry.counter("chat.broker.relay.dropped", "direction", direction, "reason", reason).increment();
+    }
+    
+    private ThreadPoolExecutor singleThread(String name) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(chatBrokerConfig.getRelayQueueCapacity()),
+                daemon(name),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
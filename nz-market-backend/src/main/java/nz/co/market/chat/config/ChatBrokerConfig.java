@@ -0,0 +1,36 @@
+package nz.co.market.chat.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.chat.broker")
+public class ChatBrokerConfig {
+    
+    public enum Mode {
+        // In-process broker: frames only reach sockets on the node that produced them
+        LOCAL,
+        // Local broker plus a Redis pub/sub relay of /topic and /user destinations between nodes
+        REDIS
+    }
+    
+    private Mode mode = Mode.LOCAL;
+    
+    // Each destination is relayed on its own channel, e.g. chat:broker:/topic/conversations/42
+    private String channelPrefix = "chat:broker:";
+    
+    // Frames waiting to be published or delivered; newer frames are dropped once a queue is full
+    private Integer relayQueueCapacity = 10000;
+    
+    // A session that can't take its frames within these limits is closed and has to reconnect
+    private Duration sendTimeLimit = Duration.ofSeconds(10);
+    private Integer sendBufferSizeLimit = 512 * 1024;
+    
+    // Threads and queued frames shared by all sessions; frames are dropped once the queue is full
+    private Integer outboundThreads = Runtime.getRuntime().availableProcessors() * 2;
+    private Integer outboundQueueCapacity = 50000;
+}
@@ -0,0 +1,30 @@
+package nz.co.market.chat.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.chat.ingest")
+public class ChatIngestConfig {
+    
+    public enum Mode {
+        // Each message is saved in its own transaction on the sending thread
+        DIRECT,
+        // Messages are queued and saved together by MessageIngestBuffer, one transaction per batch
+        BATCHED
+    }
+    
+    private Mode mode = Mode.DIRECT;
+    
+    // How long the first queued message waits for others to join its batch
+    private Duration flushInterval = Duration.ofMillis(5);
+    
+    private Integer maxBatchSize = 500;
+    
+    // Messages waiting to be saved; sends are rejected once it is full
+    private Integer queueCapacity = 10000;
+}
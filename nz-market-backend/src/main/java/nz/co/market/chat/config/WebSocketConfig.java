@@ -1,6 +1,11 @@
 package nz.co.market.chat.config;
 
 import lombok.RequiredArgsConstructor;
+import nz.co.market.chat.broker.BrokerSubscriptionTracker;
+import nz.co.market.chat.broker.OutboundFrameMonitor;
+import nz.co.market.chat.broker.RedisBrokerRelay;
+import nz.co.market.chat.security.ChatDestinationInterceptor;
+import nz.co.market.chat.security.StompRateLimitInterceptor;
 import nz.co.market.chat.security.WebSocketAuthInterceptor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
@@ -8,6 +13,7 @@ import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -15,13 +21,23 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
     private final WebSocketAuthInterceptor webSocketAuthInterceptor;
+    private final ChatDestinationInterceptor chatDestinationInterceptor;
+    private final StompRateLimitInterceptor stompRateLimitInterceptor;
+    private final BrokerSubscriptionTracker brokerSubscriptionTracker;
+    private final RedisBrokerRelay redisBrokerRelay;
+    private final OutboundFrameMonitor outboundFrameMonitor;
+    private final ChatBrokerConfig chatBrokerConfig;
     
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple message broker for destinations prefixed with "/topic"
-        config.enableSimpleBroker("/topic");
+        // Enable a simple message broker for topics and the per-session queues user destinations resolve to.
+        config.enableSimpleBroker("/topic", "/queue");
+        // In redis mode application frames for /topic and /user are also relayed to the other nodes
+        config.configureBrokerChannel().interceptors(redisBrokerRelay);
         // Set the application destination prefix
         config.setApplicationDestinationPrefixes("/app");
+        // Frames reach each session in the order they were sent
+        config.setPreservePublishOrder(true);
     }
     
     @Override
@@ -30,11 +46,33 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+        // Frames from one session are handled in order, so a SUBSCRIBE can't overtake its CONNECT
+        registry.setPreserveReceiveOrder(true);
     }
     
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        // Add authentication interceptor
-        registration.interceptors(webSocketAuthInterceptor);
+        // Authentication first, so destination checks and per-user limits see the user; the tracker only
+        // sees accepted frames
+        registration.interceptors(webSocketAuthInterceptor, chatDestinationInterceptor, stompRateLimitInterceptor,
+                brokerSubscriptionTracker);
+    }
+    
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Bounded, so a burst of fan-out drops frames instead of queueing without limit
+        registration.taskExecutor()
+                .corePoolSize(chatBrokerConfig.getOutboundThreads())
+                .maxPoolSize(chatBrokerConfig.getOutboundThreads())
+                .queueCapacity(chatBrokerConfig.getOutboundQueueCapacity());
+        registration.interceptors(outboundFrameMonitor);
+    }
+    
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Slow consumers are disconnected once they fall this far behind
+        registration.setSendTimeLimit((int) chatBrokerConfig.getSendTimeLimit().toMillis())
+                .setSendBufferSizeLimit(chatBrokerConfig.getSendBufferSizeLimit())
+                .addDecoratorFactory(outboundFrameMonitor);
     }
 }
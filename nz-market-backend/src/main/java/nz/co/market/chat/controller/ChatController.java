@@ -11,15 +11,22 @@ import nz.co.market.chat.dto.ChatMessageRequest;
 import nz.co.market.chat.dto.ChatMessageResponse;
 import nz.co.market.chat.dto.ConversationResponse;
 import nz.co.market.chat.dto.CreateConversationRequest;
+import nz.co.market.chat.dto.InboxEntryResponse;
 import nz.co.market.chat.service.ChatService;
+import nz.co.market.chat.service.MessageIngestBusyException;
+import nz.co.market.common.dto.CursorPage;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/chat")
@@ -52,6 +59,18 @@ public class ChatController {
         return ResponseEntity.ok(conversations);
     }
     
+    @GetMapping("/inbox")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Get user's inbox with last message and unread count, newest first")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<CursorPage<InboxEntryResponse>> getInbox(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal User user) {
+        CursorPage<InboxEntryResponse> inbox = chatService.getInbox(user.getId(), cursor, size);
+        return ResponseEntity.ok(inbox);
+    }
+    
     @GetMapping("/conversations/{conversationId}/messages")
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Get messages in a conversation")
@@ -65,17 +84,31 @@ public class ChatController {
         return ResponseEntity.ok(messages);
     }
     
+    @GetMapping("/conversations/{conversationId}/messages/cursor")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Get messages newest first before a message, or those sent after one to catch up")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<CursorPage<ChatMessageResponse>> scrollMessages(
+            @PathVariable UUID conversationId,
+            @RequestParam(required = false) UUID before,
+            @RequestParam(required = false) UUID after,
+            @RequestParam(defaultValue = "50") int size,
+            @AuthenticationPrincipal User user) {
+        CursorPage<ChatMessageResponse> messages = chatService.getMessageHistory(conversationId, user.getId(), before, after, size);
+        return ResponseEntity.ok(messages);
+    }
+    
     @PostMapping("/conversations/{conversationId}/messages")
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Send a message")
     @SecurityRequirement(name = "bearerAuth")
-    public ResponseEntity<ChatMessageResponse> sendMessage(
+    public CompletableFuture<ResponseEntity<ChatMessageResponse>> sendMessage(
             @PathVariable UUID conversationId,
             @Valid @RequestBody ChatMessageRequest request,
             @AuthenticationPrincipal User user) {
         log.info("Sending message in conversation: {} by user: {}", conversationId, user.getEmail());
-        ChatMessageResponse response = chatService.sendMessage(conversationId, request, user);
-        return ResponseEntity.ok(response);
+        // Completes once the message is saved, see ChatService.submitMessage
+        return chatService.submitMessage(conversationId, request, user).thenApply(ResponseEntity::ok);
     }
     
     @PutMapping("/conversations/{conversationId}/read")
@@ -89,4 +122,12 @@ public class ChatController {
         return ResponseEntity.ok().build();
     }
     
-}
\ No newline at end of file
+    // The message was not queued; shed before it is saved so the flusher can catch up
+    @ExceptionHandler(MessageIngestBusyException.class)
+    public ResponseEntity<Map<String, String>> handleIngestBusy(MessageIngestBusyException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", ex.getMessage()));
+    }
+    
+}
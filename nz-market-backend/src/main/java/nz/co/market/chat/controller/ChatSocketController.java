@@ -0,0 +1,90 @@
+package nz.co.market.chat.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.auth.entity.User;
+import nz.co.market.chat.dto.ChatMessageRequest;
+import nz.co.market.chat.dto.ChatMessageResponse;
+import nz.co.market.chat.dto.DeliveryReceiptRequest;
+import nz.co.market.chat.dto.TypingRequest;
+import nz.co.market.chat.service.ChatService;
+import nz.co.market.chat.service.MessageIngestBusyException;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.support.MethodArgumentNotValidException;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+// STOMP counterpart of ChatController. Clients send to /app/chat/...; results and events arrive
+// on /topic/conversations/{id} and /user/queue/chat, errors on /user/queue/errors.
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class ChatSocketController {
+    
+    private final ChatService chatService;
+    
+    // The saved message comes back to the sending session only, as its acknowledgement, once it
+    // is committed; everyone else gets it as a MESSAGE event
+    @MessageMapping("/chat/conversations/{conversationId}/messages")
+    @SendToUser(destinations = "/queue/chat.acks", broadcast = false)
+    public CompletableFuture<ChatMessageResponse> sendMessage(
+            @DestinationVariable UUID conversationId,
+            @Valid @Payload ChatMessageRequest request,
+            Principal principal) {
+        return chatService.submitMessage(conversationId, request, currentUser(principal));
+    }
+    
+    @MessageMapping("/chat/conversations/{conversationId}/typing")
+    public void typing(
+            @DestinationVariable UUID conversationId,
+            @Valid @Payload TypingRequest request,
+            Principal principal) {
+        chatService.typing(conversationId, currentUser(principal).getId(), request.getTyping());
+    }
+    
+    @MessageMapping("/chat/conversations/{conversationId}/delivered")
+    public void delivered(
+            @DestinationVariable UUID conversationId,
+            @Valid @Payload DeliveryReceiptRequest request,
+            Principal principal) {
+        chatService.markDelivered(conversationId, request.getMessageId(), currentUser(principal).getId());
+    }
+    
+    @MessageMapping("/chat/conversations/{conversationId}/read")
+    public void read(@DestinationVariable UUID conversationId, Principal principal) {
+        chatService.markConversationAsRead(conversationId, currentUser(principal).getId());
+    }
+    
+    // The send was not queued; the client may resend it after retryAfter seconds
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, String> handleIngestBusy(MessageIngestBusyException e) {
+        return Map.of("error", e.getMessage(), "retryAfter", String.valueOf(e.getRetryAfterSeconds()));
+    }
+    
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, String> handleException(Exception e) {
+        log.debug("Chat frame rejected: {}", e.getMessage());
+        // Binding errors would describe the handler method rather than the request
+        String error = e instanceof MethodArgumentNotValidException ? "Invalid request" : String.valueOf(e.getMessage());
+        return Map.of("error", error);
+    }
+    
+    private static User currentUser(Principal principal) {
+        if (principal instanceof Authentication authentication && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        throw new RuntimeException("Authentication required");
+    }
+}
@@ -0,0 +1,40 @@
+package nz.co.market.chat.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+// Frame body on /topic/conversations/{id} and /user/queue/chat
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChatEvent {
+    
+    public enum Type {
+        MESSAGE, DELIVERED, READ, TYPING
+    }
+    
+    private Type type;
+    private UUID conversationId;
+    
+    // The sender, recipient acknowledging delivery, reader or typist
+    private UUID userId;
+    
+    // MESSAGE
+    private ChatMessageResponse message;
+    
+    // DELIVERED: the newest message the recipient's client has received
+    private UUID messageId;
+    
+    // TYPING
+    private Boolean typing;
+    
+    private ZonedDateTime at;
+}
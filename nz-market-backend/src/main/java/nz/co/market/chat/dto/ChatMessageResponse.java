@@ -21,5 +21,6 @@ public class ChatMessageResponse {
     private ChatMessageRequest.MessageType messageType;
     private String imageUrl;
     private ZonedDateTime createdAt;
-    private ZonedDateTime readAt;
+    private ZonedDateTime readAt; // only on messages read before read watermarks
+    private boolean read;
 }
@@ -0,0 +1,13 @@
+package nz.co.market.chat.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class DeliveryReceiptRequest {
+    
+    @NotNull(message = "Message ID is required")
+    private UUID messageId;
+}
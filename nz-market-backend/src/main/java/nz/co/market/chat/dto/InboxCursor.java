@@ -0,0 +1,47 @@
+package nz.co.market.chat.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+// Opaque keyset position: last_message_at and id of the last conversation on the previous page
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class InboxCursor {
+    
+    private static final String SEPARATOR = "|";
+    
+    private final Instant lastMessageAt;
+    private final UUID id;
+    
+    public static InboxCursor after(InboxEntryResponse entry) {
+        return new InboxCursor(entry.getLastMessageAt().toInstant(), entry.getConversationId());
+    }
+    
+    public static InboxCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR, -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Unexpected cursor format");
+            }
+            return new InboxCursor(Instant.parse(parts[0]), UUID.fromString(parts[1]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+    
+    public String encode() {
+        String raw = lastMessageAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,34 @@
+package nz.co.market.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxEntryResponse {
+    
+    private UUID conversationId;
+    private UUID itemId;
+    private String itemTitle;
+    private String itemThumbnailUrl;
+    
+    // The signed-in user's side of the conversation, BUYER or SELLER
+    private String role;
+    private UUID otherUserId;
+    private String otherUserDisplayName;
+    private String otherUserAvatarUrl;
+    
+    private UUID lastMessageId;
+    private UUID lastMessageSenderId;
+    private ChatMessageRequest.MessageType lastMessageType;
+    private String lastMessagePreview;
+    private ZonedDateTime lastMessageAt;
+    private int unreadCount;
+}
@@ -0,0 +1,11 @@
+package nz.co.market.chat.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class TypingRequest {
+    
+    @NotNull(message = "Typing state is required")
+    private Boolean typing;
+}
@@ -36,6 +36,7 @@ public class ChatMessage extends BaseEntity {
     @Column(name = "image_url")
     private String imageUrl;
     
+    // No longer written; read state comes from the conversation's read watermarks
     @Column(name = "read_at")
     private ZonedDateTime readAt;
     
@@ -33,9 +33,38 @@ public class Conversation extends BaseEntity {
     @Column(name = "seller_id", nullable = false)
     private java.util.UUID sellerId;
     
-    @Column(name = "last_message_at")
+    @Column(name = "last_message_at", nullable = false)
     private ZonedDateTime lastMessageAt;
     
+    // Inbox columns, written by ConversationRepository.recordMessage and markReadBy
+    @Column(name = "last_message_id")
+    private java.util.UUID lastMessageId;
+    
+    @Column(name = "last_message_sender_id")
+    private java.util.UUID lastMessageSenderId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_message_type")
+    private ChatMessage.MessageType lastMessageType;
+    
+    @Column(name = "last_message_preview", length = 140)
+    private String lastMessagePreview;
+    
+    @Column(name = "buyer_unread_count", nullable = false)
+    @Builder.Default
+    private Integer buyerUnreadCount = 0;
+    
+    @Column(name = "seller_unread_count", nullable = false)
+    @Builder.Default
+    private Integer sellerUnreadCount = 0;
+    
+    // Read watermarks: created_at of the newest message each side has read, null before the first read
+    @Column(name = "buyer_last_read_at")
+    private ZonedDateTime buyerLastReadAt;
+    
+    @Column(name = "seller_last_read_at")
+    private ZonedDateTime sellerLastReadAt;
+    
     @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
     private List<ChatMessage> messages = new ArrayList<>();
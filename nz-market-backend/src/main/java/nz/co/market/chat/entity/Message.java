@@ -1,45 +0,0 @@
-package nz.co.market.chat.entity;
-
-import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
-import nz.co.market.auth.entity.User;
-import nz.co.market.common.entity.BaseEntity;
-
-import java.time.ZonedDateTime;
-
-@Entity
-@Table(name = "messages")
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
-@EqualsAndHashCode(callSuper = true)
-public class Message extends BaseEntity {
-    
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "conversation_id", nullable = false)
-    private Conversation conversation;
-    
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "sender_id", nullable = false)
-    private User sender;
-    
-    @Enumerated(EnumType.STRING)
-    @Column(nullable = false)
-    @Builder.Default
-    private MessageType type = MessageType.TEXT;
-    
-    @Column(columnDefinition = "TEXT", nullable = false)
-    private String content;
-    
-    @Column(name = "read_at")
-    private ZonedDateTime readAt;
-    
-    public enum MessageType {
-        TEXT, IMAGE
-    }
-}
@@ -0,0 +1,9 @@
+package nz.co.market.chat.event;
+
+import nz.co.market.chat.dto.ChatMessageResponse;
+
+import java.util.UUID;
+
+// Published when a chat message is saved; pushed to WebSocket clients once the transaction commits
+public record ChatMessageSentEvent(ChatMessageResponse message, UUID recipientId) {
+}
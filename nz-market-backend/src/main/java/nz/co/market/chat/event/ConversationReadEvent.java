@@ -0,0 +1,8 @@
+package nz.co.market.chat.event;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+// Published when a participant reads a conversation; becomes a read receipt for the other one
+public record ConversationReadEvent(UUID conversationId, UUID readerId, UUID otherId, ZonedDateTime readAt) {
+}
@@ -18,5 +18,7 @@ public interface ChatMapper {
     ConversationResponse toConversationResponse(Conversation conversation);
     
     @Mapping(target = "conversationId", source = "conversation.id")
+    // Depends on the conversation's read watermarks, see ChatService
+    @Mapping(target = "read", ignore = true)
     ChatMessageResponse toChatMessageResponse(ChatMessage message);
 }
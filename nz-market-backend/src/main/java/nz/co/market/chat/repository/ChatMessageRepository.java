@@ -16,7 +16,43 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID>
     
     Page<ChatMessage> findByConversationIdOrderByCreatedAtAsc(UUID conversationId, Pageable pageable);
     
-    @Query("SELECT m FROM ChatMessage m WHERE m.conversation.id = :conversationId AND m.senderId != :userId AND m.readAt IS NULL")
-    List<ChatMessage> findUnreadMessagesInConversation(@Param("conversationId") UUID conversationId, 
-                                                       @Param("userId") UUID userId);
+    // Keyset history on idx_chat_messages_conversation_created; a cursor is the id of a message
+    // in the conversation, whose position is looked up through the primary key. The statements
+    // are shared with the benchmarks module.
+    String LATEST_SQL = """
+            SELECT * FROM chat_messages
+            WHERE conversation_id = :conversationId
+            ORDER BY created_at DESC, id DESC
+            LIMIT :limit
+            """;
+    
+    String BEFORE_SQL = """
+            SELECT * FROM chat_messages
+            WHERE conversation_id = :conversationId
+              AND (created_at, id) < (SELECT created_at, id FROM chat_messages WHERE id = :before AND conversation_id = :conversationId)
+            ORDER BY created_at DESC, id DESC
+            LIMIT :limit
+            """;
+    
+    // Oldest first, for clients catching up after a reconnect
+    String AFTER_SQL = """
+            SELECT * FROM chat_messages
+            WHERE conversation_id = :conversationId
+              AND (created_at, id) > (SELECT created_at, id FROM chat_messages WHERE id = :after AND conversation_id = :conversationId)
+            ORDER BY created_at, id
+            LIMIT :limit
+            """;
+    
+    @Query(value = LATEST_SQL, nativeQuery = true)
+    List<ChatMessage> findLatest(@Param("conversationId") UUID conversationId, @Param("limit") int limit);
+    
+    @Query(value = BEFORE_SQL, nativeQuery = true)
+    List<ChatMessage> findBefore(@Param("conversationId") UUID conversationId,
+                                 @Param("before") UUID before,
+                                 @Param("limit") int limit);
+    
+    @Query(value = AFTER_SQL, nativeQuery = true)
+    List<ChatMessage> findAfter(@Param("conversationId") UUID conversationId,
+                                @Param("after") UUID after,
+                                @Param("limit") int limit);
 }
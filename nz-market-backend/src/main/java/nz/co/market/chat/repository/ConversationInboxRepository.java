@@ -0,0 +1,13 @@
+package nz.co.market.chat.repository;
+
+import nz.co.market.chat.dto.InboxCursor;
+import nz.co.market.chat.dto.InboxEntryResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ConversationInboxRepository {
+    
+    // Newest conversation first, both sides of the user's conversations merged; after may be null
+    List<InboxEntryResponse> findInbox(UUID userId, InboxCursor after, int limit);
+}
@@ -0,0 +1,103 @@
+package nz.co.market.chat.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import nz.co.market.chat.dto.ChatMessageRequest;
+import nz.co.market.chat.dto.InboxCursor;
+import nz.co.market.chat.dto.InboxEntryResponse;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public class ConversationInboxRepositoryImpl implements ConversationInboxRepository {
+    
+    // Each side is a backward range scan of its (user, last_message_at, id) index that stops after
+    // limit rows; only the merged page is joined to its item, thumbnail and other participant
+    private static final String SIDE = """
+            (SELECT c.id, c.item_id, c.last_message_at, c.last_message_id, c.last_message_sender_id,
+                    c.last_message_type, c.last_message_preview,
+                    '%1$s' AS role, c.%2$s_unread_count AS unread_count, c.%3$s_id AS other_id
+             FROM conversations c
+             WHERE c.%2$s_id = :userId %4$s
+             ORDER BY c.last_message_at DESC, c.id DESC
+             LIMIT :limit)
+            """;
+    private static final String AFTER = "AND (c.last_message_at, c.id) < (:afterAt, :afterId)";
+    
+    private static final String INBOX = """
+            SELECT p.id, p.item_id, i.title AS item_title, img.url AS item_thumbnail_url,
+                   p.role, p.other_id, u.display_name AS other_display_name, u.avatar_url AS other_avatar_url,
+                   p.last_message_id, p.last_message_sender_id, p.last_message_type, p.last_message_preview,
+                   p.last_message_at, p.unread_count
+            FROM (%s UNION ALL %s) p
+            JOIN items i ON i.id = p.item_id
+            JOIN users u ON u.id = p.other_id
+            LEFT JOIN LATERAL (
+                SELECT url FROM item_images WHERE item_id = p.item_id ORDER BY sort_order LIMIT 1
+            ) img ON true
+            ORDER BY p.last_message_at DESC, p.id DESC
+            LIMIT :limit
+            """;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<InboxEntryResponse> findInbox(UUID userId, InboxCursor after, int limit) {
+        String condition = after != null ? AFTER : "";
+        String sql = INBOX.formatted(
+                SIDE.formatted("BUYER", "buyer", "seller", condition),
+                SIDE.formatted("SELLER", "seller", "buyer", condition));
+        
+        Query query = entityManager.createNativeQuery(sql, Tuple.class)
+                .setParameter("userId", userId)
+                .setParameter("limit", limit);
+        if (after != null) {
+            query.setParameter("afterAt", OffsetDateTime.ofInstant(after.getLastMessageAt(), ZoneOffset.UTC));
+            query.setParameter("afterId", after.getId());
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<Tuple> rows = query.getResultList();
+        return rows.stream().map(ConversationInboxRepositoryImpl::toEntry).toList();
+    }
+    
+    private static InboxEntryResponse toEntry(Tuple row) {
+        String type = row.get("last_message_type", String.class);
+        return InboxEntryResponse.builder()
+                .conversationId(row.get("id", UUID.class))
+                .itemId(row.get("item_id", UUID.class))
+                .itemTitle(row.get("item_title", String.class))
+                .itemThumbnailUrl(row.get("item_thumbnail_url", String.class))
+                .role(row.get("role", String.class))
+                .otherUserId(row.get("other_id", UUID.class))
+                .otherUserDisplayName(row.get("other_display_name", String.class))
+                .otherUserAvatarUrl(row.get("other_avatar_url", String.class))
+                .lastMessageId(row.get("last_message_id", UUID.class))
+                .lastMessageSenderId(row.get("last_message_sender_id", UUID.class))
+                .lastMessageType(type != null ? ChatMessageRequest.MessageType.valueOf(type) : null)
+                .lastMessagePreview(row.get("last_message_preview", String.class))
+                .lastMessageAt(toZoned(row.get("last_message_at")))
+                .unreadCount(((Number) row.get("unread_count")).intValue())
+                .build();
+    }
+    
+    private static ZonedDateTime toZoned(Object value) {
+        Instant instant;
+        if (value instanceof Timestamp timestamp) {
+            instant = timestamp.toInstant();
+        } else if (value instanceof OffsetDateTime offsetDateTime) {
+            instant = offsetDateTime.toInstant();
+        } else {
+            instant = (Instant) value;
+        }
+        return instant.atZone(ZoneOffset.UTC);
+    }
+}
@@ -2,23 +2,64 @@ package nz.co.market.chat.repository;
 
 import nz.co.market.chat.entity.Conversation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ConversationRepository extends JpaRepository<Conversation, UUID> {
+public interface ConversationRepository extends JpaRepository<Conversation, UUID>, ConversationInboxRepository {
     
     @Query("SELECT c FROM Conversation c WHERE c.item.id = :itemId AND c.buyerId = :buyerId AND c.sellerId = :sellerId")
     Optional<Conversation> findByItemIdAndBuyerIdAndSellerId(@Param("itemId") UUID itemId, 
                                                              @Param("buyerId") UUID buyerId, 
                                                              @Param("sellerId") UUID sellerId);
     
-    @Query("SELECT c FROM Conversation c WHERE (c.buyerId = :userId OR c.sellerId = :userId) ORDER BY c.lastMessageAt DESC")
+    @Query("SELECT new nz.co.market.chat.repository.ReadWatermarks(c.buyerLastReadAt, c.sellerLastReadAt) FROM Conversation c WHERE c.id = :id")
+    Optional<ReadWatermarks> findReadWatermarks(@Param("id") UUID id);
+    
+    @Query("SELECT c FROM Conversation c JOIN FETCH c.item WHERE (c.buyerId = :userId OR c.sellerId = :userId) ORDER BY c.lastMessageAt DESC")
     List<Conversation> findByBuyerIdOrSellerIdOrderByLastMessageAtDesc(@Param("userId") UUID userId, 
                                                                        @Param("userId") UUID userId2);
-}
\ No newline at end of file
+    
+    // Increments in the database rather than on the loaded entity, so concurrent sends all count.
+    // A message committing after a newer one doesn't replace it as the last message.
+    String RECORD_MESSAGE_SQL = """
+            UPDATE conversations
+            SET last_message_id = CASE WHEN :sentAt >= last_message_at THEN :messageId ELSE last_message_id END,
+                last_message_sender_id = CASE WHEN :sentAt >= last_message_at THEN :senderId ELSE last_message_sender_id END,
+                last_message_type = CASE WHEN :sentAt >= last_message_at THEN :messageType ELSE last_message_type END,
+                last_message_preview = CASE WHEN :sentAt >= last_message_at THEN :preview ELSE last_message_preview END,
+                last_message_at = GREATEST(last_message_at, :sentAt),
+                buyer_unread_count = buyer_unread_count + CASE WHEN buyer_id = :senderId THEN 0 ELSE 1 END,
+                seller_unread_count = seller_unread_count + CASE WHEN seller_id = :senderId THEN 0 ELSE 1 END,
+                updated_at = now()
+            WHERE id = :conversationId
+            """;
+    
+    @Modifying
+    @Query(value = RECORD_MESSAGE_SQL, nativeQuery = true)
+    int recordMessage(@Param("conversationId") UUID conversationId,
+                      @Param("messageId") UUID messageId,
+                      @Param("senderId") UUID senderId,
+                      @Param("messageType") String messageType,
+                      @Param("preview") String preview,
+                      @Param("sentAt") ZonedDateTime sentAt);
+    
+    // Moves the reader's watermark to the last message: one row, however many messages were unread
+    @Modifying
+    @Query(value = """
+            UPDATE conversations
+            SET buyer_last_read_at = CASE WHEN buyer_id = :userId THEN last_message_at ELSE buyer_last_read_at END,
+                buyer_unread_count = CASE WHEN buyer_id = :userId THEN 0 ELSE buyer_unread_count END,
+                seller_last_read_at = CASE WHEN seller_id = :userId THEN last_message_at ELSE seller_last_read_at END,
+                seller_unread_count = CASE WHEN seller_id = :userId THEN 0 ELSE seller_unread_count END
+            WHERE id = :conversationId
+            """, nativeQuery = true)
+    int markReadBy(@Param("conversationId") UUID conversationId, @Param("userId") UUID userId);
+}
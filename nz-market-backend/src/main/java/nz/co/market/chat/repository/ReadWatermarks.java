@@ -0,0 +1,7 @@
+package nz.co.market.chat.repository;
+
+import java.time.ZonedDateTime;
+
+// A conversation's two read watermarks; null until that participant has read anything
+public record ReadWatermarks(ZonedDateTime buyerLastReadAt, ZonedDateTime sellerLastReadAt) {
+}
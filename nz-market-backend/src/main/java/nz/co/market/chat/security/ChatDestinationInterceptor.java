@@ -0,0 +1,79 @@
+package nz.co.market.chat.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.auth.entity.User;
+import nz.co.market.chat.service.ChatNotifier;
+import nz.co.market.chat.service.ConversationParticipants;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+// Guards which destinations clients may use. Frames to the broker only come from the server,
+// so clients SEND to /app only. Subscriptions need a signed-in user and are limited to
+// /user/queue/... (never a per-session queue by its resolved name) and the topics of the user's
+// own conversations.
+// Rejected frames are dropped, like frames over the rate limit.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatDestinationInterceptor implements ChannelInterceptor {
+    
+    private final ConversationParticipants conversationParticipants;
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        String destination = accessor.getDestination();
+        
+        if (StompCommand.SEND.equals(accessor.getCommand())
+                && (destination == null || !destination.startsWith("/app/"))) {
+            return deny(destination);
+        }
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand()) && !maySubscribe(accessor, destination)) {
+            return deny(destination);
+        }
+        return message;
+    }
+    
+    // Signed-in users only, to their own queues or to exactly /topic/conversations/{id} of a
+    // conversation they are in. Patterns are refused outright: the broker (and the Redis relay)
+    // would match them against everyone's conversations.
+    private boolean maySubscribe(StompHeaderAccessor accessor, String destination) {
+        if (destination == null || destination.contains("*") || destination.contains("?") || destination.contains("{")
+                || !(accessor.getUser() instanceof Authentication authentication)
+                || !(authentication.getPrincipal() instanceof User user)) {
+            return false;
+        }
+        if (destination.startsWith("/user/queue/")) {
+            return true;
+        }
+        if (!destination.startsWith(ChatNotifier.CONVERSATION_TOPIC)) {
+            return false;
+        }
+        UUID conversationId;
+        try {
+            conversationId = UUID.fromString(destination.substring(ChatNotifier.CONVERSATION_TOPIC.length()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // UUID.fromString also accepts unpadded forms; only the canonical one is the topic the server sends to
+        return destination.equals(ChatNotifier.CONVERSATION_TOPIC + conversationId)
+                && conversationParticipants.findFor(conversationId, user.getId()).isPresent();
+    }
+    
+    private static Message<?> deny(String destination) {
+        log.debug("Not authorized for destination {}, dropping frame", destination);
+        return null;
+    }
+}
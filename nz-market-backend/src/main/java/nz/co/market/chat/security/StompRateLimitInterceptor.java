@@ -0,0 +1,41 @@
+package nz.co.market.chat.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.common.config.RateLimitConfig;
+import nz.co.market.common.ratelimit.RateLimiter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+// Applies the rate limit policies that name a destination to inbound STOMP SEND frames.
+// Frames over the limit are dropped; an ERROR frame would make most clients disconnect.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompRateLimitInterceptor implements ChannelInterceptor {
+    
+    private final RateLimiter rateLimiter;
+    private final RateLimitConfig rateLimitConfig;
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (!rateLimitConfig.getEnabled() || accessor == null || !StompCommand.SEND.equals(accessor.getCommand())
+                || accessor.getDestination() == null) {
+            return message;
+        }
+        
+        for (String policy : rateLimiter.policiesForDestination(accessor.getDestination())) {
+            if (!rateLimiter.tryConsume(policy, accessor.getUser(), "session:" + accessor.getSessionId()).isConsumed()) {
+                log.debug("Rate limit {} exceeded, dropping SEND to {}", policy, accessor.getDestination());
+                return null;
+            }
+        }
+        return message;
+    }
+}
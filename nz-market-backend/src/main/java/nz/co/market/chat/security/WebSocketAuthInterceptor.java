@@ -2,17 +2,14 @@ package nz.co.market.chat.security;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import nz.co.market.auth.service.JwtService;
+import nz.co.market.auth.security.JwtAuthenticator;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -20,8 +17,7 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class WebSocketAuthInterceptor implements ChannelInterceptor {
     
-    private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final JwtAuthenticator jwtAuthenticator;
     
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -34,17 +30,12 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
                 String token = authHeader.substring(7);
                 
                 try {
-                    String username = jwtService.extractUsername(token);
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    
-                    if (jwtService.validateToken(token, userDetails.getUsername())) {
-                        UsernamePasswordAuthenticationToken authentication = 
-                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    jwtAuthenticator.authenticate(token).ifPresent(authentication -> {
                         SecurityContextHolder.getContext().setAuthentication(authentication);
                         accessor.setUser(authentication);
                         
-                        log.info("WebSocket authentication successful for user: {}", username);
-                    }
+                        log.info("WebSocket authentication successful for user: {}", authentication.getName());
+                    });
                 } catch (Exception e) {
                     log.error("WebSocket authentication failed: {}", e.getMessage());
                 }
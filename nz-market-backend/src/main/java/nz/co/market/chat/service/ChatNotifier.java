@@ -0,0 +1,90 @@
+package nz.co.market.chat.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.chat.dto.ChatEvent;
+import nz.co.market.chat.dto.ChatMessageResponse;
+import nz.co.market.chat.event.ChatMessageSentEvent;
+import nz.co.market.chat.event.ConversationReadEvent;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+// Pushes chat events to WebSocket clients. An open conversation listens on its topic; a user's
+// inbox and notifications listen on their own queue, which also reaches conversations they
+// haven't opened. Messages and read receipts go out only after their transaction commits.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatNotifier {
+    
+    public static final String CONVERSATION_TOPIC = "/topic/conversations/";
+    public static final String USER_QUEUE = "/queue/chat";
+    
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ConversationParticipants conversationParticipants;
+    private final MeterRegistry meterRegistry;
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMessageSent(ChatMessageSentEvent event) {
+        ChatMessageResponse message = event.message();
+        publish(event.recipientId(), ChatEvent.builder()
+                .type(ChatEvent.Type.MESSAGE)
+                .conversationId(message.getConversationId())
+                .userId(message.getSenderId())
+                .message(message)
+                .at(message.getCreatedAt())
+                .build());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onConversationRead(ConversationReadEvent event) {
+        publish(event.otherId(), ChatEvent.builder()
+                .type(ChatEvent.Type.READ)
+                .conversationId(event.conversationId())
+                .userId(event.readerId())
+                .at(event.readAt())
+                .build());
+    }
+    
+    // Tells the sender their message reached the recipient's client; not stored
+    public void delivered(UUID conversationId, UUID recipientId, UUID senderId, UUID messageId) {
+        publish(senderId, ChatEvent.builder()
+                .type(ChatEvent.Type.DELIVERED)
+                .conversationId(conversationId)
+                .userId(recipientId)
+                .messageId(messageId)
+                .at(ZonedDateTime.now())
+                .build());
+    }
+    
+    // Only for whoever has the conversation open
+    public void typing(UUID conversationId, UUID userId, boolean typing) {
+        publish(null, ChatEvent.builder()
+                .type(ChatEvent.Type.TYPING)
+                .conversationId(conversationId)
+                .userId(userId)
+                .typing(typing)
+                .at(ZonedDateTime.now())
+                .build());
+    }
+    
+    private void publish(UUID queueUserId, ChatEvent event) {
+        try {
+            messagingTemplate.convertAndSend(CONVERSATION_TOPIC + event.getConversationId(), event);
+            if (queueUserId != null) {
+                conversationParticipants.find(event.getConversationId()).ifPresent(participants ->
+                        messagingTemplate.convertAndSendToUser(participants.emailOf(queueUserId), USER_QUEUE, event));
+            }
+            meterRegistry.counter("chat.events.published", "type", event.getType().name().toLowerCase()).increment();
+        } catch (RuntimeException e) {
+            // Clients catch up from the REST history when they reconnect
+            log.warn("Failed to push {} for conversation {}: {}", event.getType(), event.getConversationId(), e.getMessage());
+        }
+    }
+}
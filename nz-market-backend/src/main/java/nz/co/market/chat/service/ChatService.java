@@ -3,25 +3,35 @@ package nz.co.market.chat.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nz.co.market.auth.entity.User;
+import nz.co.market.chat.config.ChatIngestConfig;
 import nz.co.market.chat.dto.ChatMessageRequest;
 import nz.co.market.chat.dto.ChatMessageResponse;
 import nz.co.market.chat.dto.ConversationResponse;
 import nz.co.market.chat.dto.CreateConversationRequest;
+import nz.co.market.chat.dto.InboxCursor;
+import nz.co.market.chat.dto.InboxEntryResponse;
 import nz.co.market.chat.entity.Conversation;
 import nz.co.market.chat.entity.ChatMessage;
+import nz.co.market.chat.event.ChatMessageSentEvent;
+import nz.co.market.chat.event.ConversationReadEvent;
 import nz.co.market.chat.repository.ConversationRepository;
+import nz.co.market.chat.repository.ReadWatermarks;
 import nz.co.market.chat.repository.ChatMessageRepository;
+import nz.co.market.common.dto.CursorPage;
 import nz.co.market.items.entity.Item;
 import nz.co.market.items.repository.ItemRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,9 +39,19 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ChatService {
     
+    private static final int MAX_INBOX_PAGE_SIZE = 100;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final int PREVIEW_LENGTH = 140;
+    
     private final ConversationRepository conversationRepository;
     private final ChatMessageRepository chatMessageRepository;
     private final ItemRepository itemRepository;
+    private final ConversationParticipants conversationParticipants;
+    private final ChatNotifier chatNotifier;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MessageIngestBuffer messageIngestBuffer;
+    private final ChatIngestConfig chatIngestConfig;
+    private final TransactionTemplate transactionTemplate;
     
     @Transactional
     public ConversationResponse createConversation(CreateConversationRequest request, User user) {
@@ -53,7 +73,6 @@ public class ChatService {
                 .item(item)
                 .buyerId(request.getBuyerId())
                 .sellerId(request.getSellerId())
-                .createdAt(ZonedDateTime.now())
                 .lastMessageAt(ZonedDateTime.now())
                 .build();
         
@@ -69,6 +88,24 @@ public class ChatService {
                 .collect(Collectors.toList());
     }
     
+    // Keyset-paged inbox; each page is one query, with no count
+    @Transactional(readOnly = true)
+    public CursorPage<InboxEntryResponse> getInbox(UUID userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_INBOX_PAGE_SIZE));
+        
+        // One extra row tells us whether there is a next page
+        List<InboxEntryResponse> entries = conversationRepository.findInbox(userId, InboxCursor.decode(cursor), pageSize + 1);
+        boolean hasNext = entries.size() > pageSize;
+        List<InboxEntryResponse> content = hasNext ? entries.subList(0, pageSize) : entries;
+        
+        return CursorPage.<InboxEntryResponse>builder()
+                .content(content)
+                .nextCursor(hasNext ? InboxCursor.after(content.get(content.size() - 1)).encode() : null)
+                .hasNext(hasNext)
+                .size(content.size())
+                .build();
+    }
+    
     @Transactional(readOnly = true)
     public Page<ChatMessageResponse> getConversationMessages(UUID conversationId, UUID userId, int page, int size) {
         // Verify user has access to this conversation
@@ -82,7 +119,61 @@ public class ChatService {
         Pageable pageable = PageRequest.of(page, size);
         Page<ChatMessage> messages = chatMessageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId, pageable);
         
-        return messages.map(this::mapToMessageResponse);
+        return messages.map(message -> mapToMessageResponse(message, conversation));
+    }
+    
+    // Newest first, or with before the page older than that message. With after, the messages sent
+    // since that one, oldest first. Either way nextCursor continues in the same direction.
+    @Transactional(readOnly = true)
+    public CursorPage<ChatMessageResponse> getMessageHistory(UUID conversationId, UUID userId, UUID before, UUID after, int size) {
+        if (before != null && after != null) {
+            throw new RuntimeException("Only one of before and after can be given");
+        }
+        ConversationParticipants.Participants participants = conversationParticipants.findFor(conversationId, userId)
+                .orElseThrow(() -> new RuntimeException("Not authorized to view this conversation"));
+        ReadWatermarks watermarks = conversationRepository.findReadWatermarks(conversationId)
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        List<ChatMessage> messages;
+        if (after != null) {
+            messages = chatMessageRepository.findAfter(conversationId, after, pageSize + 1);
+        } else if (before != null) {
+            messages = chatMessageRepository.findBefore(conversationId, before, pageSize + 1);
+        } else {
+            messages = chatMessageRepository.findLatest(conversationId, pageSize + 1);
+        }
+        boolean hasNext = messages.size() > pageSize;
+        List<ChatMessage> content = hasNext ? messages.subList(0, pageSize) : messages;
+        
+        return CursorPage.<ChatMessage>builder()
+                .content(content)
+                .nextCursor(hasNext ? content.get(content.size() - 1).getId().toString() : null)
+                .hasNext(hasNext)
+                .size(content.size())
+                .build()
+                .map(message -> mapToMessageResponse(message, participants.buyerId(), watermarks));
+    }
+    
+    // Entry point for sends. In BATCHED mode the message is saved by MessageIngestBuffer with
+    // others and the future completes after that batch commits; the caller's thread isn't held.
+    public CompletableFuture<ChatMessageResponse> submitMessage(UUID conversationId, ChatMessageRequest request, User user) {
+        if (chatIngestConfig.getMode() == ChatIngestConfig.Mode.DIRECT) {
+            return CompletableFuture.completedFuture(transactionTemplate.execute(status -> sendMessage(conversationId, request, user)));
+        }
+        
+        ConversationParticipants.Participants participants = conversationParticipants.findFor(conversationId, user.getId())
+                .orElseThrow(() -> new RuntimeException("Not authorized to send messages in this conversation"));
+        ChatMessageResponse message = ChatMessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .senderId(user.getId())
+                .content(request.getContent())
+                .messageType(request.getMessageType())
+                .imageUrl(request.getImageUrl())
+                .createdAt(ZonedDateTime.now())
+                .build();
+        return messageIngestBuffer.submit(message, participants.buyerId(), participants.sellerId());
     }
     
     @Transactional
@@ -100,35 +191,50 @@ public class ChatService {
                 .conversation(conversation)
                 .senderId(user.getId())
                 .content(request.getContent())
-                .messageType(request.getMessageType())
+                .messageType(ChatMessage.MessageType.valueOf(request.getMessageType().name()))
                 .imageUrl(request.getImageUrl())
-                .createdAt(ZonedDateTime.now())
                 .build();
         
-        message = chatMessageRepository.save(message);
+        message = chatMessageRepository.saveAndFlush(message);
         
-        // Update conversation last message time
-        conversation.setLastMessageAt(ZonedDateTime.now());
-        conversationRepository.save(conversation);
+        // Last message and the recipient's unread count, for the inbox
+        conversationRepository.recordMessage(conversationId, message.getId(), user.getId(),
+                message.getMessageType().name(), preview(message.getContent()), message.getCreatedAt());
         
-        return mapToMessageResponse(message);
+        ChatMessageResponse response = mapToMessageResponse(message);
+        UUID recipientId = user.getId().equals(conversation.getBuyerId()) ? conversation.getSellerId() : conversation.getBuyerId();
+        eventPublisher.publishEvent(new ChatMessageSentEvent(response, recipientId));
+        return response;
     }
     
     @Transactional
     public void markConversationAsRead(UUID conversationId, UUID userId) {
-        Conversation conversation = conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        ConversationParticipants.Participants participants = conversationParticipants.findFor(conversationId, userId)
+                .orElseThrow(() -> new RuntimeException("Not authorized to modify this conversation"));
         
-        if (!conversation.getBuyerId().equals(userId) && !conversation.getSellerId().equals(userId)) {
-            throw new RuntimeException("Not authorized to modify this conversation");
-        }
+        conversationRepository.markReadBy(conversationId, userId);
         
-        // Mark messages as read
-        List<ChatMessage> unreadMessages = chatMessageRepository.findUnreadMessagesInConversation(conversationId, userId);
-        for (ChatMessage message : unreadMessages) {
-            message.setReadAt(ZonedDateTime.now());
+        eventPublisher.publishEvent(new ConversationReadEvent(conversationId, userId, participants.otherThan(userId), ZonedDateTime.now()));
+    }
+    
+    // Typing indicators and delivery receipts are relayed, not stored
+    public void typing(UUID conversationId, UUID userId, boolean typing) {
+        conversationParticipants.findFor(conversationId, userId)
+                .orElseThrow(() -> new RuntimeException("Not authorized to modify this conversation"));
+        chatNotifier.typing(conversationId, userId, typing);
+    }
+    
+    public void markDelivered(UUID conversationId, UUID messageId, UUID userId) {
+        ConversationParticipants.Participants participants = conversationParticipants.findFor(conversationId, userId)
+                .orElseThrow(() -> new RuntimeException("Not authorized to modify this conversation"));
+        chatNotifier.delivered(conversationId, userId, participants.otherThan(userId), messageId);
+    }
+    
+    private static String preview(String content) {
+        if (content == null) {
+            return null;
         }
-        chatMessageRepository.saveAll(unreadMessages);
+        return content.length() > PREVIEW_LENGTH ? content.substring(0, PREVIEW_LENGTH) : content;
     }
     
     private ConversationResponse mapToConversationResponse(Conversation conversation) {
@@ -143,16 +249,32 @@ public class ChatService {
                 .build();
     }
     
-    private ChatMessageResponse mapToMessageResponse(ChatMessage message) {
+    // Read once the recipient's watermark has reached the message
+    private ChatMessageResponse mapToMessageResponse(ChatMessage message, Conversation conversation) {
+        return mapToMessageResponse(message, conversation.getBuyerId(),
+                new ReadWatermarks(conversation.getBuyerLastReadAt(), conversation.getSellerLastReadAt()));
+    }
+    
+    private ChatMessageResponse mapToMessageResponse(ChatMessage message, UUID buyerId, ReadWatermarks watermarks) {
+        ChatMessageResponse response = mapToMessageResponse(message);
+        // The recipient's watermark
+        ZonedDateTime lastReadAt = message.getSenderId().equals(buyerId) ? watermarks.sellerLastReadAt() : watermarks.buyerLastReadAt();
+        response.setRead(response.isRead() || lastReadAt != null && !message.getCreatedAt().isAfter(lastReadAt));
+        return response;
+    }
+    
+    // Package-private for the benchmarks module
+    ChatMessageResponse mapToMessageResponse(ChatMessage message) {
         return ChatMessageResponse.builder()
                 .id(message.getId())
                 .conversationId(message.getConversation().getId())
                 .senderId(message.getSenderId())
                 .content(message.getContent())
-                .messageType(message.getMessageType())
+                .messageType(ChatMessageRequest.MessageType.valueOf(message.getMessageType().name()))
                 .imageUrl(message.getImageUrl())
                 .createdAt(message.getCreatedAt())
                 .readAt(message.getReadAt())
+                .read(message.getReadAt() != null)
                 .build();
     }
 }
\ No newline at end of file
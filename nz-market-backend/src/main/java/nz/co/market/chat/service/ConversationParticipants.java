@@ -0,0 +1,91 @@
+package nz.co.market.chat.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import nz.co.market.auth.event.UserChangedEvent;
+import nz.co.market.common.config.CacheConfig;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Who takes part in a conversation, for the checks on every STOMP subscribe, typing and receipt
+// frame and for addressing per-user destinations, which are keyed by email. Participants never
+// change, so entries are local and only dropped when a participant's account changes.
+@Component
+@RequiredArgsConstructor
+public class ConversationParticipants {
+    
+    static final String CACHE_NAME = "conversation-participants";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheConfig cacheConfig;
+    private final MeterRegistry meterRegistry;
+    
+    private Cache<UUID, Participants> cache;
+    
+    public record Participants(UUID buyerId, String buyerEmail, UUID sellerId, String sellerEmail) {
+        
+        public boolean includes(UUID userId) {
+            return buyerId.equals(userId) || sellerId.equals(userId);
+        }
+        
+        public UUID otherThan(UUID userId) {
+            return buyerId.equals(userId) ? sellerId : buyerId;
+        }
+        
+        public String emailOf(UUID userId) {
+            return buyerId.equals(userId) ? buyerEmail : sellerEmail;
+        }
+    }
+    
+    @PostConstruct
+    void init() {
+        CacheConfig.Spec spec = cacheConfig.specFor(CACHE_NAME);
+        cache = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaxSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+    
+    // Unknown conversations are not cached
+    public Optional<Participants> find(UUID conversationId) {
+        return Optional.ofNullable(cache.get(conversationId, this::load));
+    }
+    
+    // The conversation when the user takes part in it, otherwise empty
+    public Optional<Participants> findFor(UUID conversationId, UUID userId) {
+        return find(conversationId).filter(participants -> participants.includes(userId));
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        cache.asMap().values().removeIf(participants -> participants.includes(event.userId()));
+    }
+    
+    private Participants load(UUID conversationId) {
+        List<Participants> rows = jdbcTemplate.query("""
+                SELECT c.buyer_id, b.email AS buyer_email, c.seller_id, s.email AS seller_email
+                FROM conversations c
+                JOIN users b ON b.id = c.buyer_id
+                JOIN users s ON s.id = c.seller_id
+                WHERE c.id = ?
+                """, (rs, rowNum) -> new Participants(
+                rs.getObject("buyer_id", UUID.class),
+                rs.getString("buyer_email"),
+                rs.getObject("seller_id", UUID.class),
+                rs.getString("seller_email")
+        ), conversationId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
@@ -0,0 +1,257 @@
+package nz.co.market.chat.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.chat.config.ChatIngestConfig;
+import nz.co.market.chat.dto.ChatMessageResponse;
+import nz.co.market.chat.event.ChatMessageSentEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Group commit for chat sends in BATCHED mode. Accepted messages wait here for up to the flush
+// interval; each batch is then saved in one transaction: one multi-row INSERT and one UPDATE per
+// conversation, however many messages it got. A sender's future completes, and recipients are
+// notified, only once the batch has committed.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MessageIngestBuffer {
+    
+    // One statement for the whole batch: each column travels as an array
+    private static final String INSERT_SQL = """
+            INSERT INTO chat_messages (id, conversation_id, sender_id, content, message_type, image_url, created_at, updated_at)
+            SELECT id, conversation_id, sender_id, content, message_type, image_url, created_at, created_at
+            FROM unnest(?::uuid[], ?::uuid[], ?::uuid[], ?::text[], ?::varchar[], ?::varchar[], ?::timestamptz[])
+                AS m(id, conversation_id, sender_id, content, message_type, image_url, created_at)
+            """;
+    
+    // ConversationRepository.recordMessage for several messages of one conversation at once
+    private static final String RECORD_SQL = """
+            UPDATE conversations
+            SET last_message_id = CASE WHEN :sentAt >= last_message_at THEN :messageId ELSE last_message_id END,
+                last_message_sender_id = CASE WHEN :sentAt >= last_message_at THEN :senderId ELSE last_message_sender_id END,
+                last_message_type = CASE WHEN :sentAt >= last_message_at THEN :messageType ELSE last_message_type END,
+                last_message_preview = CASE WHEN :sentAt >= last_message_at THEN :preview ELSE last_message_preview END,
+                last_message_at = GREATEST(last_message_at, :sentAt),
+                buyer_unread_count = buyer_unread_count + :buyerUnread,
+                seller_unread_count = seller_unread_count + :sellerUnread,
+                updated_at = now()
+            WHERE id = :conversationId
+            """;
+    
+    private static final int PREVIEW_LENGTH = 140;
+    
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatIngestConfig chatIngestConfig;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private BlockingQueue<Pending> queue;
+    private Thread flusher;
+    private volatile boolean running;
+    private DistributionSummary batchSizes;
+    private Timer flushTimer;
+    
+    public record Pending(ChatMessageResponse message, UUID buyerId, UUID sellerId,
+                          CompletableFuture<ChatMessageResponse> future) {
+        
+        UUID recipientId() {
+            return message.getSenderId().equals(buyerId) ? sellerId : buyerId;
+        }
+    }
+    
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(chatIngestConfig.getQueueCapacity());
+        batchSizes = meterRegistry.summary("chat.ingest.batch.size");
+        flushTimer = meterRegistry.timer("chat.ingest.flush");
+        Gauge.builder("chat.ingest.queue", queue, BlockingQueue::size).register(meterRegistry);
+        
+        if (chatIngestConfig.getMode() == ChatIngestConfig.Mode.BATCHED) {
+            running = true;
+            flusher = new Thread(this::run, "chat-ingest");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+    
+    // Saves what is already queued before the connection pool goes away
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+    
+    // Completes with the message once it is saved. Throws MessageIngestBusyException without queueing
+    // when the buffer is full.
+    public CompletableFuture<ChatMessageResponse> submit(ChatMessageResponse message, UUID buyerId, UUID sellerId) {
+        if (!running) {
+            throw new IllegalStateException("Message ingest buffer is not running");
+        }
+        CompletableFuture<ChatMessageResponse> future = new CompletableFuture<>();
+        if (!queue.offer(new Pending(message, buyerId, sellerId, future))) {
+            meterRegistry.counter("chat.ingest.rejected").increment();
+            throw new MessageIngestBusyException(retryAfterSeconds());
+        }
+        return future;
+    }
+    
+    // Roughly how long the flusher needs to work through a full queue, going by its flushes so far
+    private long retryAfterSeconds() {
+        int maxBatchSize = chatIngestConfig.getMaxBatchSize();
+        long batches = (queue.size() + maxBatchSize - 1) / maxBatchSize;
+        double batchMillis = flushTimer.mean(TimeUnit.MILLISECONDS) + chatIngestConfig.getFlushInterval().toMillis();
+        return Math.max(1, (long) Math.ceil(batches * batchMillis / 1000));
+    }
+    
+    private void run() {
+        int maxBatchSize = chatIngestConfig.getMaxBatchSize();
+        long intervalNanos = chatIngestConfig.getFlushInterval().toNanos();
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // The window opens with the first message and closes early once the batch is full
+                long deadline = System.nanoTime() + intervalNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Chat ingest flusher failed", e);
+            } finally {
+                // No-op for messages flush completed; the rest fail rather than wait forever
+                batch.forEach(pending -> pending.future().completeExceptionally(new RuntimeException("Message could not be sent")));
+                batch.clear();
+            }
+        }
+    }
+    
+    // When a message's data is rejected each message is retried alone, so one bad message doesn't
+    // fail its whole batch. Other failures, such as the database being unreachable, would fail every
+    // retry the same way, so the batch fails at once.
+    void flush(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        try {
+            flushTimer.record(() -> save(batch));
+            batch.forEach(pending -> pending.future().complete(pending.message()));
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                fail(batch, e);
+                return;
+            }
+            log.warn("Chat message batch of {} was rejected, saving its messages one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> flush(List.of(pending)));
+        } catch (RuntimeException e) {
+            fail(batch, e);
+        }
+    }
+    
+    private void fail(List<Pending> batch, RuntimeException e) {
+        meterRegistry.counter("chat.ingest.failed").increment(batch.size());
+        if (batch.size() == 1) {
+            log.warn("Chat message {} could not be saved: {}", batch.get(0).message().getId(), e.getMessage());
+        } else {
+            log.error("Chat message batch of {} could not be saved: {}", batch.size(), e.getMessage());
+        }
+        batch.forEach(pending -> pending.future().completeExceptionally(new RuntimeException("Message could not be sent")));
+    }
+    
+    private void save(List<Pending> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            insert(batch);
+            recordLastMessages(batch);
+            // Delivered by ChatNotifier after this transaction commits
+            batch.forEach(pending -> eventPublisher.publishEvent(new ChatMessageSentEvent(pending.message(), pending.recipientId())));
+        });
+    }
+    
+    private void insert(List<Pending> batch) {
+        jdbcTemplate.getJdbcOperations().update(INSERT_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, textArray(connection, batch, message -> message.getId().toString()));
+            ps.setArray(2, textArray(connection, batch, message -> message.getConversationId().toString()));
+            ps.setArray(3, textArray(connection, batch, message -> message.getSenderId().toString()));
+            ps.setArray(4, textArray(connection, batch, ChatMessageResponse::getContent));
+            ps.setArray(5, textArray(connection, batch, message -> message.getMessageType().name()));
+            ps.setArray(6, textArray(connection, batch, ChatMessageResponse::getImageUrl));
+            ps.setArray(7, textArray(connection, batch, message -> message.getCreatedAt().toInstant().toString()));
+        });
+    }
+    
+    private static java.sql.Array textArray(Connection connection, List<Pending> batch,
+                                            Function<ChatMessageResponse, String> column) throws SQLException {
+        return connection.createArrayOf("text", batch.stream().map(pending -> column.apply(pending.message())).toArray());
+    }
+    
+    // Conversations are updated in id order, so concurrent flushes on other nodes lock rows in the same order
+    private void recordLastMessages(List<Pending> batch) {
+        Map<UUID, List<Pending>> byConversation = new TreeMap<>();
+        batch.forEach(pending -> byConversation.computeIfAbsent(pending.message().getConversationId(), id -> new ArrayList<>()).add(pending));
+        
+        SqlParameterSource[] updates = byConversation.entrySet().stream().map(entry -> {
+            List<Pending> messages = entry.getValue();
+            ChatMessageResponse last = messages.stream()
+                    .map(Pending::message)
+                    .max(Comparator.comparing(ChatMessageResponse::getCreatedAt).thenComparing(ChatMessageResponse::getId))
+                    .orElseThrow();
+            long buyerUnread = messages.stream().filter(pending -> !pending.message().getSenderId().equals(pending.buyerId())).count();
+            String content = last.getContent();
+            return new MapSqlParameterSource()
+                    .addValue("conversationId", entry.getKey())
+                    .addValue("messageId", last.getId())
+                    .addValue("senderId", last.getSenderId())
+                    .addValue("messageType", last.getMessageType().name())
+                    .addValue("preview", content != null && content.length() > PREVIEW_LENGTH ? content.substring(0, PREVIEW_LENGTH) : content)
+                    .addValue("sentAt", last.getCreatedAt().withZoneSameInstant(ZoneOffset.UTC).toOffsetDateTime())
+                    .addValue("buyerUnread", buyerUnread)
+                    .addValue("sellerUnread", messages.size() - buyerUnread);
+        }).toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(RECORD_SQL, updates);
+    }
+}
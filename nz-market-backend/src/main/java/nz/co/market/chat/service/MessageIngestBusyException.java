@@ -0,0 +1,15 @@
+package nz.co.market.chat.service;
+
+import lombok.Getter;
+
+// The message ingest queue is full; answered with 429 and a Retry-After header, or an error frame over STOMP
+@Getter
+public class MessageIngestBusyException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public MessageIngestBusyException(long retryAfterSeconds) {
+        super("Too many messages are being sent, please try again");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
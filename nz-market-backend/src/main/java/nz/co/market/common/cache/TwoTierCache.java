@@ -0,0 +1,98 @@
+package nz.co.market.common.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Read-through cache: per-node Caffeine (L1) in front of Redis (L2) in front of the loader.
+// Created through TwoTierCacheManager, which owns the Redis side and cross-node invalidation.
+public class TwoTierCache<V> {
+    
+    private static final String ALL_KEYS = "*";
+    
+    private final String name;
+    private final AsyncCache<String, V> local;
+    private final JavaType type;
+    private final Duration redisTtl;
+    private final TwoTierCacheManager manager;
+    
+    TwoTierCache(String name, AsyncCache<String, V> local, JavaType type, Duration redisTtl,
+                 TwoTierCacheManager manager) {
+        this.name = name;
+        this.local = local;
+        this.type = type;
+        this.redisTtl = redisTtl;
+        this.manager = manager;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public V get(Object key, Supplier<V> loader) {
+        String cacheKey = String.valueOf(key);
+        // getIfPresent records the hit/miss statistics; putIfAbsent below does not
+        CompletableFuture<V> cached = local.getIfPresent(cacheKey);
+        if (cached == null) {
+            CompletableFuture<V> loading = new CompletableFuture<>();
+            cached = local.asMap().putIfAbsent(cacheKey, loading);
+            if (cached == null) {
+                // This caller owns the load; concurrent callers for the same key wait on its future
+                // instead of each going to Redis and Postgres (single-flight per key and node)
+                return load(cacheKey, loading, loader);
+            }
+        }
+        
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    public void evict(Object key) {
+        String cacheKey = String.valueOf(key);
+        local.synchronous().invalidate(cacheKey);
+        manager.deleteRemote(name, cacheKey);
+        manager.publishInvalidation(name, cacheKey);
+    }
+    
+    public void clear() {
+        local.synchronous().invalidateAll();
+        manager.clearRemote(name);
+        manager.publishInvalidation(name, ALL_KEYS);
+    }
+    
+    // Applies an invalidation broadcast by another node; Redis was already handled there
+    void invalidateLocal(String cacheKey) {
+        if (ALL_KEYS.equals(cacheKey)) {
+            local.synchronous().invalidateAll();
+        } else {
+            local.synchronous().invalidate(cacheKey);
+        }
+    }
+    
+    private V load(String cacheKey, CompletableFuture<V> loading, Supplier<V> loader) {
+        try {
+            V value = manager.readRemote(name, cacheKey, type);
+            if (value == null) {
+                value = loader.get();
+                manager.writeRemote(name, cacheKey, value, redisTtl);
+            }
+            // A null result completes the future and Caffeine drops the entry, so nothing is cached
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            local.asMap().remove(cacheKey, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package nz.co.market.common.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.common.config.CacheConfig;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TwoTierCacheManager implements MessageListener {
+    
+    private static final int SCAN_BATCH = 200;
+    
+    private final CacheConfig cacheConfig;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    // Lets a node ignore its own invalidation broadcasts
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache<?>> caches = new ConcurrentHashMap<>();
+    
+    private ObjectMapper cacheMapper;
+    private volatile long redisSkipUntil;
+    
+    @PostConstruct
+    void init() {
+        // Keep the stored offsets instead of normalising to UTC so L1 and L2 hits serialise identically
+        cacheMapper = objectMapper.copy().disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE);
+        
+        if (cacheConfig.getRedisEnabled()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(cacheConfig.getInvalidationChannel()));
+        }
+    }
+    
+    public <V> TwoTierCache<V> create(String name, TypeReference<V> valueType) {
+        CacheConfig.Spec spec = cacheConfig.specFor(name);
+        AsyncCache<String, V> local = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaxSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name);
+        
+        JavaType type = cacheMapper.getTypeFactory().constructType(valueType);
+        TwoTierCache<V> cache = new TwoTierCache<>(name, local, type, spec.getRedisTtl(), this);
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("Cache already exists: " + name);
+        }
+        return cache;
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        
+        TwoTierCache<?> cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(parts[2]);
+            meterRegistry.counter("cache.invalidations", "cache", parts[1], "source", "remote").increment();
+        }
+    }
+    
+    <V> V readRemote(String cacheName, String key, JavaType type) {
+        if (!redisAvailable()) {
+            return null;
+        }
+        
+        try {
+            String json = redisTemplate.opsForValue().get(redisKey(cacheName, key));
+            redisCounter(cacheName, json == null ? "miss" : "hit").increment();
+            return json == null ? null : cacheMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            // Usually a DTO changed shape between deployments; treat as a miss and overwrite
+            log.warn("Discarding unreadable {} entry {}: {}", cacheName, key, e.getMessage());
+            redisCounter(cacheName, "error").increment();
+            return null;
+        } catch (RuntimeException e) {
+            redisFailed(cacheName, e);
+            return null;
+        }
+    }
+    
+    void writeRemote(String cacheName, String key, Object value, Duration ttl) {
+        if (value == null || !redisAvailable()) {
+            return;
+        }
+        
+        try {
+            redisTemplate.opsForValue().set(redisKey(cacheName, key), cacheMapper.writeValueAsString(value), ttl);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialise {} entry {}: {}", cacheName, key, e.getMessage());
+        } catch (RuntimeException e) {
+            redisFailed(cacheName, e);
+        }
+    }
+    
+    void deleteRemote(String cacheName, String key) {
+        meterRegistry.counter("cache.invalidations", "cache", cacheName, "source", "local").increment();
+        if (!redisAvailable()) {
+            return;
+        }
+        
+        try {
+            redisTemplate.delete(redisKey(cacheName, key));
+        } catch (RuntimeException e) {
+            redisFailed(cacheName, e);
+        }
+    }
+    
+    void clearRemote(String cacheName) {
+        meterRegistry.counter("cache.invalidations", "cache", cacheName, "source", "local").increment();
+        if (!redisAvailable()) {
+            return;
+        }
+        
+        // SCAN rather than KEYS so a clear never blocks Redis; feed caches only hold a handful of keys
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(redisKey(cacheName, "*"))
+                .count(SCAN_BATCH)
+                .build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            List<String> batch = new ArrayList<>();
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == SCAN_BATCH) {
+                    redisTemplate.delete(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                redisTemplate.delete(batch);
+            }
+        } catch (RuntimeException e) {
+            redisFailed(cacheName, e);
+        }
+    }
+    
+    void publishInvalidation(String cacheName, String key) {
+        // While Redis is unreachable peers fall back to their local TTL
+        if (!redisAvailable()) {
+            return;
+        }
+        
+        try {
+            redisTemplate.convertAndSend(cacheConfig.getInvalidationChannel(), nodeId + "|" + cacheName + "|" + key);
+        } catch (RuntimeException e) {
+            redisFailed(cacheName, e);
+        }
+    }
+    
+    private boolean redisAvailable() {
+        return cacheConfig.getRedisEnabled() && System.currentTimeMillis() >= redisSkipUntil;
+    }
+    
+    // Fail open: the request is served from Postgres and Redis is left alone for a while
+    private void redisFailed(String cacheName, RuntimeException e) {
+        redisCounter(cacheName, "error").increment();
+        redisSkipUntil = System.currentTimeMillis() + cacheConfig.getRedisRetryAfter().toMillis();
+        log.warn("Redis cache tier unavailable, bypassing for {}: {}", cacheConfig.getRedisRetryAfter(), e.getMessage());
+    }
+    
+    private Counter redisCounter(String cacheName, String result) {
+        return meterRegistry.counter("cache.redis.requests", "cache", cacheName, "result", result);
+    }
+    
+    private String redisKey(String cacheName, String key) {
+        return cacheConfig.getKeyPrefix() + ":" + cacheName + ":" + key;
+    }
+}
@@ -0,0 +1,41 @@
+package nz.co.market.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheConfig {
+    
+    // When false only the per-node Caffeine tier is used
+    private Boolean redisEnabled = true;
+    
+    private String keyPrefix = "cache";
+    
+    // Evictions are broadcast here so every node drops its local copy
+    private String invalidationChannel = "cache:invalidate";
+    
+    // After a Redis error the L2 tier is skipped for this long instead of paying the timeout per request
+    private Duration redisRetryAfter = Duration.ofSeconds(30);
+    
+    private Spec defaults = new Spec();
+    
+    private Map<String, Spec> caches = new HashMap<>();
+    
+    public Spec specFor(String cacheName) {
+        return caches.getOrDefault(cacheName, defaults);
+    }
+    
+    @Data
+    public static class Spec {
+        private Long localMaxSize = 1000L;
+        private Duration localTtl = Duration.ofSeconds(30);
+        private Duration redisTtl = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,32 @@
+package nz.co.market.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.mail.outbox")
+public class MailOutboxConfig {
+    
+    // When false emails are still queued but this node doesn't send them
+    private Boolean dispatchEnabled = true;
+    
+    private String from = "NZ Market <no-reply@nzmarket.co.nz>";
+    
+    // Fallback poll; new emails are also dispatched right after their transaction commits
+    private Long pollInterval = 5000L;
+    
+    // Messages claimed and sent over one SMTP connection
+    private Integer batchSize = 50;
+    
+    // Claimed rows are retried after this if the node dies while sending them
+    private Duration lease = Duration.ofMinutes(5);
+    
+    // Retries back off exponentially from initialBackoff up to maxBackoff, then the row is dead-lettered
+    private Integer maxAttempts = 8;
+    private Duration initialBackoff = Duration.ofSeconds(30);
+    private Duration maxBackoff = Duration.ofHours(1);
+}
@@ -0,0 +1,62 @@
+package nz.co.market.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitConfig {
+    
+    private Boolean enabled = true;
+    
+    // When false (or while Redis is failing) each node enforces the limits on its own
+    private Boolean redisEnabled = true;
+    
+    private String keyPrefix = "rate";
+    
+    // A limiter check should never cost more than this; on timeout the request goes to local buckets
+    private Duration redisTimeout = Duration.ofMillis(250);
+    
+    // After a Redis error the shared buckets are skipped for this long
+    private Duration redisRetryAfter = Duration.ofSeconds(30);
+    
+    // Longest a node consumes pre-fetched tokens before syncing with Redis (see Policy.localTokens)
+    private Duration localSyncInterval = Duration.ofSeconds(1);
+    
+    // Buckets (policy + subject) kept in memory per node, dropped when idle
+    private Long maxBuckets = 100000L;
+    private Duration bucketIdleTtl = Duration.ofMinutes(10);
+    
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+    
+    public enum Scope {
+        // Per client address
+        IP,
+        // Per signed-in user; anonymous requests are limited per address instead
+        USER
+    }
+    
+    @Data
+    public static class Policy {
+        // Ant pattern on the request path below the context path, e.g. /items/search/**
+        private String path;
+        // HTTP method to match; any when empty
+        private String method;
+        // Ant pattern on STOMP SEND destinations, e.g. /app/chat/**; shares the bucket with path
+        private String destination;
+        
+        private Scope scope = Scope.IP;
+        private Long capacity = 60L;
+        private Duration period = Duration.ofMinutes(1);
+        
+        // Tokens a node may hand out before syncing with Redis, so busy buckets don't cost a round
+        // trip per request. A limit can be overshot by up to this much per node; 0 for strict limits
+        private Integer localTokens = 0;
+    }
+}
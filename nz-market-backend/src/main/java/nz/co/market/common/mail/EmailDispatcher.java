@@ -0,0 +1,217 @@
+package nz.co.market.common.mail;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.SendFailedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.common.config.MailOutboxConfig;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Drains email_outbox. Each batch is claimed with FOR UPDATE SKIP LOCKED, so nodes never send the
+// same row twice while both are alive, and the claim commits before any SMTP traffic: no
+// transaction or row lock is held while talking to the mail server. Delivery is at least once.
+// Sending runs on a thread of its own, so a slow mail server never holds up the shared scheduler
+// thread the other @Scheduled jobs run on.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailDispatcher {
+    
+    private static final int MAX_ERROR_LENGTH = 1000;
+    
+    // Pushes claimed rows out by the lease, so a node that dies mid-batch only delays them
+    private static final String CLAIM_SQL = """
+            UPDATE email_outbox
+            SET attempts = attempts + 1, next_attempt_at = now() + ? * INTERVAL '1 millisecond'
+            WHERE id IN (
+                SELECT id FROM email_outbox
+                WHERE status = 'PENDING' AND next_attempt_at <= now()
+                ORDER BY next_attempt_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, recipient, subject, body, attempts
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JavaMailSender mailSender;
+    private final MailOutboxConfig mailOutboxConfig;
+    private final MeterRegistry meterRegistry;
+    
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    
+    // One run at a time plus at most one requested behind it; further requests are covered by that one
+    private ThreadPoolExecutor executor;
+    
+    private record OutboxEmail(long id, String recipient, String subject, String body, int attempts) {
+    }
+    
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mail-dispatch");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    // Sends new emails straight away instead of waiting for the next poll
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        requestDispatch();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:5000}")
+    public void poll() {
+        requestDispatch();
+    }
+    
+    private void requestDispatch() {
+        if (mailOutboxConfig.getDispatchEnabled()) {
+            executor.execute(this::dispatch);
+        }
+    }
+    
+    // Runs on the caller's thread; the scheduler and event listener go through requestDispatch
+    public void dispatch() {
+        if (!mailOutboxConfig.getDispatchEnabled() || !dispatchLock.tryLock()) {
+            return;
+        }
+        try {
+            // A backlog drains in one run rather than one batch per poll
+            while (dispatchBatch()) {
+                log.debug("Email outbox batch full, dispatching the next one");
+            }
+        } catch (DataAccessException e) {
+            log.warn("Email outbox unavailable: {}", e.getMessage());
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+    
+    // True when more emails are probably due: the batch was full and the mail server accepted some of it
+    boolean dispatchBatch() {
+        List<OutboxEmail> emails = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new OutboxEmail(
+                rs.getLong("id"),
+                rs.getString("recipient"),
+                rs.getString("subject"),
+                rs.getString("body"),
+                rs.getInt("attempts")
+        ), mailOutboxConfig.getLease().toMillis(), mailOutboxConfig.getBatchSize());
+        if (emails.isEmpty()) {
+            return false;
+        }
+        
+        List<SimpleMailMessage> messages = emails.stream().map(this::toMessage).toList();
+        Map<Object, Exception> failures = send(messages);
+        
+        List<Object[]> sent = new ArrayList<>();
+        for (int i = 0; i < emails.size(); i++) {
+            Exception failure = failures.get(messages.get(i));
+            if (failure == null) {
+                sent.add(new Object[]{emails.get(i).id()});
+            } else {
+                failed(emails.get(i), failure);
+            }
+        }
+        if (!sent.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM email_outbox WHERE id = ?", sent);
+            meterRegistry.counter("mail.outbox.sent").increment(sent.size());
+        }
+        log.debug("Dispatched {} of {} queued emails", sent.size(), emails.size());
+        return emails.size() == mailOutboxConfig.getBatchSize() && !sent.isEmpty();
+    }
+    
+    // One SMTP connection for the whole batch; failures are reported per message
+    private Map<Object, Exception> send(List<SimpleMailMessage> messages) {
+        try {
+            meterRegistry.timer("mail.outbox.batch").record(() -> mailSender.send(messages.toArray(SimpleMailMessage[]::new)));
+            return Map.of();
+        } catch (MailSendException e) {
+            return e.getFailedMessages().isEmpty() ? failAll(messages, e) : e.getFailedMessages();
+        } catch (MailException e) {
+            // Authentication or connection failure before any message was sent
+            return failAll(messages, e);
+        }
+    }
+    
+    private static Map<Object, Exception> failAll(List<SimpleMailMessage> messages, Exception e) {
+        Map<Object, Exception> failures = new HashMap<>();
+        messages.forEach(message -> failures.put(message, e));
+        return failures;
+    }
+    
+    private void failed(OutboxEmail email, Exception failure) {
+        String error = String.valueOf(failure.getMessage());
+        error = error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH));
+        
+        if (isPermanent(failure) || email.attempts() >= mailOutboxConfig.getMaxAttempts()) {
+            jdbcTemplate.update("UPDATE email_outbox SET status = 'DEAD', last_error = ? WHERE id = ?", error, email.id());
+            meterRegistry.counter("mail.outbox.dead").increment();
+            log.error("Email {} to {} dead-lettered after {} attempt(s): {}", email.id(), email.recipient(), email.attempts(), error);
+            return;
+        }
+        
+        long delay = backoffMillis(email.attempts());
+        jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = now() + ? * INTERVAL '1 millisecond', last_error = ? WHERE id = ?",
+                delay, error, email.id());
+        meterRegistry.counter("mail.outbox.retried").increment();
+        log.warn("Email {} to {} failed (attempt {}), retrying in {}s: {}", email.id(), email.recipient(), email.attempts(), delay / 1000, error);
+    }
+    
+    // Exponential with +/-20% jitter, so a batch that failed together doesn't retry together
+    long backoffMillis(int attempts) {
+        long initial = mailOutboxConfig.getInitialBackoff().toMillis();
+        long max = mailOutboxConfig.getMaxBackoff().toMillis();
+        long delay = initial << Math.min(attempts - 1, 30);
+        delay = delay <= 0 || delay > max ? max : delay;
+        return (long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+    
+    // Malformed messages and rejected recipients won't succeed on retry
+    private static boolean isPermanent(Exception failure) {
+        return failure instanceof MailParseException
+                || failure instanceof MailPreparationException
+                || failure instanceof SendFailedException sendFailed
+                && sendFailed.getInvalidAddresses() != null && sendFailed.getInvalidAddresses().length > 0;
+    }
+    
+    private SimpleMailMessage toMessage(OutboxEmail email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(mailOutboxConfig.getFrom());
+        message.setTo(email.recipient());
+        message.setSubject(email.subject());
+        message.setText(email.body());
+        return message;
+    }
+}
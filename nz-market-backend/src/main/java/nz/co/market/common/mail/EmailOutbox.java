@@ -0,0 +1,28 @@
+package nz.co.market.common.mail;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+// Queues emails for EmailDispatcher. Writing joins the caller's transaction, so an email is sent
+// only if the change that caused it commits, and the request never waits on SMTP.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutbox {
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Transactional
+    public void enqueue(String recipient, String subject, String body) {
+        Long id = jdbcTemplate.queryForObject(
+                "INSERT INTO email_outbox (recipient, subject, body) VALUES (?, ?, ?) RETURNING id",
+                Long.class, recipient, subject, body);
+        log.debug("Queued email {} to {}", id, recipient);
+        eventPublisher.publishEvent(new EmailQueuedEvent(id));
+    }
+}
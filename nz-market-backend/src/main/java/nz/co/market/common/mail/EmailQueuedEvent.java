@@ -0,0 +1,5 @@
+package nz.co.market.common.mail;
+
+// Published when an email is written to the outbox; dispatched once the enclosing transaction commits
+public record EmailQueuedEvent(long outboxId) {
+}
@@ -0,0 +1,83 @@
+package nz.co.market.common.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bucket4j.ConsumptionProbe;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.common.config.RateLimitConfig;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Runs in the security chain after JwtAuthenticationFilter, so per-user policies see the user
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private final RateLimiter rateLimiter;
+    private final RateLimitConfig rateLimitConfig;
+    private final MessageSource messageSource;
+    private final ObjectMapper objectMapper;
+    
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+    
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        
+        if (!rateLimitConfig.getEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        List<String> policies = rateLimiter.policiesFor(request.getMethod(), urlPathHelper.getPathWithinApplication(request));
+        long remaining = Long.MAX_VALUE;
+        for (String policy : policies) {
+            ConsumptionProbe probe = rateLimiter.tryConsume(policy,
+                    SecurityContextHolder.getContext().getAuthentication(), "ip:" + request.getRemoteAddr());
+            if (!probe.isConsumed()) {
+                reject(response, policy, probe);
+                return;
+            }
+            remaining = Math.min(remaining, probe.getRemainingTokens());
+        }
+        if (!policies.isEmpty()) {
+            response.setHeader("X-RateLimit-Remaining", String.valueOf(remaining));
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+    
+    private void reject(HttpServletResponse response, String policy, ConsumptionProbe probe) throws IOException {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill() + 999_999_999));
+        log.debug("Rate limit {} exceeded, retry after {}s", policy, retryAfter);
+        
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setHeader("X-RateLimit-Remaining", "0");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getWriter(),
+                Map.of("error", messageSource.getMessage("error.rate.limited", null, LocaleContextHolder.getLocale())));
+    }
+}
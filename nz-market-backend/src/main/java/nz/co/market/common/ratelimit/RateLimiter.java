@@ -0,0 +1,193 @@
+package nz.co.market.common.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.auth.entity.User;
+import nz.co.market.common.config.RateLimitConfig;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Token buckets per policy and subject (user or client address). Buckets live in Redis so the
+// limits hold across nodes; while Redis is disabled or failing every node limits on its own.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimiter {
+    
+    // Full buckets are removed from Redis this long after they could have refilled
+    private static final Duration KEY_GRACE = Duration.ofSeconds(10);
+    
+    private final RateLimitConfig rateLimitConfig;
+    private final RedisConnectionFactory redisConnectionFactory;
+    private final MeterRegistry meterRegistry;
+    
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, BucketConfiguration> configurations = new HashMap<>();
+    
+    // Redis-backed proxies are kept rather than rebuilt per request: they hold the pre-fetched tokens
+    private Cache<String, Bucket> sharedBuckets;
+    private Cache<String, Bucket> localBuckets;
+    
+    private StatefulRedisConnection<byte[], byte[]> connection;
+    private volatile ProxyManager<byte[]> proxyManager;
+    private volatile long redisSkipUntil;
+    
+    @PostConstruct
+    void init() {
+        rateLimitConfig.getPolicies().forEach((name, policy) -> configurations.put(name, BucketConfiguration.builder()
+                .addLimit(bandwidth(policy))
+                .build()));
+        sharedBuckets = newBucketCache();
+        localBuckets = newBucketCache();
+        Gauge.builder("ratelimit.buckets", this, limiter -> limiter.sharedBuckets.estimatedSize())
+                .tag("tier", "redis").register(meterRegistry);
+        Gauge.builder("ratelimit.buckets", this, limiter -> limiter.localBuckets.estimatedSize())
+                .tag("tier", "local").register(meterRegistry);
+    }
+    
+    @PreDestroy
+    synchronized void close() {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+    
+    // Names of the policies that apply to an HTTP request; path is relative to the context path
+    public List<String> policiesFor(String method, String path) {
+        return rateLimitConfig.getPolicies().entrySet().stream()
+                .filter(entry -> entry.getValue().getPath() != null
+                        && (entry.getValue().getMethod() == null || entry.getValue().getMethod().equalsIgnoreCase(method))
+                        && pathMatcher.match(entry.getValue().getPath(), path))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+    
+    // Names of the policies that apply to a STOMP SEND
+    public List<String> policiesForDestination(String destination) {
+        return rateLimitConfig.getPolicies().entrySet().stream()
+                .filter(entry -> entry.getValue().getDestination() != null
+                        && pathMatcher.match(entry.getValue().getDestination(), destination))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+    
+    // user may be null; anonymousSubject identifies callers that aren't signed in (or IP-scoped policies)
+    public ConsumptionProbe tryConsume(String policyName, Principal user, String anonymousSubject) {
+        RateLimitConfig.Policy policy = rateLimitConfig.getPolicies().get(policyName);
+        String key = rateLimitConfig.getKeyPrefix() + ":" + policyName + ":" + subject(policy, user, anonymousSubject);
+        
+        ConsumptionProbe probe = null;
+        if (redisAvailable()) {
+            try {
+                probe = sharedBuckets.get(key, k -> sharedBucket(k, policyName, policy)).tryConsumeAndReturnRemaining(1);
+            } catch (RuntimeException e) {
+                redisFailed(e);
+            }
+        }
+        if (probe == null) {
+            probe = localBuckets.get(key, k -> Bucket.builder().addLimit(bandwidth(policy)).build())
+                    .tryConsumeAndReturnRemaining(1);
+        }
+        
+        meterRegistry.counter("ratelimit.requests", "policy", policyName,
+                "result", probe.isConsumed() ? "allowed" : "rejected").increment();
+        return probe;
+    }
+    
+    private String subject(RateLimitConfig.Policy policy, Principal user, String anonymousSubject) {
+        if (policy.getScope() == RateLimitConfig.Scope.USER
+                && user instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof User principal) {
+            return "user:" + principal.getId();
+        }
+        return anonymousSubject;
+    }
+    
+    // Starts full and refills continuously, capacity tokens per period
+    private static Bandwidth bandwidth(RateLimitConfig.Policy policy) {
+        return Bandwidth.builder()
+                .capacity(policy.getCapacity())
+                .refillGreedy(policy.getCapacity(), policy.getPeriod())
+                .build();
+    }
+    
+    private Bucket sharedBucket(String key, String policyName, RateLimitConfig.Policy policy) {
+        RemoteBucketBuilder<byte[]> builder = proxyManager().builder();
+        if (policy.getLocalTokens() > 0) {
+            builder = builder.withOptimization(Optimizations.delaying(
+                    new DelayParameters(policy.getLocalTokens(), rateLimitConfig.getLocalSyncInterval())));
+        }
+        return builder.build(key.getBytes(StandardCharsets.UTF_8), () -> configurations.get(policyName));
+    }
+    
+    // Connects on first use so the application starts (and limits locally) without Redis
+    private ProxyManager<byte[]> proxyManager() {
+        ProxyManager<byte[]> manager = proxyManager;
+        if (manager != null) {
+            return manager;
+        }
+        synchronized (this) {
+            if (proxyManager == null) {
+                if (!(redisConnectionFactory instanceof LettuceConnectionFactory lettuce)
+                        || !(lettuce.getRequiredNativeClient() instanceof RedisClient client)) {
+                    throw new IllegalStateException("Shared rate limits need a standalone Lettuce connection");
+                }
+                // A dedicated byte[] connection with a short timeout; the shared one is String-typed
+                connection = client.connect(ByteArrayCodec.INSTANCE);
+                connection.setTimeout(rateLimitConfig.getRedisTimeout());
+                proxyManager = LettuceBasedProxyManager.builderFor(connection)
+                        .withExpirationStrategy(ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(KEY_GRACE))
+                        .build();
+            }
+            return proxyManager;
+        }
+    }
+    
+    private Cache<String, Bucket> newBucketCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(rateLimitConfig.getMaxBuckets())
+                .expireAfterAccess(rateLimitConfig.getBucketIdleTtl())
+                .build();
+    }
+    
+    private boolean redisAvailable() {
+        return rateLimitConfig.getRedisEnabled() && System.currentTimeMillis() >= redisSkipUntil;
+    }
+    
+    // Fail over to per-node buckets rather than rejecting (or waiting on) every request
+    private void redisFailed(RuntimeException e) {
+        meterRegistry.counter("ratelimit.redis.errors").increment();
+        redisSkipUntil = System.currentTimeMillis() + rateLimitConfig.getRedisRetryAfter().toMillis();
+        log.warn("Redis rate limit buckets unavailable, limiting per node for {}: {}",
+                rateLimitConfig.getRedisRetryAfter(), e.getMessage());
+    }
+}
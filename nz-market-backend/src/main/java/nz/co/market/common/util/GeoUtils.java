@@ -0,0 +1,59 @@
+package nz.co.market.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class GeoUtils {
+    
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    
+    private static final double KM_PER_DEGREE_LAT = Math.PI * EARTH_RADIUS_KM / 180.0;
+    
+    private GeoUtils() {
+    }
+    
+    // Lng/lat rectangle; minLng > maxLng never occurs, boxes crossing the antimeridian are split
+    public record Box(double minLng, double minLat, double maxLng, double maxLat) {
+    }
+    
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLng / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+    
+    // Smallest lng/lat boxes containing the circle. They over-select at the corners, so callers
+    // still apply the exact haversine check; the boxes only exist to drive the spatial index.
+    public static List<Box> boundingBoxes(double lat, double lng, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEGREE_LAT;
+        double minLat = Math.max(-90, lat - dLat);
+        double maxLat = Math.min(90, lat + dLat);
+        
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        if (minLat <= -90 || maxLat >= 90 || cosLat <= 1e-9) {
+            // Covers a pole, every longitude is in range
+            return List.of(new Box(-180, minLat, 180, maxLat));
+        }
+        
+        double dLng = Math.min(180, radiusKm / (KM_PER_DEGREE_LAT * cosLat));
+        double minLng = lng - dLng;
+        double maxLng = lng + dLng;
+        if (dLng >= 180) {
+            return List.of(new Box(-180, minLat, 180, maxLat));
+        }
+        
+        List<Box> boxes = new ArrayList<>(2);
+        if (minLng < -180) {
+            boxes.add(new Box(minLng + 360, minLat, 180, maxLat));
+            boxes.add(new Box(-180, minLat, maxLng, maxLat));
+        } else if (maxLng > 180) {
+            boxes.add(new Box(minLng, minLat, 180, maxLat));
+            boxes.add(new Box(-180, minLat, maxLng - 360, maxLat));
+        } else {
+            boxes.add(new Box(minLng, minLat, maxLng, maxLat));
+        }
+        return boxes;
+    }
+}
@@ -0,0 +1,39 @@
+package nz.co.market.items.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.items.facets")
+public class ItemFacetConfig {
+    
+    // Most values returned per facet; categories beyond this are dropped by lowest count
+    private Integer maxValues = 20;
+    
+    // Lower bounds of the price buckets in NZD, ascending; the last bucket is open-ended
+    private List<BigDecimal> priceBuckets = new ArrayList<>(List.of(
+            BigDecimal.ZERO, new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("250"),
+            new BigDecimal("500"), new BigDecimal("1000"), new BigDecimal("5000")));
+    
+    // width_bucket in the facet query needs strictly ascending bounds; anything else would count
+    // items into the wrong buckets without an error, so refuse to start instead
+    @PostConstruct
+    void validate() {
+        if (priceBuckets == null || priceBuckets.isEmpty()) {
+            throw new IllegalStateException("app.items.facets.price-buckets must not be empty");
+        }
+        for (int i = 0; i < priceBuckets.size(); i++) {
+            BigDecimal bound = priceBuckets.get(i);
+            if (bound == null || i > 0 && bound.compareTo(priceBuckets.get(i - 1)) <= 0) {
+                throw new IllegalStateException("app.items.facets.price-buckets must be strictly ascending, got " + priceBuckets);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package nz.co.market.items.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.items.views")
+public class ItemViewConfig {
+    
+    // How often buffered views are written to items.view_count; also the most a crash can lose
+    private Long flushInterval = 5000L;
+    
+    // Rows per UPDATE ... FROM (VALUES ...) statement
+    private Integer batchSize = 500;
+    
+    private Boolean metricsEnabled = true;
+}
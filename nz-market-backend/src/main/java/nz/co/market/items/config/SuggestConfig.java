@@ -0,0 +1,25 @@
+package nz.co.market.items.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.items.suggest")
+public class SuggestConfig {
+    
+    private Boolean enabled = true;
+    
+    // ms between full rebuilds; changes in between are served from a small overlay
+    private Long rebuildInterval = 300000L;
+    
+    // Completions stored per trie node, so also the most a single request can return
+    private Integer topK = 10;
+    
+    // Keys are indexed up to this many characters; bounds the trie's memory
+    private Integer maxDepth = 24;
+    
+    // Items changed since the last rebuild that are tracked outside the trie
+    private Integer maxOverlay = 2000;
+}
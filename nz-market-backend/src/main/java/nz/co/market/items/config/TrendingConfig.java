@@ -0,0 +1,24 @@
+package nz.co.market.items.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.items.trending")
+public class TrendingConfig {
+    
+    // When false /items/popular always uses the database query
+    private Boolean enabled = true;
+    
+    // ms between refreshes; each one scans the active items once
+    private Long refreshInterval = 60000L;
+    
+    // Items kept per list (global, each category, each city, each category in each city) and window
+    private Integer topK = 100;
+    
+    private Double viewWeight = 1.0;
+    private Double favoriteWeight = 5.0;
+    private Double conversationWeight = 10.0;
+}
@@ -7,10 +7,15 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nz.co.market.auth.entity.User;
+import nz.co.market.common.dto.CursorPage;
 import nz.co.market.items.dto.CreateItemRequest;
 import nz.co.market.items.dto.ItemResponse;
 import nz.co.market.items.dto.ItemSearchRequest;
+import nz.co.market.items.dto.ItemSearchResponse;
+import nz.co.market.items.dto.ItemSummaryResponse;
+import nz.co.market.items.dto.SuggestionResponse;
 import nz.co.market.items.service.ItemService;
+import nz.co.market.items.service.SuggestService;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,6 +33,7 @@ import java.util.UUID;
 public class ItemController {
     
     private final ItemService itemService;
+    private final SuggestService suggestService;
     
     @PostMapping
     @PreAuthorize("hasRole('USER')")
@@ -41,6 +47,22 @@ public class ItemController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/categories")
+    @Operation(summary = "List item categories")
+    public ResponseEntity<List<ItemResponse.CategoryDto>> getCategories() {
+        List<ItemResponse.CategoryDto> response = itemService.getCategories();
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/suggest")
+    @Operation(summary = "Autocomplete item titles, categories and tags")
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        List<SuggestionResponse> response = suggestService.suggest(q, limit);
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get item by ID")
     public ResponseEntity<ItemResponse> getItem(@PathVariable UUID id) {
@@ -49,25 +71,48 @@ public class ItemController {
     }
     
     @GetMapping("/search")
-    @Operation(summary = "Search items")
-    public ResponseEntity<Page<ItemResponse>> searchItems(ItemSearchRequest request) {
-        Page<ItemResponse> response = itemService.searchItems(request);
+    @Operation(summary = "Search items; with facets=true the page comes wrapped with facet counts")
+    public ResponseEntity<?> searchItems(ItemSearchRequest request) {
+        if (request.isFacets()) {
+            ItemSearchResponse response = itemService.searchItemsWithFacets(request);
+            return ResponseEntity.ok(response);
+        }
+        Page<ItemSummaryResponse> response = itemService.searchItems(request);
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/search/cursor")
+    @Operation(summary = "Search items with cursor pagination")
+    public ResponseEntity<CursorPage<ItemSummaryResponse>> scrollItems(ItemSearchRequest request) {
+        CursorPage<ItemSummaryResponse> response = itemService.scrollItems(request);
         return ResponseEntity.ok(response);
     }
     
     @GetMapping("/latest")
     @Operation(summary = "Get latest items")
-    public ResponseEntity<List<ItemResponse>> getLatestItems(
+    public ResponseEntity<List<ItemSummaryResponse>> getLatestItems(
             @RequestParam(defaultValue = "10") int limit) {
-        List<ItemResponse> response = itemService.getLatestItems(limit);
+        List<ItemSummaryResponse> response = itemService.getLatestItems(limit);
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/latest/cursor")
+    @Operation(summary = "Get latest items with cursor pagination")
+    public ResponseEntity<CursorPage<ItemSummaryResponse>> scrollLatestItems(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage<ItemSummaryResponse> response = itemService.scrollLatestItems(cursor, size);
         return ResponseEntity.ok(response);
     }
     
     @GetMapping("/popular")
-    @Operation(summary = "Get most viewed items")
-    public ResponseEntity<List<ItemResponse>> getMostViewedItems(
-            @RequestParam(defaultValue = "10") int limit) {
-        List<ItemResponse> response = itemService.getMostViewedItems(limit);
+    @Operation(summary = "Get trending items, optionally for one category or city")
+    public ResponseEntity<List<ItemSummaryResponse>> getMostViewedItems(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) UUID category,
+            @RequestParam(required = false) String city,
+            @RequestParam(defaultValue = "week") String window) {
+        List<ItemSummaryResponse> response = itemService.getPopularItems(category, city, window, limit);
         return ResponseEntity.ok(response);
     }
     
@@ -75,11 +120,23 @@ public class ItemController {
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Get current user's items")
     @SecurityRequirement(name = "bearerAuth")
-    public ResponseEntity<Page<ItemResponse>> getMyItems(
+    public ResponseEntity<Page<ItemSummaryResponse>> getMyItems(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @AuthenticationPrincipal User user) {
-        Page<ItemResponse> response = itemService.getUserItems(user.getId(), page, size);
+        Page<ItemSummaryResponse> response = itemService.getUserItems(user.getId(), page, size);
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/my-items/cursor")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Get current user's items with cursor pagination")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<CursorPage<ItemSummaryResponse>> scrollMyItems(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal User user) {
+        CursorPage<ItemSummaryResponse> response = itemService.scrollUserItems(user.getId(), cursor, size);
         return ResponseEntity.ok(response);
     }
     
@@ -0,0 +1,81 @@
+package nz.co.market.items.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import nz.co.market.items.entity.Item;
+import nz.co.market.items.enums.ItemSortField;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+// Opaque keyset position: the sort key and id of the last item on the previous page
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ItemCursor {
+    
+    private static final String SEPARATOR = "|";
+    
+    private final ItemSortField sortField;
+    private final boolean ascending;
+    private final boolean trigram;
+    private final String sortValue;
+    private final UUID id;
+    
+    public static ItemCursor after(Item item, ItemSortField sortField, boolean ascending, boolean trigram) {
+        String sortValue = switch (sortField) {
+            case PRICE -> item.getPriceNzd().toPlainString();
+            case VIEW_COUNT -> String.valueOf(item.getViewCount());
+            default -> item.getCreatedAt().toInstant().toString();
+        };
+        return new ItemCursor(sortField, ascending, trigram, sortValue, item.getId());
+    }
+    
+    public static ItemCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR, -1);
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("Unexpected cursor format");
+            }
+            ItemCursor itemCursor = new ItemCursor(
+                    ItemSortField.valueOf(parts[0]),
+                    "ASC".equals(parts[1]),
+                    "1".equals(parts[2]),
+                    parts[3],
+                    UUID.fromString(parts[4]));
+            // Fail fast on a tampered value rather than inside the SQL
+            itemCursor.getTypedSortValue();
+            return itemCursor;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+    
+    public String encode() {
+        String raw = String.join(SEPARATOR,
+                sortField.name(),
+                ascending ? "ASC" : "DESC",
+                trigram ? "1" : "0",
+                sortValue,
+                id.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public Object getTypedSortValue() {
+        return switch (sortField) {
+            case PRICE -> new BigDecimal(sortValue);
+            case VIEW_COUNT -> Integer.valueOf(sortValue);
+            default -> OffsetDateTime.ofInstant(Instant.parse(sortValue), ZoneOffset.UTC);
+        };
+    }
+}
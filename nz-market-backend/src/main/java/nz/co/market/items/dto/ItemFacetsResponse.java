@@ -0,0 +1,33 @@
+package nz.co.market.items.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemFacetsResponse {
+    
+    private List<FacetValue> categories;
+    private List<FacetValue> conditions;
+    private List<FacetValue> tradeMethods;
+    private List<FacetValue> priceRanges;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetValue {
+        // A category id or trade method can be passed back as categoryId / tradeMethod. A price
+        // range ("50-100", "5000+") is for display: filter with minPrice/maxPrice instead.
+        // Conditions have no filter.
+        private String value;
+        private String label;
+        private long count;
+    }
+}
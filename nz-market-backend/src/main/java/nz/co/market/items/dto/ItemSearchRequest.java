@@ -1,6 +1,7 @@
 package nz.co.market.items.dto;
 
 import lombok.Data;
+import nz.co.market.items.enums.TradeMethod;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -10,11 +11,22 @@ public class ItemSearchRequest {
     
     private String keyword;
     private UUID categoryId;
+    private UUID sellerId;
     private BigDecimal minPrice;
     private BigDecimal maxPrice;
     private String city;
-    private String sortBy = "createdAt"; // createdAt, price, viewCount
-    private String sortDirection = "desc"; // asc, desc
+    private TradeMethod tradeMethod; // PICKUP also matches BOTH, as does POST
+    private Double lat; // centre of a radius search, together with lng
+    private Double lng;
+    private Double radiusKm; // defaults to 20, capped at 500
+    private String sortBy = "createdAt"; // createdAt, price, viewCount, relevance, distance
+    private String sortDirection = "desc"; // asc, desc (ignored for relevance)
     private int page = 0;
     private int size = 20;
+    private String cursor; // opaque keyset cursor for the /cursor endpoints
+    private boolean facets; // also return counts per category, condition, trade method and price
+    
+    public boolean hasLocation() {
+        return lat != null && lng != null;
+    }
 }
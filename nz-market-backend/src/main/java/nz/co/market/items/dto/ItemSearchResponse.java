@@ -0,0 +1,18 @@
+package nz.co.market.items.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+// /items/search with facets=true: the usual page plus counts over the whole result set
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSearchResponse {
+    
+    private Page<ItemSummaryResponse> results;
+    private ItemFacetsResponse facets;
+}
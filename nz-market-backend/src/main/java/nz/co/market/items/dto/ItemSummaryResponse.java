@@ -0,0 +1,39 @@
+package nz.co.market.items.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import nz.co.market.items.enums.ItemCondition;
+import nz.co.market.items.enums.ItemStatus;
+import nz.co.market.items.enums.TradeMethod;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// List/card view of an item: no description and only the first image
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSummaryResponse {
+    
+    private UUID id;
+    private String title;
+    private BigDecimal priceNzd;
+    private String currency;
+    private ItemCondition condition;
+    private ItemStatus status;
+    private TradeMethod tradeMethod;
+    private String locationCity;
+    private Integer viewCount;
+    private String thumbnailUrl;
+    private ZonedDateTime createdAt;
+    private Double distanceKm; // only set by radius searches
+    
+    private ItemResponse.SellerDto seller;
+    private ItemResponse.CategoryDto category;
+    private List<ItemResponse.TagDto> tags;
+}
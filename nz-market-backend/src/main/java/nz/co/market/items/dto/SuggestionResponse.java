@@ -0,0 +1,25 @@
+package nz.co.market.items.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionResponse {
+    
+    private String text;
+    private Type type;
+    private UUID id; // category or tag id; null for titles, which may belong to several items
+    
+    public enum Type {
+        TITLE,
+        CATEGORY,
+        TAG
+    }
+}
@@ -77,6 +77,7 @@ public class Item extends BaseEntity {
     private Category category;
     
     @OneToMany(mappedBy = "item", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OrderBy("sortOrder ASC")
     @Builder.Default
     private List<ItemImage> images = new ArrayList<>();
     
@@ -0,0 +1,32 @@
+package nz.co.market.items.enums;
+
+public enum ItemSortField {
+    CREATED_AT("created_at"),
+    PRICE("price_nzd"),
+    VIEW_COUNT("view_count"),
+    RELEVANCE(null),
+    DISTANCE(null);
+    
+    private final String column;
+    
+    ItemSortField(String column) {
+        this.column = column;
+    }
+    
+    public String getColumn() {
+        return column;
+    }
+    
+    public static ItemSortField from(String sortBy) {
+        if (sortBy == null) {
+            return CREATED_AT;
+        }
+        return switch (sortBy) {
+            case "price", "priceNzd" -> PRICE;
+            case "viewCount" -> VIEW_COUNT;
+            case "relevance" -> RELEVANCE;
+            case "distance" -> DISTANCE;
+            default -> CREATED_AT;
+        };
+    }
+}
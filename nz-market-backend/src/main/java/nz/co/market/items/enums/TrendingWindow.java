@@ -0,0 +1,32 @@
+package nz.co.market.items.enums;
+
+import java.time.Duration;
+
+// Scores decay exponentially rather than dropping out of a hard window; the half-life sets how
+// quickly old activity stops counting (roughly nothing is left after five half-lives)
+public enum TrendingWindow {
+    DAY(Duration.ofHours(6)),
+    WEEK(Duration.ofDays(2)),
+    MONTH(Duration.ofDays(7));
+    
+    private final Duration halfLife;
+    
+    TrendingWindow(Duration halfLife) {
+        this.halfLife = halfLife;
+    }
+    
+    public Duration getHalfLife() {
+        return halfLife;
+    }
+    
+    public static TrendingWindow from(String window) {
+        if (window == null) {
+            return WEEK;
+        }
+        return switch (window.toLowerCase()) {
+            case "day", "24h" -> DAY;
+            case "month", "30d" -> MONTH;
+            default -> WEEK;
+        };
+    }
+}
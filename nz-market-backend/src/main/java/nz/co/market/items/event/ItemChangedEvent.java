@@ -0,0 +1,7 @@
+package nz.co.market.items.event;
+
+import java.util.UUID;
+
+// Published whenever an item's listing data or visibility changes
+public record ItemChangedEvent(UUID itemId) {
+}
@@ -1,11 +1,15 @@
 package nz.co.market.items.mapper;
 
 import nz.co.market.items.dto.ItemResponse;
+import nz.co.market.items.dto.ItemSummaryResponse;
+import nz.co.market.items.entity.Category;
 import nz.co.market.items.entity.Item;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring")
 public interface ItemMapper {
     
@@ -19,4 +23,17 @@ public interface ItemMapper {
     @Mapping(target = "category.name", source = "category.name")
     @Mapping(target = "category.slug", source = "category.slug")
     ItemResponse toResponse(Item item);
+    
+    @Mapping(target = "seller.id", source = "seller.id")
+    @Mapping(target = "seller.displayName", source = "seller.displayName")
+    @Mapping(target = "seller.avatarUrl", source = "seller.avatarUrl")
+    @Mapping(target = "seller.location", source = "seller.profile.location")
+    @Mapping(target = "category.id", source = "category.id")
+    @Mapping(target = "category.name", source = "category.name")
+    @Mapping(target = "category.slug", source = "category.slug")
+    @Mapping(target = "distanceKm", ignore = true)
+    @Mapping(target = "thumbnailUrl", expression = "java(item.getImages().isEmpty() ? null : item.getImages().get(0).getUrl())")
+    ItemSummaryResponse toSummaryResponse(Item item);
+    
+    List<ItemResponse.CategoryDto> toCategoryDtos(List<Category> categories);
 }
@@ -0,0 +1,9 @@
+package nz.co.market.items.repository;
+
+// One row of the grouped facet query; value is null for items without a category
+public record ItemFacetCount(Facet facet, Object value, long count) {
+    
+    public enum Facet {
+        CATEGORY, CONDITION, TRADE_METHOD, PRICE_BUCKET
+    }
+}
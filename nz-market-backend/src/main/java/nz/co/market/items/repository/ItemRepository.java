@@ -9,33 +9,17 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface ItemRepository extends JpaRepository<Item, UUID> {
+public interface ItemRepository extends JpaRepository<Item, UUID>, ItemSearchRepository {
     
     Page<Item> findByStatus(ItemStatus status, Pageable pageable);
     
     Page<Item> findBySellerIdAndStatus(UUID sellerId, ItemStatus status, Pageable pageable);
     
-    @Query("SELECT i FROM Item i WHERE " +
-           "(:keyword IS NULL OR LOWER(i.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-           "LOWER(i.description) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
-           "(:categoryId IS NULL OR i.category.id = :categoryId) AND " +
-           "(:minPrice IS NULL OR i.priceNzd >= :minPrice) AND " +
-           "(:maxPrice IS NULL OR i.priceNzd <= :maxPrice) AND " +
-           "(:city IS NULL OR LOWER(i.locationCity) LIKE LOWER(CONCAT('%', :city, '%'))) AND " +
-           "i.status = :status")
-    Page<Item> searchItems(@Param("keyword") String keyword,
-                          @Param("categoryId") UUID categoryId,
-                          @Param("minPrice") BigDecimal minPrice,
-                          @Param("maxPrice") BigDecimal maxPrice,
-                          @Param("city") String city,
-                          @Param("status") ItemStatus status,
-                          Pageable pageable);
-    
     @Query("SELECT i FROM Item i JOIN i.tags t WHERE t.id = :tagId AND i.status = :status")
     Page<Item> findByTagIdAndStatus(@Param("tagId") UUID tagId, @Param("status") ItemStatus status, Pageable pageable);
     
@@ -46,6 +30,16 @@ public interface ItemRepository extends JpaRepository<Item, UUID> {
     @Query("SELECT i FROM Item i WHERE i.status = 'PENDING_APPROVAL'")
     Page<Item> findPendingApprovalItems(Pageable pageable);
     
+    @Query("SELECT i FROM Item i JOIN FETCH i.seller s LEFT JOIN FETCH s.profile LEFT JOIN FETCH i.category " +
+           "WHERE i.id IN :ids")
+    List<Item> findAllWithSellerAndCategoryByIdIn(@Param("ids") Collection<UUID> ids);
+    
+    @Query("SELECT DISTINCT i FROM Item i LEFT JOIN FETCH i.images WHERE i.id IN :ids")
+    List<Item> findAllWithImagesByIdIn(@Param("ids") Collection<UUID> ids);
+    
+    @Query("SELECT DISTINCT i FROM Item i LEFT JOIN FETCH i.tags WHERE i.id IN :ids")
+    List<Item> findAllWithTagsByIdIn(@Param("ids") Collection<UUID> ids);
+    
     @Query(value = "SELECT * FROM items WHERE status = 'ACTIVE' ORDER BY created_at DESC LIMIT :limit", nativeQuery = true)
     List<Item> findLatestActiveItems(@Param("limit") int limit);
     
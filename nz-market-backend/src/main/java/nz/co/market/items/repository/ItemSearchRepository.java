@@ -0,0 +1,19 @@
+package nz.co.market.items.repository;
+
+import nz.co.market.items.dto.ItemCursor;
+import nz.co.market.items.dto.ItemSearchRequest;
+import nz.co.market.items.entity.Item;
+import nz.co.market.items.enums.ItemStatus;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ItemSearchRepository {
+    
+    Page<Item> search(ItemSearchRequest request, ItemStatus status);
+    
+    List<Item> scroll(ItemSearchRequest request, ItemStatus status, ItemCursor after, boolean trigram, int limit);
+    
+    List<ItemFacetCount> countFacets(ItemSearchRequest request, ItemStatus status, List<BigDecimal> priceBuckets);
+}
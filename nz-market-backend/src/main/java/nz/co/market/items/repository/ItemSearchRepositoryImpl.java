@@ -0,0 +1,273 @@
+package nz.co.market.items.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import nz.co.market.common.util.GeoUtils;
+import nz.co.market.items.dto.ItemCursor;
+import nz.co.market.items.dto.ItemSearchRequest;
+import nz.co.market.items.entity.Item;
+import nz.co.market.items.enums.ItemSortField;
+import nz.co.market.items.enums.ItemStatus;
+import nz.co.market.items.enums.TradeMethod;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ItemSearchRepositoryImpl implements ItemSearchRepository {
+    
+    private static final String TS_QUERY = "websearch_to_tsquery('english', :keyword)";
+    
+    // Must match the expression of idx_items_location_point or the planner cannot use it
+    private static final String POINT = "point(CAST(i.lng AS float8), CAST(i.lat AS float8))";
+    private static final String DISTANCE_KM = "(2 * " + GeoUtils.EARTH_RADIUS_KM + " * asin(least(1, sqrt("
+            + "power(sin(radians(CAST(i.lat AS float8) - :lat) / 2), 2) + "
+            + "cos(radians(:lat)) * cos(radians(CAST(i.lat AS float8))) * "
+            + "power(sin(radians(CAST(i.lng AS float8) - :lng) / 2), 2)))))";
+    
+    private static final double DEFAULT_RADIUS_KM = 20;
+    private static final double MAX_RADIUS_KM = 500;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private enum MatchMode {
+        NONE, FULL_TEXT, TRIGRAM
+    }
+    
+    @Override
+    public Page<Item> search(ItemSearchRequest request, ItemStatus status) {
+        Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
+        
+        if (StringUtils.isBlank(request.getKeyword())) {
+            return runSearch(request, status, MatchMode.NONE, pageable);
+        }
+        
+        Page<Item> items = runSearch(request, status, MatchMode.FULL_TEXT, pageable);
+        if (items.getTotalElements() == 0) {
+            // Nothing matched the stemmed query, usually a typo; fall back to the trigram index on title
+            items = runSearch(request, status, MatchMode.TRIGRAM, pageable);
+        }
+        return items;
+    }
+    
+    @Override
+    public List<Item> scroll(ItemSearchRequest request, ItemStatus status, ItemCursor after, boolean trigram, int limit) {
+        ItemSortField sortField = ItemSortField.from(request.getSortBy());
+        if (sortField == ItemSortField.RELEVANCE || sortField == ItemSortField.DISTANCE) {
+            throw new RuntimeException("Cursor pagination is not supported for " + sortField.name().toLowerCase() + " sorting");
+        }
+        
+        MatchMode mode = StringUtils.isBlank(request.getKeyword())
+                ? MatchMode.NONE
+                : trigram ? MatchMode.TRIGRAM : MatchMode.FULL_TEXT;
+        
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder where = new StringBuilder(buildWhereClause(request, status, mode, params));
+        
+        if (after != null) {
+            // Row comparison lets Postgres seek straight into the (status, column, id) index
+            String operator = isAscending(request) ? ">" : "<";
+            where.append(" AND (i.").append(sortField.getColumn()).append(", i.id) ")
+                    .append(operator).append(" (:cursorValue, :cursorId)");
+            params.put("cursorValue", after.getTypedSortValue());
+            params.put("cursorId", after.getId());
+        }
+        
+        Query query = entityManager.createNativeQuery(
+                "SELECT i.* FROM items i" + where + buildOrderByClause(request, mode), Item.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(limit);
+        
+        @SuppressWarnings("unchecked")
+        List<Item> items = query.getResultList();
+        return items;
+    }
+    
+    @Override
+    public List<ItemFacetCount> countFacets(ItemSearchRequest request, ItemStatus status, List<BigDecimal> priceBuckets) {
+        if (StringUtils.isBlank(request.getKeyword())) {
+            return runFacets(request, status, MatchMode.NONE, priceBuckets);
+        }
+        
+        // Same fallback as search() so the counts describe the results actually shown
+        List<ItemFacetCount> counts = runFacets(request, status, MatchMode.FULL_TEXT, priceBuckets);
+        return counts.isEmpty() ? runFacets(request, status, MatchMode.TRIGRAM, priceBuckets) : counts;
+    }
+    
+    private Page<Item> runSearch(ItemSearchRequest request, ItemStatus status, MatchMode mode, Pageable pageable) {
+        Map<String, Object> params = new HashMap<>();
+        String where = buildWhereClause(request, status, mode, params);
+        
+        Query query = entityManager.createNativeQuery(
+                "SELECT i.* FROM items i" + where + buildOrderByClause(request, mode), Item.class);
+        params.forEach(query::setParameter);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        
+        @SuppressWarnings("unchecked")
+        List<Item> items = query.getResultList();
+        
+        return PageableExecutionUtils.getPage(items, pageable, () -> count(where, params));
+    }
+    
+    // All four facets in one scan: each grouping set yields the rows for one facet, and GROUPING()
+    // tells them apart (a NULL category_id is a real value, not a rolled-up column)
+    private List<ItemFacetCount> runFacets(ItemSearchRequest request, ItemStatus status, MatchMode mode,
+                                           List<BigDecimal> priceBuckets) {
+        Map<String, Object> params = new HashMap<>();
+        String where = buildWhereClause(request, status, mode, params);
+        
+        // Bounds come from configuration, not the request, so they can be inlined
+        String bucket = "width_bucket(i.price_nzd, CAST(ARRAY[" + priceBuckets.stream()
+                .map(BigDecimal::toPlainString)
+                .collect(Collectors.joining(", ")) + "] AS numeric[]))";
+        
+        Query query = entityManager.createNativeQuery(
+                "SELECT GROUPING(i.category_id), GROUPING(i.condition), GROUPING(i.trade_method), " +
+                "i.category_id, i.condition, i.trade_method, " + bucket + ", COUNT(*) " +
+                "FROM items i" + where +
+                " GROUP BY GROUPING SETS ((i.category_id), (i.condition), (i.trade_method), (" + bucket + "))");
+        params.forEach(query::setParameter);
+        
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        
+        List<ItemFacetCount> counts = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            long count = ((Number) row[7]).longValue();
+            if (((Number) row[0]).intValue() == 0) {
+                counts.add(new ItemFacetCount(ItemFacetCount.Facet.CATEGORY, row[3], count));
+            } else if (((Number) row[1]).intValue() == 0) {
+                counts.add(new ItemFacetCount(ItemFacetCount.Facet.CONDITION, row[4], count));
+            } else if (((Number) row[2]).intValue() == 0) {
+                counts.add(new ItemFacetCount(ItemFacetCount.Facet.TRADE_METHOD, row[5], count));
+            } else {
+                counts.add(new ItemFacetCount(ItemFacetCount.Facet.PRICE_BUCKET, row[6], count));
+            }
+        }
+        return counts;
+    }
+    
+    private long count(String where, Map<String, Object> params) {
+        Query countQuery = entityManager.createNativeQuery("SELECT COUNT(*) FROM items i" + where);
+        params.forEach(countQuery::setParameter);
+        return ((Number) countQuery.getSingleResult()).longValue();
+    }
+    
+    private String buildWhereClause(ItemSearchRequest request, ItemStatus status, MatchMode mode,
+                                    Map<String, Object> params) {
+        StringBuilder where = new StringBuilder(" WHERE i.status = :status");
+        params.put("status", status.name());
+        
+        switch (mode) {
+            case FULL_TEXT -> {
+                where.append(" AND i.search_vector @@ ").append(TS_QUERY);
+                params.put("keyword", request.getKeyword().trim());
+            }
+            case TRIGRAM -> {
+                where.append(" AND i.title % :keyword");
+                params.put("keyword", request.getKeyword().trim());
+            }
+            default -> {
+            }
+        }
+        
+        if (request.getSellerId() != null) {
+            where.append(" AND i.seller_id = :sellerId");
+            params.put("sellerId", request.getSellerId());
+        }
+        if (request.getCategoryId() != null) {
+            where.append(" AND i.category_id = :categoryId");
+            params.put("categoryId", request.getCategoryId());
+        }
+        if (request.getMinPrice() != null) {
+            where.append(" AND i.price_nzd >= :minPrice");
+            params.put("minPrice", request.getMinPrice());
+        }
+        if (request.getMaxPrice() != null) {
+            where.append(" AND i.price_nzd <= :maxPrice");
+            params.put("maxPrice", request.getMaxPrice());
+        }
+        if (StringUtils.isNotBlank(request.getCity())) {
+            where.append(" AND LOWER(i.location_city) LIKE LOWER(CONCAT('%', :city, '%'))");
+            params.put("city", request.getCity());
+        }
+        if (request.getTradeMethod() != null) {
+            if (request.getTradeMethod() == TradeMethod.BOTH) {
+                where.append(" AND i.trade_method = :tradeMethod");
+                params.put("tradeMethod", TradeMethod.BOTH.name());
+            } else {
+                where.append(" AND i.trade_method IN (:tradeMethods)");
+                params.put("tradeMethods", List.of(request.getTradeMethod().name(), TradeMethod.BOTH.name()));
+            }
+        }
+        if (request.hasLocation()) {
+            appendRadiusFilter(request, where, params);
+        }
+        
+        return where.toString();
+    }
+    
+    // The bounding boxes select candidates through the GiST index; the haversine check then
+    // trims the corners so only items truly inside the circle are returned
+    private void appendRadiusFilter(ItemSearchRequest request, StringBuilder where, Map<String, Object> params) {
+        double radiusKm = request.getRadiusKm() == null
+                ? DEFAULT_RADIUS_KM
+                : Math.min(Math.max(request.getRadiusKm(), 0), MAX_RADIUS_KM);
+        List<GeoUtils.Box> boxes = GeoUtils.boundingBoxes(request.getLat(), request.getLng(), radiusKm);
+        
+        List<String> boxConditions = new ArrayList<>();
+        for (int b = 0; b < boxes.size(); b++) {
+            GeoUtils.Box box = boxes.get(b);
+            boxConditions.add(POINT + " <@ box(point(:minLng" + b + ", :minLat" + b + "), point(:maxLng" + b + ", :maxLat" + b + "))");
+            params.put("minLng" + b, box.minLng());
+            params.put("minLat" + b, box.minLat());
+            params.put("maxLng" + b, box.maxLng());
+            params.put("maxLat" + b, box.maxLat());
+        }
+        
+        where.append(" AND i.lat IS NOT NULL AND i.lng IS NOT NULL")
+                .append(" AND (").append(String.join(" OR ", boxConditions)).append(")")
+                .append(" AND ").append(DISTANCE_KM).append(" <= :radiusKm");
+        params.put("lat", request.getLat());
+        params.put("lng", request.getLng());
+        params.put("radiusKm", radiusKm);
+    }
+    
+    private String buildOrderByClause(ItemSearchRequest request, MatchMode mode) {
+        ItemSortField sortField = ItemSortField.from(request.getSortBy());
+        
+        if (sortField == ItemSortField.DISTANCE) {
+            // Without a centre point there is no distance, so newest first
+            return request.hasLocation()
+                    ? " ORDER BY " + DISTANCE_KM + ", i.id"
+                    : " ORDER BY i.created_at DESC, i.id";
+        }
+        
+        if (sortField == ItemSortField.RELEVANCE) {
+            return switch (mode) {
+                case FULL_TEXT -> " ORDER BY ts_rank(i.search_vector, " + TS_QUERY + ") DESC, i.id";
+                case TRIGRAM -> " ORDER BY similarity(i.title, :keyword) DESC, i.id";
+                // Without a keyword there is nothing to rank against, so newest first
+                default -> " ORDER BY i.created_at DESC, i.id";
+            };
+        }
+        
+        String direction = isAscending(request) ? "ASC" : "DESC";
+        return " ORDER BY i." + sortField.getColumn() + " " + direction + ", i.id " + direction;
+    }
+    
+    private boolean isAscending(ItemSearchRequest request) {
+        return "asc".equalsIgnoreCase(request.getSortDirection());
+    }
+}
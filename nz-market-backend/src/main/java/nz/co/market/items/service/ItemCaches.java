@@ -0,0 +1,45 @@
+package nz.co.market.items.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.Getter;
+import nz.co.market.common.cache.TwoTierCache;
+import nz.co.market.common.cache.TwoTierCacheManager;
+import nz.co.market.items.dto.ItemResponse;
+import nz.co.market.items.dto.ItemSummaryResponse;
+import nz.co.market.items.event.ItemChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Component
+@Getter
+public class ItemCaches {
+    
+    public static final String ITEMS = "items";
+    public static final String LATEST_ITEMS = "latest-items";
+    public static final String POPULAR_ITEMS = "popular-items";
+    public static final String CATEGORIES = "categories";
+    
+    private final TwoTierCache<ItemResponse> items;
+    private final TwoTierCache<List<ItemSummaryResponse>> latestItems;
+    private final TwoTierCache<List<ItemSummaryResponse>> popularItems;
+    private final TwoTierCache<List<ItemResponse.CategoryDto>> categories;
+    
+    public ItemCaches(TwoTierCacheManager cacheManager) {
+        this.items = cacheManager.create(ITEMS, new TypeReference<ItemResponse>() {});
+        this.latestItems = cacheManager.create(LATEST_ITEMS, new TypeReference<List<ItemSummaryResponse>>() {});
+        this.popularItems = cacheManager.create(POPULAR_ITEMS, new TypeReference<List<ItemSummaryResponse>>() {});
+        this.categories = cacheManager.create(CATEGORIES, new TypeReference<List<ItemResponse.CategoryDto>>() {});
+    }
+    
+    // After commit so a concurrent reader cannot repopulate the cache with the pre-change row
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        items.evict(event.itemId());
+        // Feeds are keyed by limit, so any change can move an item in or out of every entry
+        latestItems.clear();
+        popularItems.clear();
+    }
+}
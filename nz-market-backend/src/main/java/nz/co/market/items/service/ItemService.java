@@ -3,27 +3,49 @@ package nz.co.market.items.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nz.co.market.auth.entity.User;
+import nz.co.market.auth.repository.UserRepository;
+import nz.co.market.common.dto.CursorPage;
+import nz.co.market.common.util.GeoUtils;
+import nz.co.market.items.config.ItemFacetConfig;
 import nz.co.market.items.dto.CreateItemRequest;
+import nz.co.market.items.dto.ItemCursor;
+import nz.co.market.items.dto.ItemFacetsResponse;
 import nz.co.market.items.dto.ItemResponse;
 import nz.co.market.items.dto.ItemSearchRequest;
+import nz.co.market.items.dto.ItemSearchResponse;
+import nz.co.market.items.dto.ItemSummaryResponse;
 import nz.co.market.items.entity.Category;
 import nz.co.market.items.entity.Item;
 import nz.co.market.items.entity.ItemImage;
 import nz.co.market.items.entity.Tag;
+import nz.co.market.items.enums.ItemCondition;
+import nz.co.market.items.enums.ItemSortField;
 import nz.co.market.items.enums.ItemStatus;
+import nz.co.market.items.enums.TradeMethod;
+import nz.co.market.items.enums.TrendingWindow;
+import nz.co.market.items.event.ItemChangedEvent;
 import nz.co.market.items.mapper.ItemMapper;
 import nz.co.market.items.repository.CategoryRepository;
+import nz.co.market.items.repository.ItemFacetCount;
 import nz.co.market.items.repository.ItemRepository;
 import nz.co.market.items.repository.TagRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,17 +53,28 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ItemService {
     
+    private static final int MAX_SCROLL_PAGE_SIZE = 100;
+    
     private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final TagRepository tagRepository;
     private final ItemMapper itemMapper;
+    private final ItemViewCounter itemViewCounter;
+    private final ItemListingLoader itemListingLoader;
+    private final ItemCaches itemCaches;
+    private final TrendingService trendingService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ItemFacetConfig itemFacetConfig;
     
     @Transactional
     public ItemResponse createItem(CreateItemRequest request, User seller) {
         log.info("Creating item: {} by user: {}", request.getTitle(), seller.getEmail());
         
+        // The principal may carry only the token's claims; the response maps the seller's profile
         Item item = Item.builder()
-                .seller(seller)
+                .seller(userRepository.getReferenceById(seller.getId()))
                 .title(request.getTitle())
                 .description(request.getDescription())
                 .priceNzd(request.getPriceNzd())
@@ -81,64 +114,208 @@ public class ItemService {
         }
         
         item = itemRepository.save(item);
+        eventPublisher.publishEvent(new ItemChangedEvent(item.getId()));
         return itemMapper.toResponse(item);
     }
     
-    @Transactional(readOnly = true)
+    // Not @Transactional: cache hits must not borrow a connection, misses open their own
     public ItemResponse getItemById(UUID id) {
-        Item item = itemRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Item not found"));
+        ItemResponse response = itemCaches.getItems().get(id, () -> transactionTemplate.execute(status -> {
+            Item item = itemRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Item not found"));
+            return itemMapper.toResponse(item);
+        }));
         
-        // Increment view count
-        item.setViewCount(item.getViewCount() + 1);
-        itemRepository.save(item);
+        // Counted on every read, cached or not; buffered and flushed in batches, see ItemViewCounter
+        itemViewCounter.recordView(id);
         
-        return itemMapper.toResponse(item);
+        return response;
     }
     
     @Transactional(readOnly = true)
-    public Page<ItemResponse> searchItems(ItemSearchRequest request) {
-        Sort sort = Sort.by(
-                Sort.Direction.fromString(request.getSortDirection()),
-                request.getSortBy()
-        );
+    public Page<ItemSummaryResponse> searchItems(ItemSearchRequest request) {
+        Page<Item> items = itemRepository.search(request, ItemStatus.ACTIVE);
+        Page<ItemSummaryResponse> page = toSummaryPage(items);
+        applyDistances(items.getContent(), page.getContent(), request);
+        return page;
+    }
+    
+    @Transactional(readOnly = true)
+    public ItemSearchResponse searchItemsWithFacets(ItemSearchRequest request) {
+        Page<ItemSummaryResponse> results = searchItems(request);
+        List<ItemFacetCount> counts = itemRepository.countFacets(
+                request, ItemStatus.ACTIVE, itemFacetConfig.getPriceBuckets());
         
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), sort);
+        return ItemSearchResponse.builder()
+                .results(results)
+                .facets(buildFacets(counts))
+                .build();
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<ItemSummaryResponse> scrollItems(ItemSearchRequest request) {
+        ItemSortField sortField = ItemSortField.from(request.getSortBy());
+        boolean ascending = "asc".equalsIgnoreCase(request.getSortDirection());
+        ItemCursor after = ItemCursor.decode(request.getCursor());
         
-        Page<Item> items = itemRepository.searchItems(
-                request.getKeyword(),
-                request.getCategoryId(),
-                request.getMinPrice(),
-                request.getMaxPrice(),
-                request.getCity(),
-                ItemStatus.ACTIVE,
-                pageable
-        );
+        if (after != null && (after.getSortField() != sortField || after.isAscending() != ascending)) {
+            throw new RuntimeException("Cursor does not match the requested sort order");
+        }
         
-        return items.map(itemMapper::toResponse);
+        // Fetch one extra row to learn whether another page exists without a count query
+        int size = Math.max(1, Math.min(request.getSize(), MAX_SCROLL_PAGE_SIZE));
+        boolean trigram = after != null && after.isTrigram();
+        List<Item> items = itemRepository.scroll(request, ItemStatus.ACTIVE, after, trigram, size + 1);
+        
+        if (after == null && items.isEmpty() && StringUtils.isNotBlank(request.getKeyword())) {
+            trigram = true;
+            items = itemRepository.scroll(request, ItemStatus.ACTIVE, null, true, size + 1);
+        }
+        
+        boolean hasNext = items.size() > size;
+        if (hasNext) {
+            items = items.subList(0, size);
+        }
+        
+        String nextCursor = hasNext
+                ? ItemCursor.after(items.get(items.size() - 1), sortField, ascending, trigram).encode()
+                : null;
+        
+        List<ItemSummaryResponse> content = itemListingLoader.toSummaries(items);
+        applyDistances(items, content, request);
+        
+        return CursorPage.<ItemSummaryResponse>builder()
+                .content(content)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .size(size)
+                .build();
     }
     
     @Transactional(readOnly = true)
-    public Page<ItemResponse> getUserItems(UUID userId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<Item> items = itemRepository.findBySellerIdAndStatus(userId, ItemStatus.ACTIVE, pageable);
-        return items.map(itemMapper::toResponse);
+    public CursorPage<ItemSummaryResponse> scrollUserItems(UUID userId, String cursor, int size) {
+        ItemSearchRequest request = new ItemSearchRequest();
+        request.setSellerId(userId);
+        request.setCursor(cursor);
+        request.setSize(size);
+        return scrollItems(request);
     }
     
     @Transactional(readOnly = true)
-    public List<ItemResponse> getLatestItems(int limit) {
-        List<Item> items = itemRepository.findLatestActiveItems(limit);
-        return items.stream()
-                .map(itemMapper::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<ItemSummaryResponse> scrollLatestItems(String cursor, int size) {
+        ItemSearchRequest request = new ItemSearchRequest();
+        request.setCursor(cursor);
+        request.setSize(size);
+        return scrollItems(request);
     }
     
     @Transactional(readOnly = true)
-    public List<ItemResponse> getMostViewedItems(int limit) {
-        List<Item> items = itemRepository.findMostViewedItems(limit);
-        return items.stream()
-                .map(itemMapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<ItemSummaryResponse> getUserItems(UUID userId, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+        Page<Item> items = itemRepository.findBySellerIdAndStatus(userId, ItemStatus.ACTIVE, pageable);
+        return toSummaryPage(items);
+    }
+    
+    public List<ItemSummaryResponse> getLatestItems(int limit) {
+        return itemCaches.getLatestItems().get(limit, () -> transactionTemplate.execute(status -> {
+            List<Item> items = itemRepository.findLatestActiveItems(limit);
+            return itemListingLoader.toSummaries(items);
+        }));
+    }
+    
+    public List<ItemSummaryResponse> getMostViewedItems(int limit) {
+        return itemCaches.getPopularItems().get(limit, () -> transactionTemplate.execute(status -> {
+            List<Item> items = itemRepository.findMostViewedItems(limit);
+            return itemListingLoader.toSummaries(items);
+        }));
+    }
+    
+    // Served from the in-memory trending snapshot; the database is only hit before the first refresh
+    public List<ItemSummaryResponse> getPopularItems(UUID categoryId, String city, String window, int limit) {
+        return trendingService.getTrending(TrendingWindow.from(window), categoryId, city, limit)
+                .orElseGet(() -> {
+                    if (categoryId == null && StringUtils.isBlank(city)) {
+                        return getMostViewedItems(limit);
+                    }
+                    ItemSearchRequest request = new ItemSearchRequest();
+                    request.setCategoryId(categoryId);
+                    request.setCity(city);
+                    request.setSortBy("viewCount");
+                    request.setSize(limit);
+                    return transactionTemplate.execute(status -> searchItems(request).getContent());
+                });
+    }
+    
+    public List<ItemResponse.CategoryDto> getCategories() {
+        return itemCaches.getCategories().get("all", () -> itemMapper.toCategoryDtos(
+                categoryRepository.findAll(Sort.by("sortOrder", "name"))));
+    }
+    
+    private ItemFacetsResponse buildFacets(List<ItemFacetCount> counts) {
+        Map<String, String> categoryNames = getCategories().stream()
+                .collect(Collectors.toMap(category -> category.getId().toString(), ItemResponse.CategoryDto::getName));
+        List<BigDecimal> bounds = itemFacetConfig.getPriceBuckets();
+        
+        return ItemFacetsResponse.builder()
+                .categories(facetValues(counts, ItemFacetCount.Facet.CATEGORY,
+                        Comparator.comparingLong(ItemFacetCount::count).reversed(),
+                        value -> value == null ? null : value.toString(),
+                        value -> value == null ? "Uncategorised" : categoryNames.getOrDefault(value.toString(), value.toString())))
+                .conditions(facetValues(counts, ItemFacetCount.Facet.CONDITION,
+                        Comparator.comparing(count -> ItemCondition.valueOf(count.value().toString())),
+                        Object::toString, Object::toString))
+                .tradeMethods(facetValues(counts, ItemFacetCount.Facet.TRADE_METHOD,
+                        Comparator.comparing(count -> TradeMethod.valueOf(count.value().toString())),
+                        Object::toString, Object::toString))
+                .priceRanges(facetValues(counts, ItemFacetCount.Facet.PRICE_BUCKET,
+                        Comparator.comparingInt(count -> ((Number) count.value()).intValue()),
+                        value -> priceRange(bounds, ((Number) value).intValue()),
+                        value -> priceRange(bounds, ((Number) value).intValue())))
+                .build();
+    }
+    
+    private List<ItemFacetsResponse.FacetValue> facetValues(List<ItemFacetCount> counts, ItemFacetCount.Facet facet,
+                                                            Comparator<ItemFacetCount> order,
+                                                            Function<Object, String> value, Function<Object, String> label) {
+        return counts.stream()
+                .filter(count -> count.facet() == facet)
+                .sorted(order)
+                .limit(itemFacetConfig.getMaxValues())
+                .map(count -> ItemFacetsResponse.FacetValue.builder()
+                        .value(value.apply(count.value()))
+                        .label(label.apply(count.value()))
+                        .count(count.count())
+                        .build())
+                .toList();
+    }
+    
+    // width_bucket numbering: bucket n covers [bounds[n-1], bounds[n]), the last one is open-ended
+    private String priceRange(List<BigDecimal> bounds, int bucket) {
+        if (bucket <= 0) {
+            return "<" + bounds.get(0).toPlainString();
+        }
+        if (bucket >= bounds.size()) {
+            return bounds.get(bounds.size() - 1).toPlainString() + "+";
+        }
+        return bounds.get(bucket - 1).toPlainString() + "-" + bounds.get(bucket).toPlainString();
+    }
+    
+    // Summaries are in the same order as the items they were mapped from
+    private void applyDistances(List<Item> items, List<ItemSummaryResponse> summaries, ItemSearchRequest request) {
+        if (!request.hasLocation()) {
+            return;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            double distance = GeoUtils.haversineKm(request.getLat(), request.getLng(),
+                    item.getLat().doubleValue(), item.getLng().doubleValue());
+            summaries.get(i).setDistanceKm(Math.round(distance * 100) / 100.0);
+        }
+    }
+    
+    private Page<ItemSummaryResponse> toSummaryPage(Page<Item> items) {
+        List<ItemSummaryResponse> content = itemListingLoader.toSummaries(items.getContent());
+        return new PageImpl<>(content, items.getPageable(), items.getTotalElements());
     }
     
     @Transactional
@@ -193,6 +370,7 @@ public class ItemService {
         }
         
         item = itemRepository.save(item);
+        eventPublisher.publishEvent(new ItemChangedEvent(item.getId()));
         return itemMapper.toResponse(item);
     }
     
@@ -207,5 +385,6 @@ public class ItemService {
         
         item.setStatus(ItemStatus.INACTIVE);
         itemRepository.save(item);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
     }
 }
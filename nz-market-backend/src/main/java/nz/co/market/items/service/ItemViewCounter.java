@@ -0,0 +1,150 @@
+package nz.co.market.items.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.items.config.ItemViewConfig;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ItemViewCounter {
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemViewConfig itemViewConfig;
+    private final MeterRegistry meterRegistry;
+    
+    private final ConcurrentHashMap<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    
+    private Counter recordedCounter;
+    private Counter flushedCounter;
+    private Counter failedCounter;
+    private Timer flushTimer;
+    
+    @PostConstruct
+    void registerMetrics() {
+        if (!itemViewConfig.getMetricsEnabled()) {
+            return;
+        }
+        recordedCounter = meterRegistry.counter("items.views.recorded");
+        flushedCounter = meterRegistry.counter("items.views.flushed");
+        failedCounter = meterRegistry.counter("items.views.flush.failures");
+        flushTimer = meterRegistry.timer("items.views.flush");
+        Gauge.builder("items.views.pending", pending, Map::size).register(meterRegistry);
+    }
+    
+    public void recordView(UUID itemId) {
+        // Hot items already have an adder; bump it without taking the map's bin lock
+        LongAdder adder = pending.get(itemId);
+        if (adder != null) {
+            adder.increment();
+        }
+        // drain() only removes an adder whose sum is zero, so if it is no longer mapped the increment
+        // above came after the removal and was lost. Incremented inside compute so this one can't be.
+        if (adder == null || pending.get(itemId) != adder) {
+            pending.compute(itemId, (id, current) -> {
+                LongAdder counter = current != null ? current : new LongAdder();
+                counter.increment();
+                return counter;
+            });
+        }
+        if (recordedCounter != null) {
+            recordedCounter.increment();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.items.views.flush-interval:5000}")
+    public void flush() {
+        if (pending.isEmpty() || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            if (flushTimer != null) {
+                flushTimer.record(this::flushPending);
+            } else {
+                flushPending();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+    
+    private void flushPending() {
+        List<Map.Entry<UUID, Long>> deltas = drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        // Lock rows in a stable order so concurrent flushes from other nodes cannot deadlock
+        deltas.sort(Map.Entry.comparingByKey());
+        
+        int batchSize = itemViewConfig.getBatchSize();
+        for (int start = 0; start < deltas.size(); start += batchSize) {
+            List<Map.Entry<UUID, Long>> batch = deltas.subList(start, Math.min(start + batchSize, deltas.size()));
+            try {
+                writeBatch(batch);
+                if (flushedCounter != null) {
+                    flushedCounter.increment(batch.size());
+                }
+            } catch (Exception e) {
+                log.error("Failed to flush {} item view counts, re-queueing", batch.size(), e);
+                if (failedCounter != null) {
+                    failedCounter.increment();
+                }
+                batch.forEach(entry -> pending.computeIfAbsent(entry.getKey(), id -> new LongAdder()).add(entry.getValue()));
+            }
+        }
+    }
+    
+    private List<Map.Entry<UUID, Long>> drain() {
+        List<Map.Entry<UUID, Long>> deltas = new ArrayList<>();
+        for (Map.Entry<UUID, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                deltas.add(Map.entry(entry.getKey(), delta));
+            } else {
+                // Idle for a whole interval; drop it so the map only holds recently viewed items.
+                // Atomic with recordView's compute, so a view arriving meanwhile keeps the entry.
+                pending.computeIfPresent(entry.getKey(), (id, adder) -> adder.sum() == 0 ? null : adder);
+            }
+        }
+        return deltas;
+    }
+    
+    private void writeBatch(List<Map.Entry<UUID, Long>> batch) {
+        String values = String.join(", ", Collections.nCopies(batch.size(), "(CAST(? AS uuid), CAST(? AS integer))"));
+        String sql = "UPDATE items AS i SET view_count = i.view_count + v.delta " +
+                "FROM (VALUES " + values + ") AS v(id, delta) " +
+                "WHERE i.id = v.id";
+        
+        Object[] args = new Object[batch.size() * 2];
+        for (int i = 0; i < batch.size(); i++) {
+            args[i * 2] = batch.get(i).getKey();
+            args[i * 2 + 1] = batch.get(i).getValue();
+        }
+        jdbcTemplate.update(sql, args);
+    }
+}
@@ -0,0 +1,170 @@
+package nz.co.market.items.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.items.config.SuggestConfig;
+import nz.co.market.items.dto.SuggestionResponse;
+import nz.co.market.items.event.ItemChangedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestService {
+    
+    private static final double CATEGORY_BOOST = 10;
+    private static final double TAG_BOOST = 5;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final SuggestConfig suggestConfig;
+    private final MeterRegistry meterRegistry;
+    
+    // Items changed since the trie was built; merged into every lookup until the next rebuild
+    private final SuggestionOverlay overlay = new SuggestionOverlay();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    
+    private volatile SuggestionIndex index = SuggestionIndex.empty();
+    // Title of each item as indexed, so a renamed or removed item's old title can be hidden
+    private volatile Map<UUID, String> indexedTitles = Map.of();
+    
+    private Timer rebuildTimer;
+    
+    @PostConstruct
+    void registerMetrics() {
+        rebuildTimer = meterRegistry.timer("items.suggest.rebuild");
+        Gauge.builder("items.suggest.entries", this, service -> service.index.size()).register(meterRegistry);
+        Gauge.builder("items.suggest.overlay", overlay, SuggestionOverlay::size).register(meterRegistry);
+    }
+    
+    public List<SuggestionResponse> suggest(String query, int limit) {
+        String key = SuggestionIndex.normalize(query);
+        int capped = Math.max(1, Math.min(limit, suggestConfig.getTopK()));
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        if (overlay.isEmpty()) {
+            return index.lookup(key, capped).stream().map(SuggestionIndex.Scored::suggestion).toList();
+        }
+        
+        List<SuggestionIndex.Scored> candidates = new ArrayList<>(overlay.lookup(key, suggestConfig.getMaxDepth(), capped));
+        // Ask the trie for its full list so hidden entries do not leave the response short
+        candidates.addAll(index.lookup(key, suggestConfig.getTopK()));
+        
+        Map<String, SuggestionIndex.Scored> merged = new HashMap<>();
+        for (SuggestionIndex.Scored candidate : candidates) {
+            SuggestionResponse suggestion = candidate.suggestion();
+            boolean stale = suggestion.getType() == SuggestionResponse.Type.TITLE
+                    && overlay.hides(candidate.normalized());
+            if (!stale) {
+                merged.merge(suggestion.getType() + "|" + candidate.normalized(), candidate,
+                        (a, b) -> a.weight() >= b.weight() ? a : b);
+            }
+        }
+        
+        return merged.values().stream()
+                .sorted(Comparator.comparingDouble(SuggestionIndex.Scored::weight).reversed())
+                .limit(capped)
+                .map(SuggestionIndex.Scored::suggestion)
+                .toList();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.items.suggest.rebuild-interval:300000}")
+    public void rebuild() {
+        if (!suggestConfig.getEnabled() || !rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            rebuildTimer.record(this::rebuildIndex);
+        } catch (Exception e) {
+            // Keep serving the previous trie; the next run retries
+            log.error("Failed to rebuild suggestion index", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    // After commit so the row read below is the changed one
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        if (!suggestConfig.getEnabled()) {
+            return;
+        }
+        if (overlay.size() >= suggestConfig.getMaxOverlay() && !overlay.contains(event.itemId())) {
+            // Picked up by the next rebuild instead
+            meterRegistry.counter("items.suggest.overlay.dropped").increment();
+            return;
+        }
+        
+        jdbcTemplate.query("SELECT title, status, view_count FROM items WHERE id = ?",
+                rs -> {
+                    track(event.itemId(), rs.getString("title"), "ACTIVE".equals(rs.getString("status")),
+                            rs.getLong("view_count"));
+                },
+                event.itemId());
+    }
+    
+    // Puts an item's current state in the overlay, hiding the title the trie has for it if that changed
+    void track(UUID itemId, String title, boolean active, long viewCount) {
+        String normalized = SuggestionIndex.normalize(title);
+        String previous = indexedTitles.get(itemId);
+        String replaced = previous != null && (!active || !previous.equals(normalized)) ? previous : null;
+        Set<String> keys = active ? SuggestionIndex.keysFor(normalized, suggestConfig.getMaxDepth()) : Set.of();
+        overlay.put(itemId, new SuggestionOverlay.Change(title, normalized, keys, titleWeight(viewCount), active,
+                replaced, System.nanoTime()));
+    }
+    
+    private void rebuildIndex() {
+        long startedAt = System.nanoTime();
+        SuggestionIndex.Builder builder = new SuggestionIndex.Builder(suggestConfig.getTopK(), suggestConfig.getMaxDepth());
+        Map<UUID, String> titles = new HashMap<>();
+        
+        jdbcTemplate.query("SELECT id, title, view_count FROM items WHERE status = 'ACTIVE'", rs -> {
+            String title = rs.getString("title");
+            titles.put(rs.getObject("id", UUID.class), SuggestionIndex.normalize(title));
+            builder.add(title, SuggestionResponse.Type.TITLE, null, titleWeight(rs.getLong("view_count")));
+        });
+        jdbcTemplate.query("SELECT c.id, c.name, COUNT(i.id) AS items FROM categories c " +
+                "LEFT JOIN items i ON i.category_id = c.id AND i.status = 'ACTIVE' GROUP BY c.id, c.name", rs -> {
+            builder.add(rs.getString("name"), SuggestionResponse.Type.CATEGORY, rs.getObject("id", UUID.class),
+                    CATEGORY_BOOST + rs.getLong("items"));
+        });
+        jdbcTemplate.query("SELECT t.id, t.name, COUNT(i.id) AS items FROM tags t " +
+                "JOIN item_tags it ON it.tag_id = t.id " +
+                "JOIN items i ON i.id = it.item_id AND i.status = 'ACTIVE' GROUP BY t.id, t.name", rs -> {
+            builder.add(rs.getString("name"), SuggestionResponse.Type.TAG, rs.getObject("id", UUID.class),
+                    TAG_BOOST + rs.getLong("items"));
+        });
+        
+        install(builder.build(), titles, startedAt);
+        log.debug("Suggestion index rebuilt with {} entries", index.size());
+    }
+    
+    // Swaps in a trie built from the rows read since startedAt
+    void install(SuggestionIndex built, Map<UUID, String> titles, long startedAt) {
+        index = built;
+        indexedTitles = titles;
+        // Changes that landed while the queries ran may be missing from the new trie; keep those
+        overlay.removeChangedBefore(startedAt);
+    }
+    
+    private static double titleWeight(long viewCount) {
+        return 1 + Math.log1p(viewCount);
+    }
+}
@@ -0,0 +1,256 @@
+package nz.co.market.items.service;
+
+import nz.co.market.items.dto.SuggestionResponse;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Immutable prefix trie over normalised suggestion keys. Every node stores its best completions
+// (entry indexes, highest weight first), so a lookup is one walk down the query's characters
+// and a copy of at most topK entries; nothing below the node is visited.
+class SuggestionIndex {
+    
+    // Besides the start of the text, completions also match from the start of these later words
+    private static final int MAX_WORD_STARTS = 4;
+    // Chinese/Japanese titles have no spaces; index from each of the first few characters instead
+    private static final int MAX_CJK_STARTS = 6;
+    
+    private final Node root;
+    private final Entry[] entries;
+    private final int maxDepth;
+    
+    private SuggestionIndex(Node root, Entry[] entries, int maxDepth) {
+        this.root = root;
+        this.entries = entries;
+        this.maxDepth = maxDepth;
+    }
+    
+    static SuggestionIndex empty() {
+        return new Builder(1, 1).build();
+    }
+    
+    // NFKC folds full-width forms and compatibility characters (common in CJK input) to their
+    // canonical shape before lower-casing, so "ＩＰＨＯＮＥ" and "iphone" share a key
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+        return normalized.replaceAll("\\s+", " ");
+    }
+    
+    int size() {
+        return entries.length;
+    }
+    
+    List<Scored> lookup(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        
+        Node node = root;
+        int depth = Math.min(key.length(), maxDepth);
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        
+        // Keys are truncated at maxDepth; past it the node's completions are checked directly
+        boolean verify = key.length() > maxDepth;
+        List<Scored> results = new ArrayList<>(Math.min(limit, node.top.length));
+        for (int index : node.top) {
+            if (results.size() == limit) {
+                break;
+            }
+            Entry entry = entries[index];
+            if (!verify || entry.normalized.contains(key)) {
+                results.add(new Scored(entry.toResponse(), entry.normalized, entry.weight));
+            }
+        }
+        return results;
+    }
+    
+    // Keys under which a text is reachable: the whole text, each later word, and for CJK text
+    // each of its first characters, all truncated to maxDepth
+    static Set<String> keysFor(String normalized, int maxDepth) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(truncate(normalized, maxDepth));
+        
+        int wordStarts = 0;
+        int cjkStarts = 0;
+        for (int i = 1; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (normalized.charAt(i - 1) == ' ' && c != ' ' && wordStarts < MAX_WORD_STARTS) {
+                keys.add(truncate(normalized.substring(i), maxDepth));
+                wordStarts++;
+            } else if (isCjk(c) && cjkStarts < MAX_CJK_STARTS) {
+                keys.add(truncate(normalized.substring(i), maxDepth));
+                cjkStarts++;
+            }
+        }
+        return keys;
+    }
+    
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+    
+    private static String truncate(String key, int maxDepth) {
+        return key.length() > maxDepth ? key.substring(0, maxDepth) : key;
+    }
+    
+    record Scored(SuggestionResponse suggestion, String normalized, double weight) {
+    }
+    
+    private record Entry(String text, String normalized, SuggestionResponse.Type type, UUID id, double weight) {
+        
+        SuggestionResponse toResponse() {
+            return SuggestionResponse.builder()
+                    .text(text)
+                    .type(type)
+                    .id(id)
+                    .build();
+        }
+    }
+    
+    private static final class Node {
+        
+        private static final Node[] NO_CHILDREN = new Node[0];
+        
+        private final char[] labels;
+        private final Node[] children;
+        private final int[] top;
+        
+        private Node(char[] labels, Node[] children, int[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.top = top;
+        }
+        
+        private Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i < 0 ? null : children[i];
+        }
+    }
+    
+    static final class Builder {
+        
+        private final int topK;
+        private final int maxDepth;
+        private final Map<String, Integer> entryIndex = new HashMap<>();
+        private final List<String> texts = new ArrayList<>();
+        private final List<String> normalizedTexts = new ArrayList<>();
+        private final List<SuggestionResponse.Type> types = new ArrayList<>();
+        private final List<UUID> ids = new ArrayList<>();
+        private final List<Double> weights = new ArrayList<>();
+        
+        Builder(int topK, int maxDepth) {
+            this.topK = topK;
+            this.maxDepth = maxDepth;
+        }
+        
+        // Equal texts of the same type collapse into one suggestion with the summed weight, so a
+        // title listed by many sellers ranks above a one-off
+        Builder add(String text, SuggestionResponse.Type type, UUID id, double weight) {
+            String normalized = normalize(text);
+            if (normalized.isEmpty()) {
+                return this;
+            }
+            String dedupKey = type + "|" + normalized;
+            Integer existing = entryIndex.get(dedupKey);
+            if (existing != null) {
+                weights.set(existing, weights.get(existing) + weight);
+                return this;
+            }
+            entryIndex.put(dedupKey, texts.size());
+            texts.add(text.trim());
+            normalizedTexts.add(normalized);
+            types.add(type);
+            ids.add(id);
+            weights.add(weight);
+            return this;
+        }
+        
+        SuggestionIndex build() {
+            Entry[] entries = new Entry[texts.size()];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = new Entry(texts.get(i), normalizedTexts.get(i), types.get(i), ids.get(i), weights.get(i));
+            }
+            
+            // Visiting entries heaviest first means each node's list fills in rank order and is
+            // complete once it holds topK distinct entries
+            Integer[] order = new Integer[entries.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(entries[b].weight, entries[a].weight));
+            
+            MutableNode root = new MutableNode();
+            for (int index : order) {
+                for (String key : keysFor(entries[index].normalized, maxDepth)) {
+                    MutableNode node = root;
+                    node.offer(index, topK);
+                    for (int i = 0; i < key.length(); i++) {
+                        node = node.children.computeIfAbsent(key.charAt(i), c -> new MutableNode());
+                        node.offer(index, topK);
+                    }
+                }
+            }
+            return new SuggestionIndex(root.freeze(), entries, maxDepth);
+        }
+    }
+    
+    private static final class MutableNode {
+        
+        private final Map<Character, MutableNode> children = new HashMap<>(4);
+        private int[] top = new int[0];
+        
+        private void offer(int index, int topK) {
+            if (top.length == topK) {
+                return;
+            }
+            for (int existing : top) {
+                if (existing == index) {
+                    return;
+                }
+            }
+            top = Arrays.copyOf(top, top.length + 1);
+            top[top.length - 1] = index;
+        }
+        
+        private Node freeze() {
+            if (children.isEmpty()) {
+                return new Node(new char[0], Node.NO_CHILDREN, top);
+            }
+            char[] labels = new char[children.size()];
+            int i = 0;
+            for (char c : children.keySet()) {
+                labels[i++] = c;
+            }
+            Arrays.sort(labels);
+            Node[] frozen = new Node[labels.length];
+            for (int j = 0; j < labels.length; j++) {
+                frozen[j] = children.get(labels[j]).freeze();
+            }
+            return new Node(labels, frozen, top);
+        }
+    }
+}
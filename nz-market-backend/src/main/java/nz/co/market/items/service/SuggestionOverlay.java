@@ -0,0 +1,159 @@
+package nz.co.market.items.service;
+
+import nz.co.market.items.dto.SuggestionResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Items changed since the trie was built. Each change is indexed when it is added, under the same
+// keys the trie would use, so a lookup reads only the keys starting with the query rather than
+// every change. Changes are added and removed under the instance lock; lookups don't take it, so
+// one racing a change may still see the item as it was.
+class SuggestionOverlay {
+    
+    private final Map<UUID, Change> changes = new ConcurrentHashMap<>();
+    // Trie key -> active changes reachable under it, sorted so a prefix is one range. The lists are
+    // replaced rather than modified, so lookups can read them without the lock.
+    private final NavigableMap<String, List<Change>> byKey = new ConcurrentSkipListMap<>();
+    // Indexed title -> changes that moved away from it
+    private final Map<String, Set<UUID>> replaced = new ConcurrentHashMap<>();
+    // Title -> active changes that use it
+    private final Map<String, Set<UUID>> live = new ConcurrentHashMap<>();
+    
+    record Change(String title, String normalized, Set<String> keys, double weight, boolean active,
+                  String replacedTitle, long changedAt) {
+    }
+    
+    int size() {
+        return changes.size();
+    }
+    
+    boolean isEmpty() {
+        return changes.isEmpty();
+    }
+    
+    boolean contains(UUID itemId) {
+        return changes.containsKey(itemId);
+    }
+    
+    synchronized void put(UUID itemId, Change change) {
+        Change previous = changes.put(itemId, change);
+        if (previous != null) {
+            unindex(itemId, previous);
+        }
+        if (change.active()) {
+            change.keys().forEach(key -> byKey.merge(key, List.of(change), SuggestionOverlay::concat));
+            add(live, change.normalized(), itemId);
+        }
+        if (change.replacedTitle() != null) {
+            add(replaced, change.replacedTitle(), itemId);
+        }
+    }
+    
+    // Drops the changes a rebuild that started at the given time has picked up
+    synchronized void removeChangedBefore(long time) {
+        Iterator<Map.Entry<UUID, Change>> iterator = changes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Change> entry = iterator.next();
+            if (entry.getValue().changedAt() < time) {
+                iterator.remove();
+                unindex(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+    
+    // The heaviest active changes the normalised query finds, at most one per title, as
+    // SuggestionIndex.lookup would. Only the best few are kept while the range is read, so a short
+    // query matching most changes doesn't build a suggestion for each of them.
+    List<SuggestionIndex.Scored> lookup(String key, int maxDepth, int limit) {
+        String prefix = key.length() > maxDepth ? key.substring(0, maxDepth) : key;
+        PriorityQueue<Change> best = new PriorityQueue<>(Comparator.comparingDouble(Change::weight));
+        Map<String, Change> bestByTitle = new HashMap<>();
+        for (List<Change> indexed : byKey.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            // A change reachable under several keys in range is met again as its own title
+            for (Change change : indexed) {
+                // Keys are truncated at maxDepth; past it the title is checked directly
+                if (key.length() > maxDepth && !change.normalized().contains(key)) {
+                    continue;
+                }
+                Change same = bestByTitle.get(change.normalized());
+                if (same != null) {
+                    if (change.weight() > same.weight()) {
+                        best.remove(same);
+                        best.add(change);
+                        bestByTitle.put(change.normalized(), change);
+                    }
+                } else if (best.size() < limit || change.weight() > best.peek().weight()) {
+                    if (best.size() == limit) {
+                        bestByTitle.remove(best.poll().normalized());
+                    }
+                    best.add(change);
+                    bestByTitle.put(change.normalized(), change);
+                }
+            }
+        }
+        
+        List<SuggestionIndex.Scored> results = new ArrayList<>(best.size());
+        for (Change change : best) {
+            results.add(new SuggestionIndex.Scored(SuggestionResponse.builder()
+                    .text(change.title())
+                    .type(SuggestionResponse.Type.TITLE)
+                    .build(), change.normalized(), change.weight()));
+        }
+        return results;
+    }
+    
+    // True when a title the trie still holds was renamed away from or deactivated, and no other
+    // changed item uses it
+    boolean hides(String normalized) {
+        return replaced.containsKey(normalized) && !live.containsKey(normalized);
+    }
+    
+    private void unindex(UUID itemId, Change change) {
+        if (change.active()) {
+            change.keys().forEach(key -> byKey.computeIfPresent(key, (k, indexed) -> without(indexed, change)));
+            remove(live, change.normalized(), itemId);
+        }
+        if (change.replacedTitle() != null) {
+            remove(replaced, change.replacedTitle(), itemId);
+        }
+    }
+    
+    private static List<Change> concat(List<Change> indexed, List<Change> added) {
+        List<Change> changes = new ArrayList<>(indexed.size() + added.size());
+        changes.addAll(indexed);
+        changes.addAll(added);
+        return List.copyOf(changes);
+    }
+    
+    private static List<Change> without(List<Change> indexed, Change removed) {
+        List<Change> changes = new ArrayList<>(indexed.size());
+        for (Change change : indexed) {
+            if (change != removed) {
+                changes.add(change);
+            }
+        }
+        return changes.isEmpty() ? null : List.copyOf(changes);
+    }
+    
+    private static void add(Map<String, Set<UUID>> index, String key, UUID itemId) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(itemId);
+    }
+    
+    private static void remove(Map<String, Set<UUID>> index, String key, UUID itemId) {
+        index.computeIfPresent(key, (k, itemIds) -> {
+            itemIds.remove(itemId);
+            return itemIds.isEmpty() ? null : itemIds;
+        });
+    }
+}
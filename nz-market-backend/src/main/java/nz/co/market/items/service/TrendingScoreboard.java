@@ -0,0 +1,187 @@
+package nz.co.market.items.service;
+
+import nz.co.market.items.enums.TrendingWindow;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+
+// Time-decayed popularity per item, one score per window. Not thread-safe: owned by the
+// TrendingService refresh, which publishes immutable rankings built from it.
+class TrendingScoreboard {
+    
+    static final String GLOBAL = "global";
+    
+    private static final TrendingWindow[] WINDOWS = TrendingWindow.values();
+    
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final double viewWeight;
+    private Instant now;
+    
+    TrendingScoreboard(Instant start, double viewWeight) {
+        this.now = start;
+        this.viewWeight = viewWeight;
+    }
+    
+    static String categoryKey(UUID categoryId) {
+        return "category:" + categoryId;
+    }
+    
+    static String cityKey(String city) {
+        return "city:" + city.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    // Takes the cityKey, as stored on entries
+    static String categoryCityKey(UUID categoryId, String cityKey) {
+        return categoryKey(categoryId) + "|" + cityKey;
+    }
+    
+    int size() {
+        return entries.size();
+    }
+    
+    Instant getNow() {
+        return now;
+    }
+    
+    // A deep copy to apply a refresh to, so a refresh that fails halfway leaves this one untouched
+    TrendingScoreboard copy() {
+        TrendingScoreboard copy = new TrendingScoreboard(now, viewWeight);
+        entries.forEach((itemId, entry) -> copy.entries.put(itemId, entry.copy()));
+        return copy;
+    }
+    
+    // Decays every score to the new time; must be called before applying that tick's activity
+    void advanceTo(Instant time) {
+        if (!time.isAfter(now)) {
+            return;
+        }
+        double[] factors = new double[WINDOWS.length];
+        for (int w = 0; w < WINDOWS.length; w++) {
+            factors[w] = decay(Duration.between(now, time), WINDOWS[w]);
+        }
+        for (Entry entry : entries.values()) {
+            for (int w = 0; w < WINDOWS.length; w++) {
+                entry.scores[w] *= factors[w];
+            }
+        }
+        now = time;
+    }
+    
+    // Views only arrive as the cumulative items.view_count, so the score takes the growth since
+    // the previous tick. An item seen for the first time has no history; its existing views are
+    // credited as if they happened when it was listed.
+    void updateItem(UUID itemId, UUID categoryId, String city, long viewCount, Instant listedAt) {
+        Entry entry = entries.get(itemId);
+        if (entry == null) {
+            entry = new Entry(itemId);
+            entries.put(itemId, entry);
+            entry.lastViewCount = viewCount;
+            add(entry, viewCount * viewWeight, listedAt);
+        } else if (viewCount > entry.lastViewCount) {
+            add(entry, (viewCount - entry.lastViewCount) * viewWeight, now);
+            entry.lastViewCount = viewCount;
+        } else {
+            entry.lastViewCount = viewCount;
+        }
+        entry.categoryId = categoryId;
+        entry.city = city == null || city.isBlank() ? null : cityKey(city);
+    }
+    
+    // Activity on items that are not tracked (inactive, or listed after the scan) is dropped
+    void recordActivity(UUID itemId, double weight, Instant at) {
+        Entry entry = entries.get(itemId);
+        if (entry != null) {
+            add(entry, weight, at);
+        }
+    }
+    
+    void retainOnly(Set<UUID> itemIds) {
+        entries.keySet().retainAll(itemIds);
+    }
+    
+    double score(UUID itemId, TrendingWindow window) {
+        Entry entry = entries.get(itemId);
+        return entry == null ? 0 : entry.scores[window.ordinal()];
+    }
+    
+    // Top k per list in one pass with a bounded min-heap per list: O(n log k) rather than sorting everything
+    Map<String, List<UUID>> rank(TrendingWindow window, int k) {
+        int w = window.ordinal();
+        Comparator<Entry> byScore = Comparator.<Entry>comparingDouble(e -> e.scores[w])
+                .thenComparing(e -> e.itemId, Comparator.reverseOrder());
+        
+        Map<String, PriorityQueue<Entry>> heaps = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            offer(heaps, GLOBAL, entry, byScore, k);
+            if (entry.categoryId != null) {
+                offer(heaps, categoryKey(entry.categoryId), entry, byScore, k);
+            }
+            if (entry.city != null) {
+                offer(heaps, entry.city, entry, byScore, k);
+            }
+            if (entry.categoryId != null && entry.city != null) {
+                offer(heaps, categoryCityKey(entry.categoryId, entry.city), entry, byScore, k);
+            }
+        }
+        
+        Map<String, List<UUID>> rankings = new HashMap<>();
+        heaps.forEach((key, heap) -> {
+            List<Entry> ranked = new ArrayList<>(heap);
+            ranked.sort(byScore.reversed());
+            rankings.put(key, ranked.stream().map(e -> e.itemId).toList());
+        });
+        return rankings;
+    }
+    
+    private void add(Entry entry, double weight, Instant at) {
+        Duration age = at.isBefore(now) ? Duration.between(at, now) : Duration.ZERO;
+        for (int w = 0; w < WINDOWS.length; w++) {
+            entry.scores[w] += weight * decay(age, WINDOWS[w]);
+        }
+    }
+    
+    private static void offer(Map<String, PriorityQueue<Entry>> heaps, String key, Entry entry,
+                              Comparator<Entry> byScore, int k) {
+        PriorityQueue<Entry> heap = heaps.computeIfAbsent(key, ignored -> new PriorityQueue<>(byScore));
+        if (heap.size() < k) {
+            heap.add(entry);
+        } else if (byScore.compare(entry, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+    
+    private static double decay(Duration age, TrendingWindow window) {
+        return Math.pow(0.5, (double) age.toMillis() / window.getHalfLife().toMillis());
+    }
+    
+    private static final class Entry {
+        private final UUID itemId;
+        private final double[] scores = new double[WINDOWS.length];
+        private long lastViewCount;
+        private UUID categoryId;
+        private String city;
+        
+        private Entry(UUID itemId) {
+            this.itemId = itemId;
+        }
+        
+        private Entry copy() {
+            Entry copy = new Entry(itemId);
+            System.arraycopy(scores, 0, copy.scores, 0, scores.length);
+            copy.lastViewCount = lastViewCount;
+            copy.categoryId = categoryId;
+            copy.city = city;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package nz.co.market.items.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nz.co.market.items.config.TrendingConfig;
+import nz.co.market.items.dto.ItemSummaryResponse;
+import nz.co.market.items.enums.TrendingWindow;
+import nz.co.market.items.repository.ItemRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrendingService {
+    
+    private static final int LOAD_CHUNK = 500;
+    // Cold start looks back far enough that the slowest window has decayed to ~3%
+    private static final Duration COLD_START_LOOKBACK = TrendingWindow.MONTH.getHalfLife().multipliedBy(5);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemRepository itemRepository;
+    private final ItemListingLoader itemListingLoader;
+    private final TransactionTemplate transactionTemplate;
+    private final TrendingConfig trendingConfig;
+    private final MeterRegistry meterRegistry;
+    
+    // Replaced by the refresh thread only once a refresh has fully succeeded
+    private volatile TrendingScoreboard scoreboard;
+    
+    // Swapped whole on every refresh, so readers never see a half-built ranking
+    private volatile Map<TrendingWindow, Map<String, List<ItemSummaryResponse>>> snapshot;
+    
+    private Timer refreshTimer;
+    
+    @PostConstruct
+    void registerMetrics() {
+        refreshTimer = meterRegistry.timer("items.trending.refresh");
+        Gauge.builder("items.trending.tracked", this, service -> service.scoreboard == null ? 0 : service.scoreboard.size())
+                .register(meterRegistry);
+    }
+    
+    // Empty until the first refresh has completed (or when disabled); callers fall back to the database
+    public Optional<List<ItemSummaryResponse>> getTrending(TrendingWindow window, UUID categoryId, String city, int limit) {
+        Map<TrendingWindow, Map<String, List<ItemSummaryResponse>>> current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        
+        boolean hasCity = city != null && !city.isBlank();
+        String key;
+        if (categoryId != null && hasCity) {
+            key = TrendingScoreboard.categoryCityKey(categoryId, TrendingScoreboard.cityKey(city));
+        } else if (categoryId != null) {
+            key = TrendingScoreboard.categoryKey(categoryId);
+        } else if (hasCity) {
+            key = TrendingScoreboard.cityKey(city);
+        } else {
+            key = TrendingScoreboard.GLOBAL;
+        }
+        
+        List<ItemSummaryResponse> ranked = current.get(window).getOrDefault(key, List.of());
+        return Optional.of(ranked.subList(0, Math.max(0, Math.min(limit, ranked.size()))));
+    }
+    
+    @Scheduled(fixedDelayString = "${app.items.trending.refresh-interval:60000}", initialDelay = 5000)
+    public void refresh() {
+        if (!trendingConfig.getEnabled()) {
+            return;
+        }
+        try {
+            refreshTimer.record(this::rebuild);
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; the next tick retries
+            log.error("Failed to refresh trending items", e);
+        }
+    }
+    
+    // Works on a copy of the scoreboard; the copy and the snapshot built from it replace the
+    // current ones together at the end. The scan covers every active item each time because views
+    // are only known as the cumulative items.view_count.
+    private void rebuild() {
+        Instant now = Instant.now();
+        Instant since;
+        TrendingScoreboard scoreboard;
+        if (this.scoreboard == null) {
+            scoreboard = new TrendingScoreboard(now, trendingConfig.getViewWeight());
+            since = now.minus(COLD_START_LOOKBACK);
+        } else {
+            scoreboard = this.scoreboard.copy();
+            since = scoreboard.getNow();
+            scoreboard.advanceTo(now);
+        }
+        
+        Set<UUID> active = new HashSet<>();
+        jdbcTemplate.query(
+                "SELECT id, category_id, location_city, view_count, created_at FROM items WHERE status = 'ACTIVE'",
+                rs -> {
+                    UUID id = rs.getObject("id", UUID.class);
+                    active.add(id);
+                    scoreboard.updateItem(id, rs.getObject("category_id", UUID.class), rs.getString("location_city"),
+                            rs.getLong("view_count"), rs.getTimestamp("created_at").toInstant());
+                });
+        scoreboard.retainOnly(active);
+        
+        // Only activity since the previous tick; older activity is already in the decayed scores
+        recordActivity(scoreboard, "SELECT item_id, created_at FROM favorites WHERE created_at > ? AND created_at <= ?",
+                since, now, trendingConfig.getFavoriteWeight());
+        recordActivity(scoreboard, "SELECT item_id, created_at FROM conversations WHERE created_at > ? AND created_at <= ?",
+                since, now, trendingConfig.getConversationWeight());
+        
+        Map<TrendingWindow, Map<String, List<UUID>>> rankings = new EnumMap<>(TrendingWindow.class);
+        Set<UUID> ranked = new HashSet<>();
+        for (TrendingWindow window : TrendingWindow.values()) {
+            Map<String, List<UUID>> lists = scoreboard.rank(window, trendingConfig.getTopK());
+            lists.values().forEach(ranked::addAll);
+            rankings.put(window, lists);
+        }
+        
+        Map<UUID, ItemSummaryResponse> summaries = loadSummaries(ranked);
+        Map<TrendingWindow, Map<String, List<ItemSummaryResponse>>> next = new EnumMap<>(TrendingWindow.class);
+        rankings.forEach((window, lists) -> {
+            Map<String, List<ItemSummaryResponse>> resolved = new HashMap<>();
+            lists.forEach((key, ids) -> resolved.put(key, ids.stream()
+                    .map(summaries::get)
+                    .filter(summary -> summary != null)
+                    .toList()));
+            next.put(window, Map.copyOf(resolved));
+        });
+        this.scoreboard = scoreboard;
+        snapshot = next;
+        
+        log.debug("Trending refreshed: {} active items, {} ranked", active.size(), ranked.size());
+    }
+    
+    private void recordActivity(TrendingScoreboard scoreboard, String sql, Instant since, Instant until, double weight) {
+        jdbcTemplate.query(sql,
+                rs -> {
+                    scoreboard.recordActivity(rs.getObject("item_id", UUID.class), weight,
+                            rs.getTimestamp("created_at").toInstant());
+                },
+                Timestamp.from(since), Timestamp.from(until));
+    }
+    
+    // Summaries are resolved once per refresh so a request is just a map lookup and a sublist
+    private Map<UUID, ItemSummaryResponse> loadSummaries(Set<UUID> ids) {
+        List<UUID> all = new ArrayList<>(ids);
+        Map<UUID, ItemSummaryResponse> summaries = new HashMap<>();
+        for (int start = 0; start < all.size(); start += LOAD_CHUNK) {
+            List<UUID> chunk = all.subList(start, Math.min(start + LOAD_CHUNK, all.size()));
+            List<ItemSummaryResponse> loaded = transactionTemplate.execute(status ->
+                    itemListingLoader.toSummaries(itemRepository.findAllById(chunk)));
+            summaries.putAll(loaded.stream().collect(Collectors.toMap(ItemSummaryResponse::getId, Function.identity())));
+        }
+        return summaries;
+    }
+}
@@ -7,6 +7,7 @@ import com.stripe.param.PaymentIntentCreateParams;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nz.co.market.auth.entity.User;
+import nz.co.market.auth.repository.UserRepository;
 import nz.co.market.orders.dto.*;
 import nz.co.market.orders.entity.Order;
 import nz.co.market.orders.entity.Payment;
@@ -30,6 +31,7 @@ import java.util.UUID;
 public class OrderService {
     
     private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
     private final PaymentRepository paymentRepository;
     private final OrderMapper orderMapper;
     
@@ -44,7 +46,7 @@ public class OrderService {
         
         Order order = Order.builder()
                 .item(null) // Would be fetched from item repository
-                .buyer(buyer)
+                .buyer(userRepository.getReferenceById(buyer.getId()))
                 .seller(null) // Would be fetched from item
                 .priceAtOrder(BigDecimal.valueOf(100.00)) // Would be from item
                 .escrow(request.getEscrow())
@@ -0,0 +1,50 @@
+-- Chat has two message tables: messages from V1, which the application never wrote, and
+-- chat_messages, which ChatService uses. Rows in messages move over and the table goes.
+INSERT INTO chat_messages (id, conversation_id, sender_id, content, message_type, read_at, created_at, updated_at)
+SELECT id, conversation_id, sender_id, content, type, read_at, created_at, created_at
+FROM messages
+ON CONFLICT (id) DO NOTHING;
+
+-- Conversations that had rows in messages get their inbox columns and watermarks recomputed
+CREATE TEMPORARY TABLE moved_conversations ON COMMIT DROP AS
+SELECT DISTINCT conversation_id AS id FROM messages;
+
+UPDATE conversations c
+SET last_message_id = m.id,
+    last_message_sender_id = m.sender_id,
+    last_message_type = m.message_type,
+    last_message_preview = left(m.content, 140),
+    last_message_at = m.created_at
+FROM (
+    SELECT DISTINCT ON (conversation_id) id, conversation_id, sender_id, message_type, content, created_at
+    FROM chat_messages
+    WHERE conversation_id IN (SELECT id FROM moved_conversations)
+    ORDER BY conversation_id, created_at DESC, id DESC
+) m
+WHERE m.conversation_id = c.id AND m.created_at >= c.last_message_at;
+
+UPDATE conversations c
+SET buyer_last_read_at = GREATEST(c.buyer_last_read_at, (
+        SELECT max(m.created_at) FROM chat_messages m
+        WHERE m.conversation_id = c.id AND m.sender_id <> c.buyer_id AND m.read_at IS NOT NULL)),
+    seller_last_read_at = GREATEST(c.seller_last_read_at, (
+        SELECT max(m.created_at) FROM chat_messages m
+        WHERE m.conversation_id = c.id AND m.sender_id <> c.seller_id AND m.read_at IS NOT NULL))
+WHERE c.id IN (SELECT id FROM moved_conversations);
+
+UPDATE conversations c
+SET buyer_unread_count = (
+        SELECT count(*) FROM chat_messages m
+        WHERE m.conversation_id = c.id AND m.sender_id <> c.buyer_id
+          AND m.created_at > coalesce(c.buyer_last_read_at, '-infinity')),
+    seller_unread_count = (
+        SELECT count(*) FROM chat_messages m
+        WHERE m.conversation_id = c.id AND m.sender_id <> c.seller_id
+          AND m.created_at > coalesce(c.seller_last_read_at, '-infinity'))
+WHERE c.id IN (SELECT id FROM moved_conversations);
+
+DROP TABLE messages;
+
+-- History reads use idx_chat_messages_conversation_created (V8), which also serves the
+-- conversation foreign key. Deleting a user cascades to their messages through sender_id.
+CREATE INDEX idx_chat_messages_sender_id ON chat_messages(sender_id);
@@ -0,0 +1,13 @@
+-- Weighted full-text document for item search; title terms rank above description terms.
+-- Generated columns are recomputed by Postgres on every INSERT/UPDATE, so no trigger is needed.
+ALTER TABLE items ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B')
+    ) STORED;
+
+CREATE INDEX idx_items_search_vector ON items USING gin(search_vector);
+
+-- Superseded by idx_items_search_vector; no query ever matched these expressions
+DROP INDEX IF EXISTS idx_items_title_gin;
+DROP INDEX IF EXISTS idx_items_description_gin;
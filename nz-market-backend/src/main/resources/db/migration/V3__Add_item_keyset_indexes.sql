@@ -0,0 +1,10 @@
+-- Composite indexes backing keyset pagination; each matches an ORDER BY <column>, id
+-- under the status filter so a page is a single index range scan from the cursor.
+CREATE INDEX idx_items_status_created_at_id ON items(status, created_at, id);
+CREATE INDEX idx_items_status_price_nzd_id ON items(status, price_nzd, id);
+CREATE INDEX idx_items_status_view_count_id ON items(status, view_count, id);
+CREATE INDEX idx_items_seller_status_created_at_id ON items(seller_id, status, created_at, id);
+
+-- Now left-prefixes of the composites above
+DROP INDEX IF EXISTS idx_items_status;
+DROP INDEX IF EXISTS idx_items_seller_id;
@@ -0,0 +1,5 @@
+-- Spatial index for radius search. The expression must stay identical to the one used by
+-- ItemSearchRepositoryImpl (point(lng, lat) as float8) for the planner to pick it up.
+CREATE INDEX idx_items_location_point ON items
+    USING gist (point(CAST(lng AS float8), CAST(lat AS float8)))
+    WHERE lat IS NOT NULL AND lng IS NOT NULL;
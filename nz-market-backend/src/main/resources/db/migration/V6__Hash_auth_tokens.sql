@@ -0,0 +1,20 @@
+-- Verification and reset tokens are stored as SHA-256 hashes (hex), so rows read from the database
+-- or a backup can't be used to take over an account; the existing unique index serves lookups.
+-- Tokens were never persisted before this version, so there is nothing to convert.
+DELETE FROM email_verification_tokens;
+DELETE FROM password_reset_tokens;
+
+ALTER TABLE email_verification_tokens RENAME COLUMN token TO token_hash;
+ALTER TABLE password_reset_tokens RENAME COLUMN token TO token_hash;
+
+-- Set when the token is used; a token is valid while consumed_at IS NULL and expires_at > now()
+ALTER TABLE email_verification_tokens ADD COLUMN consumed_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE password_reset_tokens ADD COLUMN consumed_at TIMESTAMP WITH TIME ZONE;
+
+-- For the expiry sweep
+CREATE INDEX idx_email_verification_tokens_expires_at ON email_verification_tokens (expires_at);
+CREATE INDEX idx_password_reset_tokens_expires_at ON password_reset_tokens (expires_at);
+
+-- For invalidating a user's outstanding tokens when a new one is issued
+CREATE INDEX idx_email_verification_tokens_user_open ON email_verification_tokens (user_id) WHERE consumed_at IS NULL;
+CREATE INDEX idx_password_reset_tokens_user_open ON password_reset_tokens (user_id) WHERE consumed_at IS NULL;
@@ -0,0 +1,63 @@
+-- ChatService has always written chat_messages, but no migration created it; databases where
+-- Hibernate created the table keep theirs.
+CREATE TABLE IF NOT EXISTS chat_messages (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    conversation_id UUID NOT NULL REFERENCES conversations(id) ON DELETE CASCADE,
+    sender_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    content TEXT,
+    message_type VARCHAR(20) NOT NULL DEFAULT 'TEXT' CHECK (message_type IN ('TEXT', 'IMAGE', 'SYSTEM')),
+    image_url VARCHAR(255),
+    read_at TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- The inbox reads everything it shows from the conversation row: the last message and each
+-- participant's unread count are maintained by the statements that send and read messages.
+ALTER TABLE conversations ADD COLUMN last_message_id UUID;
+ALTER TABLE conversations ADD COLUMN last_message_sender_id UUID;
+ALTER TABLE conversations ADD COLUMN last_message_type VARCHAR(20);
+ALTER TABLE conversations ADD COLUMN last_message_preview VARCHAR(140);
+ALTER TABLE conversations ADD COLUMN buyer_unread_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE conversations ADD COLUMN seller_unread_count INTEGER NOT NULL DEFAULT 0;
+-- Mapped by BaseEntity but missing from V1
+ALTER TABLE conversations ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+UPDATE conversations c
+SET last_message_id = m.id,
+    last_message_sender_id = m.sender_id,
+    last_message_type = m.message_type,
+    last_message_preview = left(m.content, 140),
+    last_message_at = m.created_at
+FROM (
+    SELECT DISTINCT ON (conversation_id) id, conversation_id, sender_id, message_type, content, created_at
+    FROM chat_messages
+    ORDER BY conversation_id, created_at DESC, id DESC
+) m
+WHERE m.conversation_id = c.id;
+
+UPDATE conversations c
+SET buyer_unread_count = u.buyer_unread, seller_unread_count = u.seller_unread
+FROM (
+    SELECT m.conversation_id,
+           count(*) FILTER (WHERE m.sender_id <> c2.buyer_id) AS buyer_unread,
+           count(*) FILTER (WHERE m.sender_id <> c2.seller_id) AS seller_unread
+    FROM chat_messages m
+    JOIN conversations c2 ON c2.id = m.conversation_id
+    WHERE m.read_at IS NULL
+    GROUP BY m.conversation_id
+) u
+WHERE u.conversation_id = c.id;
+
+-- Keyset order of the inbox; conversations without messages sort by when they were started
+UPDATE conversations SET last_message_at = created_at WHERE last_message_at IS NULL;
+ALTER TABLE conversations ALTER COLUMN last_message_at SET DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE conversations ALTER COLUMN last_message_at SET NOT NULL;
+
+-- One index per side of the conversation; an inbox page is a range scan on each
+CREATE INDEX idx_conversations_buyer_last_message ON conversations(buyer_id, last_message_at, id);
+CREATE INDEX idx_conversations_seller_last_message ON conversations(seller_id, last_message_at, id);
+
+-- Now left-prefixes of the composites above
+DROP INDEX IF EXISTS idx_conversations_buyer_id;
+DROP INDEX IF EXISTS idx_conversations_seller_id;
@@ -0,0 +1,3 @@
+-- Message history is read newest first within a conversation and paged by (created_at, id);
+-- the catch-up query after a reconnect scans the same index forwards.
+CREATE INDEX idx_chat_messages_conversation_created ON chat_messages(conversation_id, created_at DESC, id DESC);
@@ -0,0 +1,25 @@
+-- Each participant's read position is the timestamp of the newest message they have read.
+-- Marking a conversation read moves it with a single-row update; messages after it are
+-- unread. chat_messages.read_at is no longer written.
+ALTER TABLE conversations ADD COLUMN buyer_last_read_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE conversations ADD COLUMN seller_last_read_at TIMESTAMP WITH TIME ZONE;
+
+-- Up to the newest message already marked read
+UPDATE conversations c
+SET buyer_last_read_at = (
+        SELECT max(m.created_at) FROM chat_messages m
+        WHERE m.conversation_id = c.id AND m.sender_id <> c.buyer_id AND m.read_at IS NOT NULL),
+    seller_last_read_at = (
+        SELECT max(m.created_at) FROM chat_messages m
+        WHERE m.conversation_id = c.id AND m.sender_id <> c.seller_id AND m.read_at IS NOT NULL);
+
+-- The unread counters become the number of messages past the watermark
+UPDATE conversations c
+SET buyer_unread_count = (
+        SELECT count(*) FROM chat_messages m
+        WHERE m.conversation_id = c.id AND m.sender_id <> c.buyer_id
+          AND m.created_at > coalesce(c.buyer_last_read_at, '-infinity')),
+    seller_unread_count = (
+        SELECT count(*) FROM chat_messages m
+        WHERE m.conversation_id = c.id AND m.sender_id <> c.seller_id
+          AND m.created_at > coalesce(c.seller_last_read_at, '-infinity'));
@@ -0,0 +1,82 @@
+package nz.co.market.auth.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.auth.config.PasswordConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.i18n.LocaleContextHolder;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        PasswordConfig config = new PasswordConfig();
+        config.setThreads(1);
+        config.setQueueCapacity(1);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PasswordHashingExecutor(config, meterRegistry);
+        executor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        LocaleContextHolder.resetLocaleContext();
+    }
+
+    @Test
+    void submit_ShouldRejectWithRetryAfter_WhenQueueIsFull() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture<String> busy = executor.submit(() -> {
+            running.countDown();
+            await(release);
+            return "first";
+        });
+        running.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = executor.submit(() -> "second");
+
+        // When
+        PasswordHashingBusyException e = assertThrows(PasswordHashingBusyException.class,
+                () -> executor.submit(() -> "third"));
+        release.countDown();
+
+        // Then
+        assertTrue(e.getRetryAfterSeconds() >= 1 && e.getRetryAfterSeconds() <= 30);
+        assertEquals("first", busy.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("auth.password.rejected").counter().count());
+    }
+
+    @Test
+    void submit_ShouldRunWithCallerLocale_WhenAccepted() throws Exception {
+        // Given
+        LocaleContextHolder.setLocale(Locale.CHINESE);
+
+        // When
+        Locale locale = executor.submit(LocaleContextHolder::getLocale).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(Locale.CHINESE, locale);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package nz.co.market.auth.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.auth.entity.User;
+import nz.co.market.auth.enums.UserStatus;
+import nz.co.market.auth.event.UserAccessChangedEvent;
+import nz.co.market.auth.event.UserChangedEvent;
+import nz.co.market.auth.repository.UserRepository;
+import nz.co.market.common.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserPrincipalCacheTest {
+
+    private static final String EMAIL = "seller@example.co.nz";
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserPrincipalCache principalCache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new UserPrincipalCache(userRepository, new CacheConfig(), meterRegistry);
+        principalCache.init();
+        user = User.builder().email(EMAIL).passwordHash("$2a$12$hash").displayName("Seller").build();
+        user.setId(UUID.randomUUID());
+    }
+
+    @Test
+    void findActive_ShouldQueryOnceAndDropPasswordHash_WhenCalledRepeatedly() {
+        // Given
+        when(userRepository.findByEmailAndStatus(EMAIL, UserStatus.ACTIVE)).thenReturn(Optional.of(user));
+
+        // When
+        User first = principalCache.findActive(EMAIL).orElseThrow();
+        User second = principalCache.findActive(EMAIL).orElseThrow();
+
+        // Then
+        assertSame(first, second);
+        assertEquals(user.getId(), first.getId());
+        assertEquals("Seller", first.getDisplayName());
+        assertNull(first.getPasswordHash());
+        verify(userRepository, times(1)).findByEmailAndStatus(EMAIL, UserStatus.ACTIVE);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void findActive_ShouldReload_WhenUserBannedOrChanged() {
+        // Given
+        when(userRepository.findByEmailAndStatus(EMAIL, UserStatus.ACTIVE))
+                .thenReturn(Optional.of(user))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(user));
+        principalCache.findActive(EMAIL);
+
+        // When
+        principalCache.onUserAccessChanged(new UserAccessChangedEvent(user.getId(), true));
+        Optional<User> whileBanned = principalCache.findActive(EMAIL);
+        Optional<User> stillBanned = principalCache.findActive(EMAIL);
+        principalCache.onUserChanged(new UserChangedEvent(user.getId()));
+        Optional<User> afterUnban = principalCache.findActive(EMAIL);
+
+        // Then
+        assertTrue(whileBanned.isEmpty());
+        assertTrue(stillBanned.isEmpty());
+        assertTrue(afterUnban.isPresent());
+        verify(userRepository, times(4)).findByEmailAndStatus(EMAIL, UserStatus.ACTIVE);
+    }
+}
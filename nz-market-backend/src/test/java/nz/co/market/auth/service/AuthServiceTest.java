@@ -34,6 +34,12 @@ class AuthServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private RefreshTokenStore refreshTokenStore;
+
+    @Mock
+    private OneTimeTokenStore oneTimeTokenStore;
+
     @InjectMocks
     private AuthService authService;
 
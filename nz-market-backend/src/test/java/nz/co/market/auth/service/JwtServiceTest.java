@@ -0,0 +1,113 @@
+package nz.co.market.auth.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import nz.co.market.auth.config.JwtConfig;
+import nz.co.market.auth.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String OLD_KEY = key('a');
+    private static final String NEW_KEY = key('b');
+
+    private static String key(char fill) {
+        return Base64.getEncoder().encodeToString(String.valueOf(fill).repeat(32).getBytes());
+    }
+
+    private static JwtService service(String activeKeyId, Map<String, String> keys) {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(OLD_KEY);
+        config.setAccessTokenExpiration(60000L);
+        config.setRefreshTokenExpiration(120000L);
+        config.setActiveKeyId(activeKeyId);
+        config.setKeys(keys);
+        JwtService jwtService = new JwtService(config);
+        jwtService.init();
+        return jwtService;
+    }
+
+    private static User user() {
+        User user = User.builder().email("buyer@example.co.nz").build();
+        user.setId(UUID.randomUUID());
+        return user;
+    }
+
+    @Test
+    void parseClaims_ShouldReturnClaims_WhenTokenSignedWithActiveKey() {
+        // Given
+        JwtService jwtService = service("primary", Map.of());
+        User user = user();
+
+        // When
+        Claims claims = jwtService.parseClaims(jwtService.generateToken(user));
+
+        // Then
+        assertEquals("buyer@example.co.nz", claims.getSubject());
+        assertEquals(user.getId().toString(), claims.get("userId"));
+        assertTrue(jwtService.validateToken(jwtService.generateToken(user), "buyer@example.co.nz"));
+        assertFalse(jwtService.validateToken(jwtService.generateToken(user), "other@example.co.nz"));
+    }
+
+    @Test
+    void parseClaims_ShouldAcceptOldKid_WhenKeysRotated() {
+        // Given
+        String issuedBeforeRotation = service("2024-01", Map.of("2024-01", OLD_KEY)).generateToken(user());
+        JwtService rotated = service("2024-06", Map.of("2024-01", OLD_KEY, "2024-06", NEW_KEY));
+
+        // When
+        String issuedAfterRotation = rotated.generateToken(user());
+
+        // Then
+        assertEquals("buyer@example.co.nz", rotated.parseClaims(issuedBeforeRotation).getSubject());
+        assertEquals("buyer@example.co.nz", rotated.parseClaims(issuedAfterRotation).getSubject());
+        assertThrows(JwtException.class,
+                () -> service("2024-06", Map.of("2024-06", NEW_KEY)).parseClaims(issuedBeforeRotation));
+    }
+
+    @Test
+    void parseClaims_ShouldUseActiveKey_WhenTokenHasNoKid() {
+        // Given
+        JwtService jwtService = service("primary", Map.of());
+        String legacy = Jwts.builder()
+                .subject("buyer@example.co.nz")
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(OLD_KEY)))
+                .compact();
+
+        // When
+        Claims claims = jwtService.parseClaims(legacy);
+
+        // Then
+        assertEquals("buyer@example.co.nz", claims.getSubject());
+    }
+
+    @Test
+    void parseClaims_ShouldThrow_WhenTokenExpiredOrTampered() {
+        // Given
+        JwtService jwtService = service("primary", Map.of());
+        String expired = Jwts.builder()
+                .header().keyId("primary").and()
+                .subject("buyer@example.co.nz")
+                .expiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(OLD_KEY)))
+                .compact();
+        String token = jwtService.generateToken(user());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When / Then
+        assertThrows(JwtException.class, () -> jwtService.parseClaims(expired));
+        assertThrows(JwtException.class, () -> jwtService.parseClaims(tampered));
+        assertFalse(jwtService.validateToken(expired, "buyer@example.co.nz"));
+    }
+}
@@ -0,0 +1,108 @@
+package nz.co.market.auth.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.auth.config.AuthTokenConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({OneTimeTokenStore.class, AuthTokenConfig.class, OneTimeTokenStoreTest.MetricsConfig.class})
+class OneTimeTokenStoreTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private OneTimeTokenStore oneTimeTokenStore;
+
+    @Autowired
+    private AuthTokenConfig authTokenConfig;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (email, password_hash, display_name) VALUES (?, 'hash', 'Tester') RETURNING id",
+                UUID.class, UUID.randomUUID() + "@example.com");
+    }
+
+    @Test
+    void consume_ShouldSucceedOnce_WhenTokenIsValid() {
+        // Given
+        String first = oneTimeTokenStore.issue(OneTimeTokenStore.Purpose.PASSWORD_RESET, userId);
+        String second = oneTimeTokenStore.issue(OneTimeTokenStore.Purpose.PASSWORD_RESET, userId);
+
+        // When
+        Optional<UUID> consumed = oneTimeTokenStore.consume(OneTimeTokenStore.Purpose.PASSWORD_RESET, second);
+
+        // Then
+        assertEquals(Optional.of(userId), consumed);
+        assertTrue(oneTimeTokenStore.consume(OneTimeTokenStore.Purpose.PASSWORD_RESET, second).isEmpty());
+        // Superseded by the second token
+        assertTrue(oneTimeTokenStore.consume(OneTimeTokenStore.Purpose.PASSWORD_RESET, first).isEmpty());
+        // Wrong purpose
+        String verification = oneTimeTokenStore.issue(OneTimeTokenStore.Purpose.EMAIL_VERIFICATION, userId);
+        assertTrue(oneTimeTokenStore.consume(OneTimeTokenStore.Purpose.PASSWORD_RESET, verification).isEmpty());
+        assertNotEquals(verification, jdbcTemplate.queryForObject(
+                "SELECT token_hash FROM email_verification_tokens WHERE user_id = ?", String.class, userId));
+    }
+
+    @Test
+    void sweepExpired_ShouldDeleteOnlyExpiredTokens_InBatches() {
+        // Given
+        authTokenConfig.setSweepBatchSize(2);
+        for (int i = 0; i < 5; i++) {
+            oneTimeTokenStore.issue(OneTimeTokenStore.Purpose.EMAIL_VERIFICATION, userId);
+        }
+        jdbcTemplate.update("UPDATE email_verification_tokens SET expires_at = now() - INTERVAL '1 minute'");
+        String live = oneTimeTokenStore.issue(OneTimeTokenStore.Purpose.EMAIL_VERIFICATION, userId);
+
+        // When
+        oneTimeTokenStore.sweepExpired();
+
+        // Then
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM email_verification_tokens", Integer.class));
+        assertEquals(Optional.of(userId), oneTimeTokenStore.consume(OneTimeTokenStore.Purpose.EMAIL_VERIFICATION, live));
+    }
+}
@@ -0,0 +1,88 @@
+package nz.co.market.auth.service;
+
+import nz.co.market.auth.config.JwtConfig;
+import nz.co.market.auth.dto.SessionResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers(disabledWithoutDocker = true)
+class RefreshTokenStoreTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private RefreshTokenStore store;
+    private UUID userId;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setRefreshTokenExpiration(60_000L);
+        jwtConfig.setMaxSessionsPerUser(2);
+        store = new RefreshTokenStore(redisTemplate, jwtConfig);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void rotate_ShouldRevokeFamily_WhenRotatedTokenIsReused() {
+        // Given
+        store.create(userId, "family", "t1", "Firefox", "10.0.0.1");
+        assertEquals(RefreshTokenStore.Rotation.ROTATED, store.rotate(userId, "family", "t1", "t2"));
+
+        // When
+        RefreshTokenStore.Rotation reuse = store.rotate(userId, "family", "t1", "t3");
+
+        // Then
+        assertEquals(RefreshTokenStore.Rotation.REUSED, reuse);
+        assertEquals(RefreshTokenStore.Rotation.UNKNOWN, store.rotate(userId, "family", "t2", "t4"));
+        assertTrue(store.list(userId).isEmpty());
+    }
+
+    @Test
+    void create_ShouldEvictOldestSession_WhenOverLimit() throws InterruptedException {
+        // Given
+        store.create(userId, "oldest", "a", null, null);
+        Thread.sleep(5);
+        store.create(userId, "middle", "b", null, null);
+        Thread.sleep(5);
+
+        // When
+        store.create(userId, "newest", "c", "Safari", "10.0.0.2");
+
+        // Then
+        List<SessionResponse> sessions = store.list(userId);
+        assertEquals(List.of("newest", "middle"), sessions.stream().map(SessionResponse::getId).toList());
+        assertEquals("Safari", sessions.get(0).getUserAgent());
+        assertEquals(RefreshTokenStore.Rotation.UNKNOWN, store.rotate(userId, "oldest", "a", "d"));
+        assertEquals(2, store.revokeAll(userId));
+        assertTrue(store.list(userId).isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package nz.co.market.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.auth.config.JwtConfig;
+import nz.co.market.auth.event.UserAccessChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private TokenRevocationService service;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setAccessTokenExpiration(900000L);
+        service = new TokenRevocationService(jdbcTemplate, jwtConfig, redisTemplate, listenerContainer,
+                new SimpleMeterRegistry());
+        service.init();
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void isRevoked_ShouldRejectOnlyOlderTokens_WhenBanIsLifted() {
+        // Given
+        Date beforeBan = new Date(System.currentTimeMillis() - 60000);
+
+        // When
+        service.onUserAccessChanged(new UserAccessChangedEvent(userId, true));
+        boolean revokedWhileBanned = service.isRevoked(userId, new Date());
+        service.onUserAccessChanged(new UserAccessChangedEvent(userId, false));
+
+        // Then
+        assertTrue(revokedWhileBanned);
+        assertTrue(service.isRevoked(userId, beforeBan));
+        assertFalse(service.isRevoked(userId, new Date(System.currentTimeMillis() + 1000)));
+        assertFalse(service.isRevoked(UUID.randomUUID(), beforeBan));
+        verify(redisTemplate).convertAndSend(eq("auth:revocations"), endsWith(userId + "|true"));
+    }
+
+    @Test
+    void onMessage_ShouldApplyBan_WhenBroadcastByAnotherNode() {
+        // Given
+        String body = "other-node|" + userId + "|true";
+
+        // When
+        service.onMessage(new DefaultMessage("auth:revocations".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8)), null);
+
+        // Then
+        assertTrue(service.isRevoked(userId, new Date()));
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void sync_ShouldFollowDatabase_WhenBroadcastsWereMissed() throws InterruptedException {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(UUID.class))).thenReturn(List.of(userId)).thenReturn(List.of());
+        Date issued = new Date(System.currentTimeMillis() - 60000);
+
+        // When
+        service.sync();
+        boolean revokedAfterBan = service.isRevoked(userId, issued);
+        // Entries changed in the same millisecond as a sync starts are left for the next one
+        Thread.sleep(5);
+        service.sync();
+
+        // Then
+        assertTrue(revokedAfterBan);
+        assertTrue(service.isRevoked(userId, issued));
+        assertFalse(service.isRevoked(userId, new Date(System.currentTimeMillis() + 1000)));
+    }
+}
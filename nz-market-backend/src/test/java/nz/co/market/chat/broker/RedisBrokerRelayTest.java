@@ -0,0 +1,157 @@
+package nz.co.market.chat.broker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.chat.config.ChatBrokerConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Two relays on one Redis stand in for two nodes; each has its own broker channel
+@Testcontainers(disabledWithoutDocker = true)
+class RedisBrokerRelayTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private Node sender;
+    private Node receiver;
+
+    private record Node(RedisBrokerRelay relay, RedisMessageListenerContainer container,
+                        ExecutorSubscribableChannel brokerChannel, BlockingQueue<Message<?>> delivered) {
+    }
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        sender = node();
+        receiver = node();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (Node node : new Node[]{sender, receiver}) {
+            node.relay().shutdown();
+            node.container().destroy();
+        }
+    }
+
+    @Test
+    void preSend_ShouldRelayTopicFrame_OnlyToNodesSubscribedToIt() throws Exception {
+        // Given
+        receiver.relay().retain(receiver.relay().channelKey("/topic/conversations/42"));
+        receiver.relay().awaitSubscriptions();
+
+        // When
+        send(sender, "/topic/conversations/43", "ignored");
+        send(sender, "/topic/conversations/42", "hello");
+
+        // Then
+        Message<?> relayed = receiver.delivered().poll(5, TimeUnit.SECONDS);
+        assertNotNull(relayed);
+        assertEquals("/topic/conversations/42", SimpMessageHeaderAccessor.getDestination(relayed.getHeaders()));
+        assertEquals("hello", new String((byte[]) relayed.getPayload(), StandardCharsets.UTF_8));
+        assertNull(receiver.delivered().poll(500, TimeUnit.MILLISECONDS));
+        // The sender's own broker already delivered it locally
+        assertTrue(sender.delivered().isEmpty());
+    }
+
+    @Test
+    void preSend_ShouldRelayUserFrameWithHeaders_UntilLastSessionReleases() throws Exception {
+        // Given
+        String channelKey = receiver.relay().userChannelKey("bob@example.com");
+        receiver.relay().retain(channelKey);
+        receiver.relay().retain(channelKey);
+
+        // When
+        receiver.relay().release(channelKey);
+        receiver.relay().awaitSubscriptions();
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setDestination("/user/bob@example.com/queue/messages");
+        accessor.setNativeHeader("conversation-id", "42");
+        sender.relay().preSend(MessageBuilder.createMessage("hi".getBytes(StandardCharsets.UTF_8),
+                accessor.getMessageHeaders()), sender.brokerChannel());
+
+        // Then
+        Message<?> relayed = receiver.delivered().poll(5, TimeUnit.SECONDS);
+        assertNotNull(relayed);
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(relayed);
+        assertEquals("/user/bob@example.com/queue/messages", headers.getDestination());
+        assertEquals("42", headers.getFirstNativeHeader("conversation-id"));
+
+        // When
+        receiver.relay().release(channelKey);
+        receiver.relay().awaitSubscriptions();
+        send(sender, "/user/bob@example.com/queue/messages", "gone");
+
+        // Then
+        assertNull(receiver.delivered().poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    private void send(Node node, String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setDestination(destination);
+        node.relay().preSend(MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8),
+                accessor.getMessageHeaders()), node.brokerChannel());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node node() {
+        ChatBrokerConfig config = new ChatBrokerConfig();
+        config.setMode(ChatBrokerConfig.Mode.REDIS);
+        config.setChannelPrefix("test:broker:");
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.afterPropertiesSet();
+        container.start();
+
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        BlockingQueue<Message<?>> delivered = new LinkedBlockingQueue<>();
+        brokerChannel.subscribe(delivered::add);
+        ObjectProvider<SimpMessagingTemplate> template = mock(ObjectProvider.class);
+        when(template.getObject()).thenReturn(new SimpMessagingTemplate(brokerChannel));
+
+        RedisBrokerRelay relay = new RedisBrokerRelay(config, new StringRedisTemplate(connectionFactory), container,
+                template, new ObjectMapper(), new SimpleMeterRegistry());
+        relay.init();
+        return new Node(relay, container, brokerChannel, delivered);
+    }
+}
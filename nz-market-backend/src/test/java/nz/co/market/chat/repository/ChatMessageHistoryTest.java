@@ -0,0 +1,99 @@
+package nz.co.market.chat.repository;
+
+import nz.co.market.chat.entity.ChatMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ChatMessageHistoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    private UUID conversationId;
+
+    @BeforeEach
+    void setUp() {
+        UUID sellerId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (email, password_hash, display_name) VALUES ('seller@example.com', 'x', 'Seller') RETURNING id", UUID.class);
+        UUID buyerId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (email, password_hash, display_name) VALUES ('buyer@example.com', 'x', 'Buyer') RETURNING id", UUID.class);
+        UUID itemId = jdbcTemplate.queryForObject("""
+                INSERT INTO items (seller_id, title, description, price_nzd, condition, trade_method)
+                VALUES (?, 'Lamp', 'Description', 10, 'GOOD', 'PICKUP') RETURNING id
+                """, UUID.class, sellerId);
+        conversationId = jdbcTemplate.queryForObject(
+                "INSERT INTO conversations (item_id, buyer_id, seller_id) VALUES (?, ?, ?) RETURNING id",
+                UUID.class, itemId, buyerId, sellerId);
+        // Pairs of messages share a timestamp, so paging has to break ties on id
+        jdbcTemplate.update("""
+                INSERT INTO chat_messages (conversation_id, sender_id, content, created_at)
+                SELECT ?, ?, 'Message ' || n, TIMESTAMPTZ '2024-01-01 00:00:00+00' + (n / 2) * INTERVAL '1 minute'
+                FROM generate_series(1, 9) n
+                """, conversationId, buyerId);
+    }
+
+    @Test
+    void findBeforeAndAfter_ShouldWalkHistoryWithoutGapsOrRepeats_WhenTimestampsTie() {
+        // Given
+        List<String> newestFirst = jdbcTemplate.queryForList(
+                "SELECT content FROM chat_messages ORDER BY created_at DESC, id DESC", String.class);
+
+        // When
+        List<ChatMessage> latest = chatMessageRepository.findLatest(conversationId, 4);
+        List<ChatMessage> older = chatMessageRepository.findBefore(conversationId, last(latest).getId(), 4);
+        List<ChatMessage> oldest = chatMessageRepository.findBefore(conversationId, last(older).getId(), 4);
+        List<ChatMessage> caughtUp = chatMessageRepository.findAfter(conversationId, last(older).getId(), 10);
+
+        // Then
+        assertEquals(newestFirst.subList(0, 4), contents(latest));
+        assertEquals(newestFirst.subList(4, 8), contents(older));
+        assertEquals(newestFirst.subList(8, 9), contents(oldest));
+        List<String> sinceOlder = new ArrayList<>(newestFirst.subList(0, 7));
+        Collections.reverse(sinceOlder);
+        assertEquals(sinceOlder, contents(caughtUp));
+        assertTrue(chatMessageRepository.findAfter(conversationId, latest.get(0).getId(), 10).isEmpty());
+    }
+
+    private static ChatMessage last(List<ChatMessage> messages) {
+        return messages.get(messages.size() - 1);
+    }
+
+    private static List<String> contents(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getContent).toList();
+    }
+}
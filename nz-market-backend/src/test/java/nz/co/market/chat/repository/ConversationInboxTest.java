@@ -0,0 +1,141 @@
+package nz.co.market.chat.repository;
+
+import nz.co.market.chat.dto.InboxCursor;
+import nz.co.market.chat.dto.InboxEntryResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Alice sells two items (to Bob and Carol) and buys one from Bob, so her inbox mixes both sides
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ConversationInboxTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    private UUID alice;
+    private UUID bob;
+    private UUID carol;
+    private UUID withBob;
+    private UUID withCarol;
+    private UUID fromBob;
+
+    @BeforeEach
+    void setUp() {
+        alice = user("Alice");
+        bob = user("Bob");
+        carol = user("Carol");
+        UUID lamp = item(alice, "Lamp");
+        jdbcTemplate.update("INSERT INTO item_images (item_id, url, sort_order) VALUES (?, 'lamp-2.jpg', 1), (?, 'lamp-1.jpg', 0)",
+                lamp, lamp);
+        withBob = conversation(lamp, bob, alice);
+        withCarol = conversation(item(alice, "Chair"), carol, alice);
+        fromBob = conversation(item(bob, "Bike"), alice, bob);
+    }
+
+    @Test
+    void findInbox_ShouldMergeBothSidesNewestFirst_WhenUserBuysAndSells() {
+        // Given
+        ZonedDateTime now = ZonedDateTime.now();
+        conversationRepository.recordMessage(withBob, UUID.randomUUID(), bob, "TEXT", "Is it still available?", now.minusMinutes(3));
+        conversationRepository.recordMessage(withBob, UUID.randomUUID(), bob, "TEXT", "Hello?", now.minusMinutes(2));
+        conversationRepository.recordMessage(fromBob, UUID.randomUUID(), alice, "TEXT", "Would you take $50?", now.minusMinutes(1));
+        conversationRepository.recordMessage(withCarol, UUID.randomUUID(), carol, "IMAGE", null, now.minusMinutes(5));
+
+        // When
+        List<InboxEntryResponse> first = conversationRepository.findInbox(alice, null, 2);
+        List<InboxEntryResponse> second = conversationRepository.findInbox(alice, InboxCursor.after(first.get(1)), 2);
+
+        // Then
+        assertEquals(List.of(fromBob, withBob), first.stream().map(InboxEntryResponse::getConversationId).toList());
+        assertEquals(List.of(withCarol), second.stream().map(InboxEntryResponse::getConversationId).toList());
+
+        InboxEntryResponse buying = first.get(0);
+        assertEquals("BUYER", buying.getRole());
+        assertEquals("Bob", buying.getOtherUserDisplayName());
+        assertEquals(0, buying.getUnreadCount());
+
+        InboxEntryResponse selling = first.get(1);
+        assertEquals("SELLER", selling.getRole());
+        assertEquals("Lamp", selling.getItemTitle());
+        assertEquals("lamp-1.jpg", selling.getItemThumbnailUrl());
+        assertEquals("Hello?", selling.getLastMessagePreview());
+        assertEquals(bob, selling.getLastMessageSenderId());
+        assertEquals(2, selling.getUnreadCount());
+    }
+
+    @Test
+    void markReadBy_ShouldMoveOnlyReadersWatermark_WhenBothSidesHaveUnread() {
+        // Given
+        ZonedDateTime now = ZonedDateTime.now();
+        conversationRepository.recordMessage(withBob, UUID.randomUUID(), bob, "TEXT", "Hi", now.minusMinutes(2));
+        conversationRepository.recordMessage(withBob, UUID.randomUUID(), alice, "TEXT", "Hi Bob", now.minusMinutes(1));
+
+        // When
+        conversationRepository.markReadBy(withBob, alice);
+
+        // Then
+        assertEquals(0, conversationRepository.findInbox(alice, null, 10).get(0).getUnreadCount());
+        assertEquals(1, conversationRepository.findInbox(bob, null, 10).stream()
+                .filter(entry -> entry.getConversationId().equals(withBob))
+                .findFirst().orElseThrow().getUnreadCount());
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT seller_last_read_at = last_message_at AS caught_up, buyer_last_read_at FROM conversations WHERE id = ?", withBob);
+        assertEquals(true, row.get("caught_up"));
+        assertNull(row.get("buyer_last_read_at"));
+    }
+
+    private UUID user(String name) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (email, password_hash, display_name) VALUES (?, 'hash', ?) RETURNING id",
+                UUID.class, name.toLowerCase() + "@example.com", name);
+    }
+
+    private UUID item(UUID sellerId, String title) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO items (seller_id, title, description, price_nzd, condition, trade_method)
+                VALUES (?, ?, 'Description', 10, 'GOOD', 'PICKUP') RETURNING id
+                """, UUID.class, sellerId, title);
+    }
+
+    // Started before any of the messages the tests record
+    private UUID conversation(UUID itemId, UUID buyerId, UUID sellerId) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO conversations (item_id, buyer_id, seller_id, last_message_at)
+                VALUES (?, ?, ?, now() - INTERVAL '1 hour') RETURNING id
+                """, UUID.class, itemId, buyerId, sellerId);
+    }
+}
@@ -0,0 +1,101 @@
+package nz.co.market.chat.security;
+
+import nz.co.market.auth.entity.User;
+import nz.co.market.chat.service.ConversationParticipants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChatDestinationInterceptorTest {
+
+    @Mock
+    private ConversationParticipants conversationParticipants;
+
+    private ChatDestinationInterceptor interceptor;
+    private UUID userId;
+    private UUID conversationId;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new ChatDestinationInterceptor(conversationParticipants);
+        userId = UUID.randomUUID();
+        conversationId = UUID.randomUUID();
+    }
+
+    @Test
+    void preSend_ShouldDropSubscribe_WhenUserIsNotParticipant() {
+        // Given
+        when(conversationParticipants.findFor(any(), any())).thenReturn(Optional.empty());
+        when(conversationParticipants.findFor(conversationId, userId)).thenReturn(Optional.of(
+                new ConversationParticipants.Participants(userId, "buyer@example.com", UUID.randomUUID(), "seller@example.com")));
+
+        // When / Then
+        assertNotNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/conversations/" + conversationId), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/conversations/" + UUID.randomUUID()), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/conversations/*"), null));
+    }
+
+    @Test
+    void preSend_ShouldDropFrames_WhenTheyBypassTheApplication() {
+        // When / Then
+        assertNull(interceptor.preSend(frame(StompCommand.SEND, "/topic/conversations/" + conversationId), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/queue/chat-user1234"), null));
+        assertNotNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/user/queue/chat"), null));
+        assertNotNull(interceptor.preSend(frame(StompCommand.SEND, "/app/chat/conversations/" + conversationId + "/typing"), null));
+    }
+
+    @Test
+    void preSend_ShouldDropSubscribe_WhenDestinationIsAPattern() {
+        // When / Then
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/**"), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/*/*"), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/conversations*"), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/conversations/{id}"), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/conversation?/" + conversationId), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/user/queue/*"), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/other"), null));
+        verifyNoInteractions(conversationParticipants);
+    }
+
+    @Test
+    void preSend_ShouldDropSubscribe_WhenSessionHasNoUser() {
+        // When / Then
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/conversations/" + conversationId, false), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/user/queue/chat", false), null));
+        assertNull(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/other", false), null));
+        verifyNoInteractions(conversationParticipants);
+    }
+
+    private Message<byte[]> frame(StompCommand command, String destination) {
+        return frame(command, destination, true);
+    }
+
+    private Message<byte[]> frame(StompCommand command, String destination, boolean signedIn) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        if (signedIn) {
+            User user = User.builder().email("buyer@example.com").build();
+            user.setId(userId);
+            accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,81 @@
+package nz.co.market.chat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.chat.dto.ChatEvent;
+import nz.co.market.chat.dto.ChatMessageResponse;
+import nz.co.market.chat.event.ChatMessageSentEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatNotifierTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private ConversationParticipants conversationParticipants;
+
+    private ChatNotifier chatNotifier;
+    private UUID conversationId;
+    private UUID buyerId;
+    private UUID sellerId;
+
+    @BeforeEach
+    void setUp() {
+        chatNotifier = new ChatNotifier(messagingTemplate, conversationParticipants, new SimpleMeterRegistry());
+        conversationId = UUID.randomUUID();
+        buyerId = UUID.randomUUID();
+        sellerId = UUID.randomUUID();
+    }
+
+    @Test
+    void onMessageSent_ShouldPushToConversationAndRecipientQueue_WhenMessageCommitted() {
+        // Given
+        when(conversationParticipants.find(conversationId)).thenReturn(Optional.of(
+                new ConversationParticipants.Participants(buyerId, "buyer@example.com", sellerId, "seller@example.com")));
+        ChatMessageResponse message = ChatMessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .senderId(buyerId)
+                .content("Is this still available?")
+                .createdAt(ZonedDateTime.now())
+                .build();
+
+        // When
+        chatNotifier.onMessageSent(new ChatMessageSentEvent(message, sellerId));
+
+        // Then
+        ArgumentCaptor<ChatEvent> event = ArgumentCaptor.forClass(ChatEvent.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/conversations/" + conversationId), event.capture());
+        verify(messagingTemplate).convertAndSendToUser("seller@example.com", "/queue/chat", event.getValue());
+        assertEquals(ChatEvent.Type.MESSAGE, event.getValue().getType());
+        assertEquals(buyerId, event.getValue().getUserId());
+        assertSame(message, event.getValue().getMessage());
+    }
+
+    @Test
+    void typing_ShouldOnlyPushToConversation_WhenUserTypes() {
+        // When
+        chatNotifier.typing(conversationId, buyerId, true);
+
+        // Then
+        verify(messagingTemplate).convertAndSend(eq("/topic/conversations/" + conversationId), any(ChatEvent.class));
+        verify(messagingTemplate, never()).convertAndSendToUser(any(), any(), any());
+        verifyNoInteractions(conversationParticipants);
+    }
+}
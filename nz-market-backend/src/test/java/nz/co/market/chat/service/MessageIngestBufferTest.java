@@ -0,0 +1,179 @@
+package nz.co.market.chat.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.chat.config.ChatIngestConfig;
+import nz.co.market.chat.dto.ChatMessageRequest;
+import nz.co.market.chat.dto.ChatMessageResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// The flusher commits on its own thread, so the test can't run inside a transaction
+@JdbcTest(properties = "app.chat.ingest.mode=batched")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({MessageIngestBuffer.class, ChatIngestConfig.class, MessageIngestBufferTest.MetricsConfig.class})
+class MessageIngestBufferTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private MessageIngestBuffer messageIngestBuffer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID buyerId;
+    private UUID sellerId;
+    private UUID conversationId;
+
+    @BeforeEach
+    void setUp() {
+        buyerId = user();
+        sellerId = user();
+        UUID itemId = jdbcTemplate.queryForObject("""
+                INSERT INTO items (seller_id, title, description, price_nzd, condition, trade_method)
+                VALUES (?, 'Lamp', 'Description', 10, 'GOOD', 'PICKUP') RETURNING id
+                """, UUID.class, sellerId);
+        conversationId = jdbcTemplate.queryForObject("""
+                INSERT INTO conversations (item_id, buyer_id, seller_id, last_message_at)
+                VALUES (?, ?, ?, now() - INTERVAL '1 hour') RETURNING id
+                """, UUID.class, itemId, buyerId, sellerId);
+    }
+
+    @Test
+    void submit_ShouldCompleteAfterBatchIsSaved_WhenConversationGetsSeveralMessages() throws Exception {
+        // Given
+        ZonedDateTime now = ZonedDateTime.now();
+        ChatMessageResponse first = message(conversationId, buyerId, "Hi", now.minusSeconds(2));
+        ChatMessageResponse second = message(conversationId, buyerId, "Still available?", now.minusSeconds(1));
+        ChatMessageResponse reply = message(conversationId, sellerId, "Yes", now);
+
+        // When
+        List<CompletableFuture<ChatMessageResponse>> futures = List.of(
+                messageIngestBuffer.submit(first, buyerId, sellerId),
+                messageIngestBuffer.submit(second, buyerId, sellerId),
+                messageIngestBuffer.submit(reply, buyerId, sellerId));
+        for (CompletableFuture<ChatMessageResponse> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        // Then
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM chat_messages WHERE conversation_id = ?", Integer.class, conversationId));
+        Map<String, Object> conversation = jdbcTemplate.queryForMap(
+                "SELECT last_message_id, last_message_preview, buyer_unread_count, seller_unread_count FROM conversations WHERE id = ?",
+                conversationId);
+        assertEquals(reply.getId(), conversation.get("last_message_id"));
+        assertEquals("Yes", conversation.get("last_message_preview"));
+        assertEquals(1, conversation.get("buyer_unread_count"));
+        assertEquals(2, conversation.get("seller_unread_count"));
+    }
+
+    @Test
+    void flush_ShouldFailOnlyTheBadMessage_WhenBatchContainsOne() {
+        // Given
+        ChatMessageResponse good = message(conversationId, buyerId, "Hi", ZonedDateTime.now());
+        ChatMessageResponse orphan = message(UUID.randomUUID(), buyerId, "Nowhere", ZonedDateTime.now());
+        MessageIngestBuffer.Pending goodPending = new MessageIngestBuffer.Pending(good, buyerId, sellerId, new CompletableFuture<>());
+        MessageIngestBuffer.Pending orphanPending = new MessageIngestBuffer.Pending(orphan, buyerId, sellerId, new CompletableFuture<>());
+
+        // When
+        messageIngestBuffer.flush(List.of(goodPending, orphanPending));
+
+        // Then
+        assertEquals(good, goodPending.future().join());
+        assertThrows(ExecutionException.class, () -> orphanPending.future().get());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM chat_messages WHERE conversation_id = ?", Integer.class, conversationId));
+    }
+
+    @Test
+    void flush_ShouldFailWholeBatchAtOnce_WhenDatabaseIsUnavailable() {
+        // Given
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doThrow(new CannotCreateTransactionException("Could not open JDBC Connection"))
+                .when(transactionTemplate).executeWithoutResult(any());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MessageIngestBuffer buffer = new MessageIngestBuffer(mock(NamedParameterJdbcTemplate.class), transactionTemplate,
+                new ChatIngestConfig(), meterRegistry, mock(ApplicationEventPublisher.class));
+        buffer.init();
+        List<MessageIngestBuffer.Pending> batch = List.of(
+                new MessageIngestBuffer.Pending(message(conversationId, buyerId, "Hi", ZonedDateTime.now()), buyerId, sellerId, new CompletableFuture<>()),
+                new MessageIngestBuffer.Pending(message(conversationId, sellerId, "Yes", ZonedDateTime.now()), buyerId, sellerId, new CompletableFuture<>()));
+
+        // When
+        buffer.flush(batch);
+
+        // Then
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        batch.forEach(pending -> assertTrue(pending.future().isCompletedExceptionally()));
+        assertEquals(2, meterRegistry.counter("chat.ingest.failed").count());
+    }
+
+    private UUID user() {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (email, password_hash, display_name) VALUES (?, 'hash', 'Tester') RETURNING id",
+                UUID.class, UUID.randomUUID() + "@example.com");
+    }
+
+    private static ChatMessageResponse message(UUID conversationId, UUID senderId, String content, ZonedDateTime createdAt) {
+        return ChatMessageResponse.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .senderId(senderId)
+                .content(content)
+                .messageType(ChatMessageRequest.MessageType.TEXT)
+                .createdAt(createdAt)
+                .build();
+    }
+}
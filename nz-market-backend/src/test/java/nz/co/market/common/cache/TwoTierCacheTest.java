@@ -0,0 +1,140 @@
+package nz.co.market.common.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.common.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TwoTierCache<List<String>> cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        TwoTierCacheManager manager = new TwoTierCacheManager(
+                new CacheConfig(), redisTemplate, listenerContainer, new ObjectMapper(), meterRegistry);
+        manager.init();
+        cache = manager.create("feed", new TypeReference<List<String>>() {});
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void get_ShouldLoadOnce_WhenCalledConcurrentlyForSameKey() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(8);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> {
+                started.countDown();
+                return cache.get(20, () -> {
+                    loads.incrementAndGet();
+                    awaitQuietly(release);
+                    return List.of("a", "b");
+                });
+            }));
+        }
+        started.await(5, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then
+        for (Future<List<String>> result : results) {
+            assertEquals(List.of("a", "b"), result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+        verify(valueOperations, times(1)).set(eq("cache:feed:20"), eq("[\"a\",\"b\"]"), any(Duration.class));
+    }
+
+    @Test
+    void get_ShouldUseRedisValue_WhenLocalMisses() {
+        // Given
+        when(valueOperations.get("cache:feed:20")).thenReturn("[\"x\"]");
+
+        // When
+        List<String> value = cache.get(20, () -> fail("should come from Redis"));
+
+        // Then
+        assertEquals(List.of("x"), value);
+        assertEquals(1.0, meterRegistry.counter("cache.redis.requests", "cache", "feed", "result", "hit").count());
+    }
+
+    @Test
+    void get_ShouldFailOpenAndSkipRedis_WhenRedisUnavailable() {
+        // Given
+        when(valueOperations.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        // When
+        List<String> first = cache.get(1, () -> List.of("db"));
+        List<String> second = cache.get(2, () -> List.of("db"));
+
+        // Then
+        assertEquals(List.of("db"), first);
+        assertEquals(List.of("db"), second);
+        verify(valueOperations, times(1)).get(anyString());
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void get_ShouldNotCacheFailure_WhenLoaderThrows() {
+        // Given
+        RuntimeException notFound = new RuntimeException("Item not found");
+
+        // When
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> cache.get(7, () -> {
+            throw notFound;
+        }));
+
+        // Then
+        assertSame(notFound, thrown);
+        assertEquals(List.of("later"), cache.get(7, () -> List.of("later")));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package nz.co.market.common.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import nz.co.market.common.config.MailOutboxConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Dispatches against a real outbox table and GreenMail, a local SMTP server. Batches of two
+// make the three queued emails take two claims.
+@JdbcTest(properties = "app.mail.outbox.poll-interval=3600000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({EmailDispatcher.class, MailOutboxConfig.class, EmailDispatcherTest.MailConfig.class})
+class EmailDispatcherTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @TestConfiguration
+    static class MailConfig {
+
+        @Bean
+        JavaMailSender mailSender() {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(ServerSetupTest.SMTP.getPort());
+            return mailSender;
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private MailOutboxConfig mailOutboxConfig;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM email_outbox");
+        mailOutboxConfig.setBatchSize(2);
+        mailOutboxConfig.setMaxAttempts(2);
+    }
+
+    @Test
+    void dispatch_ShouldSendAndRemoveQueuedEmails_WhenServerAccepts() throws Exception {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            queue("user" + i + "@example.com", "Subject " + i);
+        }
+
+        // When
+        emailDispatcher.dispatch();
+
+        // Then
+        assertTrue(greenMail.waitForIncomingEmail(5000, 3));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(3, received.length);
+        assertEquals("Subject 0", received[0].getSubject());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM email_outbox", Integer.class));
+    }
+
+    @Test
+    void dispatch_ShouldRetryThenDeadLetter_WhenServerUnavailable() {
+        // Given
+        queue("user@example.com", "Subject");
+        greenMail.stop();
+
+        // When
+        emailDispatcher.dispatch();
+
+        // Then
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT status, attempts, last_error, next_attempt_at > now() AS delayed FROM email_outbox");
+        assertEquals("PENDING", row.get("status"));
+        assertEquals(1, row.get("attempts"));
+        assertEquals(true, row.get("delayed"));
+        assertNotNull(row.get("last_error"));
+
+        // When
+        jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = now()");
+        emailDispatcher.dispatch();
+
+        // Then
+        assertEquals("DEAD", jdbcTemplate.queryForObject("SELECT status FROM email_outbox", String.class));
+    }
+
+    // Written directly rather than through EmailOutbox, whose after-commit dispatch would race the test
+    private void queue(String recipient, String subject) {
+        jdbcTemplate.update("INSERT INTO email_outbox (recipient, subject, body) VALUES (?, ?, 'Body')", recipient, subject);
+    }
+}
@@ -0,0 +1,95 @@
+package nz.co.market.common.ratelimit;
+
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.auth.entity.User;
+import nz.co.market.common.config.RateLimitConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimiterTest {
+
+    @Mock
+    private RedisConnectionFactory redisConnectionFactory;
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setRedisEnabled(false);
+
+        RateLimitConfig.Policy search = new RateLimitConfig.Policy();
+        search.setPath("/items/search/**");
+        search.setMethod("GET");
+        search.setCapacity(2L);
+        search.setPeriod(Duration.ofMinutes(1));
+        config.getPolicies().put("search", search);
+
+        RateLimitConfig.Policy chat = new RateLimitConfig.Policy();
+        chat.setPath("/chat/conversations/*/messages");
+        chat.setMethod("POST");
+        chat.setDestination("/app/chat/**");
+        chat.setScope(RateLimitConfig.Scope.USER);
+        chat.setCapacity(1L);
+        config.getPolicies().put("chat-messages", chat);
+
+        rateLimiter = new RateLimiter(config, redisConnectionFactory, new SimpleMeterRegistry());
+        rateLimiter.init();
+    }
+
+    @Test
+    void policiesFor_ShouldMatchPathMethodAndDestination() {
+        // When / Then
+        assertEquals(List.of("search"), rateLimiter.policiesFor("GET", "/items/search/cursor"));
+        assertEquals(List.of(), rateLimiter.policiesFor("POST", "/items/search"));
+        assertEquals(List.of("chat-messages"), rateLimiter.policiesFor("POST", "/chat/conversations/42/messages"));
+        assertEquals(List.of("chat-messages"), rateLimiter.policiesForDestination("/app/chat/42"));
+    }
+
+    @Test
+    void tryConsume_ShouldRejectPerSubject_WhenCapacityIsUsed() {
+        // When
+        rateLimiter.tryConsume("search", null, "ip:10.0.0.1");
+        rateLimiter.tryConsume("search", null, "ip:10.0.0.1");
+        ConsumptionProbe rejected = rateLimiter.tryConsume("search", null, "ip:10.0.0.1");
+        ConsumptionProbe otherAddress = rateLimiter.tryConsume("search", null, "ip:10.0.0.2");
+
+        // Then
+        assertFalse(rejected.isConsumed());
+        assertTrue(rejected.getNanosToWaitForRefill() > 0);
+        assertTrue(otherAddress.isConsumed());
+        verifyNoInteractions(redisConnectionFactory);
+    }
+
+    @Test
+    void tryConsume_ShouldKeyByUser_WhenPolicyIsUserScoped() {
+        // Given
+        User user = User.builder().email("buyer@example.co.nz").build();
+        user.setId(UUID.randomUUID());
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, List.of());
+
+        // When
+        boolean first = rateLimiter.tryConsume("chat-messages", authentication, "session:a").isConsumed();
+        boolean sameUserOtherSession = rateLimiter.tryConsume("chat-messages", authentication, "session:b").isConsumed();
+        boolean anonymous = rateLimiter.tryConsume("chat-messages", null, "session:c").isConsumed();
+
+        // Then
+        assertTrue(first);
+        assertFalse(sameUserOtherSession);
+        assertTrue(anonymous);
+    }
+}
@@ -0,0 +1,50 @@
+package nz.co.market.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoUtilsTest {
+
+    private static final double AUCKLAND_LAT = -36.8485;
+    private static final double AUCKLAND_LNG = 174.7633;
+
+    @Test
+    void haversineKm_ShouldMatchKnownDistance_WhenAucklandToWellington() {
+        // When
+        double distance = GeoUtils.haversineKm(AUCKLAND_LAT, AUCKLAND_LNG, -41.2865, 174.7762);
+
+        // Then
+        assertEquals(493.5, distance, 2.0);
+    }
+
+    @Test
+    void boundingBoxes_ShouldContainCircle_WhenRadiusGiven() {
+        // When
+        List<GeoUtils.Box> boxes = GeoUtils.boundingBoxes(AUCKLAND_LAT, AUCKLAND_LNG, 20);
+
+        // Then
+        assertEquals(1, boxes.size());
+        GeoUtils.Box box = boxes.get(0);
+        assertEquals(20, GeoUtils.haversineKm(AUCKLAND_LAT, AUCKLAND_LNG, box.maxLat(), AUCKLAND_LNG), 0.01);
+        assertEquals(20, GeoUtils.haversineKm(AUCKLAND_LAT, AUCKLAND_LNG, AUCKLAND_LAT, box.maxLng()), 0.1);
+        assertTrue(box.minLng() < AUCKLAND_LNG && box.minLat() < AUCKLAND_LAT);
+    }
+
+    @Test
+    void boundingBoxes_ShouldSplit_WhenCircleCrossesAntimeridian() {
+        // Given - Chatham Islands
+        double lat = -43.95;
+        double lng = -176.56;
+
+        // When
+        List<GeoUtils.Box> boxes = GeoUtils.boundingBoxes(lat, lng, 500);
+
+        // Then
+        assertEquals(2, boxes.size());
+        assertTrue(boxes.stream().anyMatch(box -> box.maxLng() == 180 && box.minLng() > 170));
+        assertTrue(boxes.stream().anyMatch(box -> box.minLng() == -180 && box.maxLng() > lng));
+    }
+}
@@ -0,0 +1,50 @@
+package nz.co.market.items.dto;
+
+import nz.co.market.items.entity.Item;
+import nz.co.market.items.enums.ItemSortField;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemCursorTest {
+
+    @Test
+    void decode_ShouldRestoreCursor_WhenEncodedFromItem() {
+        // Given
+        Item item = Item.builder().priceNzd(new BigDecimal("129.50")).viewCount(42).build();
+        item.setId(UUID.randomUUID());
+        item.setCreatedAt(ZonedDateTime.parse("2024-03-01T10:15:30.123456+13:00[Pacific/Auckland]"));
+
+        // When
+        ItemCursor byDate = ItemCursor.decode(ItemCursor.after(item, ItemSortField.CREATED_AT, false, false).encode());
+        ItemCursor byPrice = ItemCursor.decode(ItemCursor.after(item, ItemSortField.PRICE, true, true).encode());
+
+        // Then
+        assertEquals(item.getId(), byDate.getId());
+        assertEquals(ItemSortField.CREATED_AT, byDate.getSortField());
+        assertFalse(byDate.isAscending());
+        assertEquals(item.getCreatedAt().toInstant(), ((OffsetDateTime) byDate.getTypedSortValue()).toInstant());
+
+        assertEquals(ItemSortField.PRICE, byPrice.getSortField());
+        assertTrue(byPrice.isAscending());
+        assertTrue(byPrice.isTrigram());
+        assertEquals(new BigDecimal("129.50"), byPrice.getTypedSortValue());
+    }
+
+    @Test
+    void decode_ShouldReturnNull_WhenCursorBlank() {
+        assertNull(ItemCursor.decode(null));
+        assertNull(ItemCursor.decode(" "));
+    }
+
+    @Test
+    void decode_ShouldThrowException_WhenCursorTampered() {
+        assertThrows(RuntimeException.class, () -> ItemCursor.decode("not-a-cursor"));
+        assertThrows(RuntimeException.class, () -> ItemCursor.decode("UFJJQ0V8QVNDfDB8YWJjfGRlZg"));
+    }
+}
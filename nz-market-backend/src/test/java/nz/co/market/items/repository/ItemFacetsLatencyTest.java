@@ -0,0 +1,117 @@
+package nz.co.market.items.repository;
+
+import nz.co.market.items.dto.ItemSearchRequest;
+import nz.co.market.items.enums.ItemStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ItemFacetsLatencyTest {
+
+    private static final int ITEM_COUNT = 50_000;
+    private static final long BUDGET_MILLIS = 150;
+    private static final List<BigDecimal> PRICE_BUCKETS = List.of(
+            BigDecimal.ZERO, new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("500"), new BigDecimal("1000"));
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (email, password_hash, display_name) VALUES ('seller@example.com', 'x', 'Seller')");
+        jdbcTemplate.update("INSERT INTO categories (name, slug) SELECT 'Category ' || n, 'category-' || n FROM generate_series(1, 30) n");
+        jdbcTemplate.update("""
+                INSERT INTO items (seller_id, title, description, price_nzd, condition, trade_method, status, category_id)
+                SELECT (SELECT id FROM users LIMIT 1),
+                       'Item ' || n || CASE WHEN n % 7 = 0 THEN ' vintage bike' ELSE ' phone' END,
+                       'Description ' || n,
+                       (n % 2000) + 0.99,
+                       (ARRAY['NEW', 'LIKE_NEW', 'GOOD', 'FAIR'])[1 + n % 4],
+                       (ARRAY['PICKUP', 'POST', 'BOTH'])[1 + n % 3],
+                       CASE WHEN n % 11 = 0 THEN 'SOLD' ELSE 'ACTIVE' END,
+                       (SELECT id FROM categories ORDER BY slug OFFSET (n % 30) LIMIT 1)
+                FROM generate_series(1, ?) n
+                """, ITEM_COUNT);
+        jdbcTemplate.execute("ANALYZE items");
+    }
+
+    @Test
+    void countFacets_ShouldStayWithinBudget_WhenCatalogueIsLarge() {
+        // Given
+        ItemSearchRequest browse = new ItemSearchRequest();
+        ItemSearchRequest keyword = new ItemSearchRequest();
+        keyword.setKeyword("vintage bike");
+
+        // Warm up plans and caches
+        for (int i = 0; i < 5; i++) {
+            itemRepository.countFacets(browse, ItemStatus.ACTIVE, PRICE_BUCKETS);
+            itemRepository.countFacets(keyword, ItemStatus.ACTIVE, PRICE_BUCKETS);
+        }
+
+        // When
+        long[] browseMillis = time(browse);
+        long[] keywordMillis = time(keyword);
+
+        // Then
+        List<ItemFacetCount> counts = itemRepository.countFacets(browse, ItemStatus.ACTIVE, PRICE_BUCKETS);
+        long conditionTotal = counts.stream()
+                .filter(count -> count.facet() == ItemFacetCount.Facet.CONDITION)
+                .mapToLong(ItemFacetCount::count)
+                .sum();
+        assertEquals(ITEM_COUNT - ITEM_COUNT / 11, conditionTotal);
+        assertEquals(30, counts.stream().filter(count -> count.facet() == ItemFacetCount.Facet.CATEGORY).count());
+        assertEquals(5, counts.stream().filter(count -> count.facet() == ItemFacetCount.Facet.PRICE_BUCKET).count());
+
+        assertTrue(median(browseMillis) <= BUDGET_MILLIS, "browse facets took " + median(browseMillis) + "ms");
+        assertTrue(median(keywordMillis) <= BUDGET_MILLIS, "keyword facets took " + median(keywordMillis) + "ms");
+    }
+
+    private long[] time(ItemSearchRequest request) {
+        long[] millis = new long[11];
+        for (int i = 0; i < millis.length; i++) {
+            long start = System.nanoTime();
+            itemRepository.countFacets(request, ItemStatus.ACTIVE, PRICE_BUCKETS);
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        return millis;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,126 @@
+package nz.co.market.items.service;
+
+import jakarta.persistence.EntityManager;
+import nz.co.market.auth.entity.User;
+import nz.co.market.items.dto.ItemSummaryResponse;
+import nz.co.market.items.entity.Category;
+import nz.co.market.items.entity.Item;
+import nz.co.market.items.entity.ItemImage;
+import nz.co.market.items.entity.Tag;
+import nz.co.market.items.enums.ItemCondition;
+import nz.co.market.items.enums.TradeMethod;
+import nz.co.market.items.mapper.ItemMapperImpl;
+import nz.co.market.items.repository.ItemRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({ItemListingLoader.class, ItemMapperImpl.class})
+class ItemListingLoaderTest {
+    
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+    
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private ItemRepository itemRepository;
+    
+    @Autowired
+    private ItemListingLoader itemListingLoader;
+    
+    @BeforeEach
+    void setUp() {
+        Category category = Category.builder().name("Phones").slug("phones").build();
+        entityManager.persist(category);
+        
+        for (int s = 0; s < 4; s++) {
+            User seller = User.builder()
+                    .email("seller" + s + "@example.com")
+                    .passwordHash("hash")
+                    .displayName("Seller " + s)
+                    .build();
+            entityManager.persist(seller);
+            
+            Tag tag = Tag.builder().name("Tag " + s).slug("tag-" + s).build();
+            entityManager.persist(tag);
+            
+            for (int i = 0; i < 6; i++) {
+                Item item = Item.builder()
+                        .seller(seller)
+                        .title("Item " + s + "-" + i)
+                        .description("Description")
+                        .priceNzd(new BigDecimal("10.00"))
+                        .condition(ItemCondition.GOOD)
+                        .tradeMethod(TradeMethod.PICKUP)
+                        .category(category)
+                        .tags(new ArrayList<>(List.of(tag)))
+                        .build();
+                item.getImages().add(ItemImage.builder().item(item).url("https://img/" + s + i + "/1").sortOrder(1).build());
+                item.getImages().add(ItemImage.builder().item(item).url("https://img/" + s + i + "/0").sortOrder(0).build());
+                entityManager.persist(item);
+            }
+        }
+        
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20})
+    void toSummaries_ShouldIssueConstantNumberOfStatements_WhenPageSizeGrows(int size) {
+        // Given
+        List<Item> page = itemRepository.findAll(PageRequest.of(0, size, Sort.by("createdAt"))).getContent();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        
+        // When
+        List<ItemSummaryResponse> summaries = itemListingLoader.toSummaries(page);
+        
+        // Then
+        assertEquals(size, summaries.size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+        summaries.forEach(summary -> {
+            assertNotNull(summary.getSeller().getDisplayName());
+            assertEquals("phones", summary.getCategory().getSlug());
+            assertEquals(1, summary.getTags().size());
+            assertTrue(summary.getThumbnailUrl().endsWith("/0"));
+        });
+    }
+}
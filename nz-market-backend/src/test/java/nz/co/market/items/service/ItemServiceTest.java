@@ -0,0 +1,114 @@
+package nz.co.market.items.service;
+
+import nz.co.market.auth.entity.User;
+import nz.co.market.auth.entity.UserProfile;
+import nz.co.market.auth.enums.UserRole;
+import nz.co.market.auth.repository.UserRepository;
+import nz.co.market.common.dto.CursorPage;
+import nz.co.market.items.dto.CreateItemRequest;
+import nz.co.market.items.dto.ItemResponse;
+import nz.co.market.items.dto.ItemSearchRequest;
+import nz.co.market.items.dto.ItemSummaryResponse;
+import nz.co.market.items.entity.Item;
+import nz.co.market.items.enums.ItemStatus;
+import nz.co.market.items.mapper.ItemMapper;
+import nz.co.market.items.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemServiceTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private ItemListingLoader itemListingLoader;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ItemMapper itemMapper = Mappers.getMapper(ItemMapper.class);
+
+    @InjectMocks
+    private ItemService itemService;
+
+    @Test
+    void scrollItems_ShouldClampPageSize_WhenSizeIsOutOfRange() {
+        // Given
+        when(itemRepository.scroll(any(), eq(ItemStatus.ACTIVE), isNull(), eq(false), anyInt()))
+                .thenReturn(List.of(item(), item()));
+        when(itemListingLoader.toSummaries(anyList()))
+                .thenAnswer(invocation -> invocation.<List<Item>>getArgument(0).stream().map(item -> new ItemSummaryResponse()).toList());
+
+        // When
+        CursorPage<ItemSummaryResponse> empty = itemService.scrollItems(request(0));
+        itemService.scrollItems(request(-5));
+        itemService.scrollItems(request(1_000_000));
+
+        // Then
+        assertEquals(1, empty.getContent().size());
+        assertTrue(empty.isHasNext());
+        assertNotNull(empty.getNextCursor());
+        verify(itemRepository, times(2)).scroll(any(), eq(ItemStatus.ACTIVE), isNull(), eq(false), eq(2));
+        verify(itemRepository).scroll(any(), eq(ItemStatus.ACTIVE), isNull(), eq(false), eq(101));
+    }
+
+    @Test
+    void createItem_ShouldReturnSellerProfile_WhenPrincipalHasOnlyTokenClaims() {
+        // Given
+        User fromToken = User.builder().email("seller@example.com").role(UserRole.USER).build();
+        fromToken.setId(UUID.randomUUID());
+        User stored = User.builder().email("seller@example.com").displayName("Sam Seller").avatarUrl("https://cdn/avatar.png").build();
+        stored.setId(fromToken.getId());
+        stored.setProfile(UserProfile.builder().user(stored).location("Auckland").build());
+        when(userRepository.getReferenceById(fromToken.getId())).thenReturn(stored);
+        when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        CreateItemRequest request = new CreateItemRequest();
+        request.setTitle("Bike");
+        request.setPriceNzd(BigDecimal.TEN);
+
+        // When
+        ItemResponse response = itemService.createItem(request, fromToken);
+
+        // Then
+        assertEquals(fromToken.getId(), response.getSeller().getId());
+        assertEquals("Sam Seller", response.getSeller().getDisplayName());
+        assertEquals("https://cdn/avatar.png", response.getSeller().getAvatarUrl());
+        assertEquals("Auckland", response.getSeller().getLocation());
+    }
+
+    private static ItemSearchRequest request(int size) {
+        ItemSearchRequest request = new ItemSearchRequest();
+        request.setSize(size);
+        return request;
+    }
+
+    private static Item item() {
+        Item item = Item.builder().title("Bike").build();
+        item.setId(UUID.randomUUID());
+        item.setCreatedAt(ZonedDateTime.now());
+        return item;
+    }
+}
@@ -0,0 +1,114 @@
+package nz.co.market.items.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nz.co.market.items.config.ItemViewConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemViewCounterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ItemViewCounter itemViewCounter;
+
+    @BeforeEach
+    void setUp() {
+        ItemViewConfig config = new ItemViewConfig();
+        config.setBatchSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        itemViewCounter = new ItemViewCounter(jdbcTemplate, config, meterRegistry);
+        itemViewCounter.registerMetrics();
+    }
+
+    @Test
+    void flush_ShouldWriteAggregatedDeltasInBatches_WhenViewsRecorded() {
+        // Given
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            itemViewCounter.recordView(first);
+        }
+        itemViewCounter.recordView(second);
+        itemViewCounter.recordView(third);
+
+        // When
+        itemViewCounter.flush();
+
+        // Then
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(2)).update(startsWith("UPDATE items AS i SET view_count"), args.capture());
+        long total = args.getAllValues().stream()
+                .flatMap(batch -> IntStream.range(0, batch.length / 2).mapToObj(i -> (Long) batch[i * 2 + 1]))
+                .mapToLong(Long::longValue)
+                .sum();
+        assertEquals(7, total);
+        assertEquals(3, meterRegistry.counter("items.views.flushed").count());
+    }
+
+    @Test
+    void flush_ShouldRequeueDeltas_WhenUpdateFails() {
+        // Given
+        UUID itemId = UUID.randomUUID();
+        itemViewCounter.recordView(itemId);
+        itemViewCounter.recordView(itemId);
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("db down"))
+                .thenReturn(1);
+
+        // When
+        itemViewCounter.flush();
+        itemViewCounter.flush();
+
+        // Then
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(2)).update(anyString(), args.capture());
+        assertEquals(2L, args.getValue()[1]);
+        assertEquals(1, meterRegistry.counter("items.views.flush.failures").count());
+    }
+
+    @Test
+    void flush_ShouldWriteView_WhenRecordedAfterIdleEntryWasDropped() {
+        // Given
+        UUID itemId = UUID.randomUUID();
+        itemViewCounter.recordView(itemId);
+        itemViewCounter.flush();
+        itemViewCounter.recordView(itemId);
+        itemViewCounter.flush();
+        itemViewCounter.flush();
+
+        // When
+        itemViewCounter.recordView(itemId);
+        itemViewCounter.recordView(itemId);
+        itemViewCounter.flush();
+
+        // Then
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(3)).update(anyString(), args.capture());
+        assertEquals(2L, args.getValue()[1]);
+        assertEquals(4, meterRegistry.counter("items.views.recorded").count());
+    }
+
+    @Test
+    void flush_ShouldSkipDatabase_WhenNothingPending() {
+        itemViewCounter.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,83 @@
+package nz.co.market.items.service;
+
+import nz.co.market.items.dto.SuggestionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionIndexTest {
+
+    private static List<String> texts(List<SuggestionIndex.Scored> results) {
+        return results.stream().map(scored -> scored.suggestion().getText()).toList();
+    }
+
+    @Test
+    void lookup_ShouldRankByWeight_WhenPrefixMatchesSeveralEntries() {
+        // Given
+        UUID phones = UUID.randomUUID();
+        SuggestionIndex index = new SuggestionIndex.Builder(10, 24)
+                .add("iPhone 13 Pro", SuggestionResponse.Type.TITLE, null, 2)
+                .add("iPad Air", SuggestionResponse.Type.TITLE, null, 5)
+                .add("Phones", SuggestionResponse.Type.CATEGORY, phones, 20)
+                .add("Bike", SuggestionResponse.Type.TITLE, null, 50)
+                .build();
+
+        // When
+        List<SuggestionIndex.Scored> results = index.lookup("IP", 10);
+
+        // Then
+        assertEquals(List.of("iPad Air", "iPhone 13 Pro"), texts(results));
+        assertEquals(phones, index.lookup("pho", 10).get(0).suggestion().getId());
+    }
+
+    @Test
+    void lookup_ShouldMatchLaterWords_WhenQueryStartsMidTitle() {
+        // Given
+        SuggestionIndex index = new SuggestionIndex.Builder(10, 24)
+                .add("Apple iPhone 13", SuggestionResponse.Type.TITLE, null, 1)
+                .build();
+
+        // When
+        List<SuggestionIndex.Scored> results = index.lookup("iphone 1", 10);
+
+        // Then
+        assertEquals(List.of("Apple iPhone 13"), texts(results));
+        assertTrue(index.lookup("hone", 10).isEmpty());
+    }
+
+    @Test
+    void lookup_ShouldMatchChineseAndFullWidthText_WhenQueryIsNormalised() {
+        // Given
+        SuggestionIndex index = new SuggestionIndex.Builder(10, 24)
+                .add("二手苹果手机", SuggestionResponse.Type.TITLE, null, 1)
+                .add("ＩＫＥＡ 书桌", SuggestionResponse.Type.TITLE, null, 1)
+                .build();
+
+        // When / Then
+        assertEquals(List.of("二手苹果手机"), texts(index.lookup("苹果", 10)));
+        assertEquals(List.of("ＩＫＥＡ 书桌"), texts(index.lookup("ikea", 10)));
+        assertEquals(List.of("ＩＫＥＡ 书桌"), texts(index.lookup("书桌", 10)));
+    }
+
+    @Test
+    void build_ShouldMergeDuplicatesAndKeepTopK_WhenManyEntriesShareAPrefix() {
+        // Given
+        SuggestionIndex.Builder builder = new SuggestionIndex.Builder(3, 24);
+        for (int i = 0; i < 20; i++) {
+            builder.add("Desk " + i, SuggestionResponse.Type.TITLE, null, i);
+        }
+        builder.add("desk  0", SuggestionResponse.Type.TITLE, null, 100);
+
+        // When
+        SuggestionIndex index = builder.build();
+        List<SuggestionIndex.Scored> results = index.lookup("desk", 10);
+
+        // Then
+        assertEquals(20, index.size());
+        assertEquals(List.of("Desk 0", "Desk 19", "Desk 18"), texts(results));
+        assertEquals(100, results.get(0).weight(), 1e-9);
+    }
+}
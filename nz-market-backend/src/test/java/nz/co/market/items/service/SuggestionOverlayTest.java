@@ -0,0 +1,110 @@
+package nz.co.market.items.service;
+
+import nz.co.market.items.dto.SuggestionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionOverlayTest {
+
+    private static final int MAX_DEPTH = 8;
+
+    private final SuggestionOverlay overlay = new SuggestionOverlay();
+
+    private static SuggestionOverlay.Change change(String title, boolean active, String replacedTitle, long changedAt) {
+        return change(title, 1, active, replacedTitle, changedAt);
+    }
+
+    private static SuggestionOverlay.Change change(String title, double weight, boolean active, String replacedTitle,
+                                                   long changedAt) {
+        String normalized = SuggestionIndex.normalize(title);
+        Set<String> keys = active ? SuggestionIndex.keysFor(normalized, MAX_DEPTH) : Set.of();
+        return new SuggestionOverlay.Change(title, normalized, keys, weight, active, replacedTitle, changedAt);
+    }
+
+    private List<String> texts(String query) {
+        return overlay.lookup(SuggestionIndex.normalize(query), MAX_DEPTH, 3).stream()
+                .map(scored -> scored.suggestion().getText())
+                .toList();
+    }
+
+    @Test
+    void lookup_ShouldAgreeWithTrie_WhenQueryIsLongerThanMaxDepth() {
+        // Given
+        overlay.put(UUID.randomUUID(), change("Vintage leather armchair", true, null, 1));
+        SuggestionIndex index = new SuggestionIndex.Builder(10, MAX_DEPTH)
+                .add("Vintage leather armchair", SuggestionResponse.Type.TITLE, null, 1)
+                .build();
+
+        // When / Then
+        assertEquals(List.of("Vintage leather armchair"), texts("leather arm"));
+        assertEquals(1, index.lookup("leather arm", 10).size());
+        assertTrue(texts("leather sofa").isEmpty());
+        assertTrue(index.lookup("leather sofa", 10).isEmpty());
+    }
+
+    @Test
+    void lookup_ShouldKeepHeaviestDistinctTitles_WhenMoreChangesMatchThanLimit() {
+        // Given
+        overlay.put(UUID.randomUUID(), change("Sofa bed", 1, true, null, 1));
+        overlay.put(UUID.randomUUID(), change("Sony speaker", 4, true, null, 1));
+        overlay.put(UUID.randomUUID(), change("Old sofa", 3, true, null, 1));
+        overlay.put(UUID.randomUUID(), change("Sony speaker", 6, true, null, 1));
+        overlay.put(UUID.randomUUID(), change("Samsung TV", 2, true, null, 1));
+
+        // When
+        List<SuggestionIndex.Scored> results = overlay.lookup("s", MAX_DEPTH, 3);
+
+        // Then
+        assertEquals(Set.of("Sony speaker", "Old sofa", "Samsung TV"),
+                Set.copyOf(results.stream().map(scored -> scored.suggestion().getText()).toList()));
+        assertEquals(6, results.stream().mapToDouble(SuggestionIndex.Scored::weight).max().orElseThrow(), 1e-9);
+    }
+
+    @Test
+    void lookup_ShouldOnlyFindLatestChange_WhenItemIsRenamedTwice() {
+        // Given
+        UUID itemId = UUID.randomUUID();
+        overlay.put(itemId, change("Oak desk", true, "pine desk", 1));
+        overlay.put(itemId, change("Walnut desk", true, "pine desk", 2));
+
+        // When / Then
+        assertEquals(List.of("Walnut desk"), texts("desk"));
+        assertTrue(texts("oak").isEmpty());
+        assertEquals(1, overlay.size());
+    }
+
+    @Test
+    void hides_ShouldHideReplacedTitle_UnlessAnotherChangeStillUsesIt() {
+        // Given
+        overlay.put(UUID.randomUUID(), change("Blue bike", true, "red bike", 1));
+        overlay.put(UUID.randomUUID(), change("Standing desk", false, "standing desk", 2));
+
+        // When
+        overlay.put(UUID.randomUUID(), change("Red bike", true, null, 3));
+
+        // Then
+        assertFalse(overlay.hides("red bike"));
+        assertTrue(overlay.hides("standing desk"));
+        assertTrue(texts("standing").isEmpty());
+    }
+
+    @Test
+    void removeChangedBefore_ShouldDropChangesAndTheirKeys_WhenRebuildPickedThemUp() {
+        // Given
+        overlay.put(UUID.randomUUID(), change("Camping tent", true, "old tent", 1));
+        overlay.put(UUID.randomUUID(), change("Camping stove", true, null, 5));
+
+        // When
+        overlay.removeChangedBefore(3);
+
+        // Then
+        assertEquals(List.of("Camping stove"), texts("camping"));
+        assertFalse(overlay.hides("old tent"));
+        assertEquals(1, overlay.size());
+    }
+}
@@ -0,0 +1,128 @@
+package nz.co.market.items.service;
+
+import nz.co.market.items.enums.TrendingWindow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingScoreboardTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private TrendingScoreboard scoreboard;
+    private UUID phones;
+
+    @BeforeEach
+    void setUp() {
+        scoreboard = new TrendingScoreboard(START, 1.0);
+        phones = UUID.randomUUID();
+    }
+
+    @Test
+    void advanceTo_ShouldHalveScore_WhenOneHalfLifePasses() {
+        // Given
+        UUID item = UUID.randomUUID();
+        scoreboard.updateItem(item, phones, "Auckland", 0, START);
+        scoreboard.recordActivity(item, 8.0, START);
+
+        // When
+        scoreboard.advanceTo(START.plus(TrendingWindow.DAY.getHalfLife()));
+
+        // Then
+        assertEquals(4.0, scoreboard.score(item, TrendingWindow.DAY), 1e-9);
+        assertTrue(scoreboard.score(item, TrendingWindow.MONTH) > 7.0);
+    }
+
+    @Test
+    void updateItem_ShouldOnlyCreditViewGrowth_WhenItemAlreadyTracked() {
+        // Given
+        UUID item = UUID.randomUUID();
+        scoreboard.updateItem(item, phones, "Auckland", 10, START);
+
+        // When
+        scoreboard.updateItem(item, phones, "Auckland", 15, START);
+
+        // Then
+        assertEquals(15.0, scoreboard.score(item, TrendingWindow.WEEK), 1e-9);
+    }
+
+    @Test
+    void rank_ShouldPreferRecentActivity_WhenOlderItemHasMoreTotalViews() {
+        // Given
+        UUID stale = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+        scoreboard.updateItem(stale, phones, "Auckland", 1000, START.minus(Duration.ofDays(60)));
+        scoreboard.updateItem(fresh, phones, "Wellington", 0, START);
+        scoreboard.recordActivity(fresh, 50.0, START);
+
+        // When
+        Map<String, List<UUID>> rankings = scoreboard.rank(TrendingWindow.WEEK, 10);
+
+        // Then
+        assertEquals(List.of(fresh, stale), rankings.get(TrendingScoreboard.GLOBAL));
+        assertEquals(List.of(fresh, stale), rankings.get(TrendingScoreboard.categoryKey(phones)));
+        assertEquals(List.of(stale), rankings.get(TrendingScoreboard.cityKey(" auckland ")));
+        assertEquals(List.of(fresh), rankings.get(
+                TrendingScoreboard.categoryCityKey(phones, TrendingScoreboard.cityKey("Wellington"))));
+    }
+
+    @Test
+    void rank_ShouldKeepOnlyTopK_WhenListExceedsBound() {
+        // Given
+        for (int i = 1; i <= 20; i++) {
+            UUID item = UUID.randomUUID();
+            scoreboard.updateItem(item, phones, null, 0, START);
+            scoreboard.recordActivity(item, i, START);
+        }
+
+        // When
+        List<UUID> top = scoreboard.rank(TrendingWindow.DAY, 3).get(TrendingScoreboard.GLOBAL);
+
+        // Then
+        assertEquals(3, top.size());
+        assertEquals(20.0, scoreboard.score(top.get(0), TrendingWindow.DAY), 1e-9);
+        assertEquals(18.0, scoreboard.score(top.get(2), TrendingWindow.DAY), 1e-9);
+    }
+
+    @Test
+    void copy_ShouldLeaveOriginalUnchanged_WhenCopyIsUpdated() {
+        // Given
+        UUID item = UUID.randomUUID();
+        scoreboard.updateItem(item, phones, null, 0, START);
+        scoreboard.recordActivity(item, 8.0, START);
+
+        // When
+        TrendingScoreboard copy = scoreboard.copy();
+        copy.advanceTo(START.plus(TrendingWindow.DAY.getHalfLife()));
+        copy.recordActivity(item, 1.0, copy.getNow());
+        copy.retainOnly(Set.of());
+
+        // Then
+        assertEquals(START, scoreboard.getNow());
+        assertEquals(8.0, scoreboard.score(item, TrendingWindow.DAY), 1e-9);
+        assertEquals(0, copy.size());
+    }
+
+    @Test
+    void retainOnly_ShouldDropItems_WhenNoLongerActive() {
+        // Given
+        UUID kept = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+        scoreboard.updateItem(kept, phones, null, 1, START);
+        scoreboard.updateItem(removed, phones, null, 1, START);
+
+        // When
+        scoreboard.retainOnly(Set.of(kept));
+
+        // Then
+        assertEquals(List.of(kept), scoreboard.rank(TrendingWindow.WEEK, 10).get(TrendingScoreboard.GLOBAL));
+    }
+}